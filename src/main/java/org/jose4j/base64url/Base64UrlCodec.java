@@ -0,0 +1,320 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import org.jose4j.lang.StringUtil;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A table driven codec for unpadded base64url, which is all that JOSE uses.
+ * It's stateless, so everything is static, and output is always allocated at exactly the right size.
+ *
+ * Base64Url used to go through the general purpose codec ported from Apache commons-codec, which
+ * has a bunch of machinery (line lengths, a resizable buffer, per call Context objects) that doesn't apply here.
+ * Decoding is just as lenient as that codec was though: both the base64url and base64 alphabets are accepted,
+ * padding is optional and ends the data, characters outside the alphabet are ignored, and extra trailing
+ * bits are dropped.
+ */
+public class Base64UrlCodec
+{
+    private static final Charset US_ASCII = Charset.forName(StringUtil.US_ASCII);
+
+    private static final byte[] ENCODE_TABLE = {
+            'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
+            'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z',
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm',
+            'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z',
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '_'
+    };
+
+    private static final byte[] DECODE_TABLE = new byte[128];
+    static
+    {
+        for (int i = 0; i < DECODE_TABLE.length; i++)
+        {
+            DECODE_TABLE[i] = -1;
+        }
+        for (int i = 0; i < ENCODE_TABLE.length; i++)
+        {
+            DECODE_TABLE[ENCODE_TABLE[i]] = (byte) i;
+        }
+        DECODE_TABLE['+'] = 62;
+        DECODE_TABLE['/'] = 63;
+    }
+
+    private static final char PAD = '=';
+
+    /**
+     * @param byteCount the number of bytes to be encoded
+     * @return the number of characters the unpadded base64url encoding of that many bytes will be
+     */
+    public static int encodedLength(int byteCount)
+    {
+        return (byteCount / 3) * 4 + ((byteCount % 3 == 0) ? 0 : (byteCount % 3) + 1);
+    }
+
+    public static String encode(byte[] bytes)
+    {
+        return (bytes == null) ? null : encode(bytes, 0, bytes.length);
+    }
+
+    public static String encode(byte[] bytes, int offset, int length)
+    {
+        byte[] encoded = new byte[encodedLength(length)];
+        encode(bytes, offset, length, encoded, 0);
+        return new String(encoded, US_ASCII);
+    }
+
+    /**
+     * Encodes into a caller supplied array, which needs room for {@link #encodedLength(int)} bytes.
+     * @param src the bytes to encode
+     * @param srcOffset where in src to start
+     * @param length how many bytes of src to encode
+     * @param dst where the ASCII base64url characters go
+     * @param dstOffset where in dst to start
+     * @return the number of bytes written to dst
+     */
+    public static int encode(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset)
+    {
+        checkRange(src.length, srcOffset, length);
+        int encodedLength = encodedLength(length);
+        checkRange(dst.length, dstOffset, encodedLength);
+
+        int s = srcOffset;
+        int d = dstOffset;
+        int fullGroupsEnd = srcOffset + (length / 3) * 3;
+        while (s < fullGroupsEnd)
+        {
+            int bits = (src[s++] & 0xff) << 16 | (src[s++] & 0xff) << 8 | (src[s++] & 0xff);
+            dst[d++] = ENCODE_TABLE[(bits >>> 18) & 0x3f];
+            dst[d++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+            dst[d++] = ENCODE_TABLE[(bits >>> 6) & 0x3f];
+            dst[d++] = ENCODE_TABLE[bits & 0x3f];
+        }
+
+        int remaining = srcOffset + length - s;
+        if (remaining == 1)
+        {
+            int bits = (src[s] & 0xff);
+            dst[d++] = ENCODE_TABLE[bits >>> 2];
+            dst[d++] = ENCODE_TABLE[(bits << 4) & 0x3f];
+        }
+        else if (remaining == 2)
+        {
+            int bits = (src[s] & 0xff) << 8 | (src[s + 1] & 0xff);
+            dst[d++] = ENCODE_TABLE[bits >>> 10];
+            dst[d++] = ENCODE_TABLE[(bits >>> 4) & 0x3f];
+            dst[d++] = ENCODE_TABLE[(bits << 2) & 0x3f];
+        }
+
+        return d - dstOffset;
+    }
+
+    /**
+     * Encodes into a caller supplied buffer, starting at its current position and advancing it.
+     * @param src the bytes to encode
+     * @param srcOffset where in src to start
+     * @param length how many bytes of src to encode
+     * @param dst where the ASCII base64url characters go
+     * @return the number of bytes written to dst
+     * @throws BufferOverflowException if dst doesn't have {@link #encodedLength(int)} bytes remaining
+     */
+    public static int encode(byte[] src, int srcOffset, int length, ByteBuffer dst)
+    {
+        int encodedLength = encodedLength(length);
+        if (dst.remaining() < encodedLength)
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (dst.hasArray())
+        {
+            encode(src, srcOffset, length, dst.array(), dst.arrayOffset() + dst.position());
+            dst.position(dst.position() + encodedLength);
+        }
+        else
+        {
+            byte[] encoded = new byte[encodedLength];
+            encode(src, srcOffset, length, encoded, 0);
+            dst.put(encoded);
+        }
+        return encodedLength;
+    }
+
+    public static byte[] decode(CharSequence encoded)
+    {
+        return (encoded == null) ? null : decode(encoded, 0, encoded.length());
+    }
+
+    /**
+     * Decodes a range of characters, such as one part of a JOSE compact serialization.
+     * @param encoded the characters containing the base64url encoded value
+     * @param offset the index of the first character of the encoded value
+     * @param length the number of characters of the encoded value
+     * @return the decoded bytes
+     */
+    public static byte[] decode(CharSequence encoded, int offset, int length)
+    {
+        checkRange(encoded.length(), offset, length);
+        int end = offset + length;
+        int dataEnd = end;
+        while (dataEnd > offset && encoded.charAt(dataEnd - 1) == PAD)
+        {
+            dataEnd--;
+        }
+
+        // anything that's actually base64url goes through here with a single, exactly sized, allocation
+        byte[] decoded = new byte[decodedLength(dataEnd - offset)];
+        if (decodeAllInAlphabet(encoded, offset, dataEnd, decoded))
+        {
+            return decoded;
+        }
+
+        return decodeLeniently(encoded, offset, end);
+    }
+
+    private static boolean decodeAllInAlphabet(CharSequence encoded, int start, int end, byte[] decoded)
+    {
+        int i = start;
+        int d = 0;
+        int fullGroupsEnd = start + ((end - start) / 4) * 4;
+        while (i < fullGroupsEnd)
+        {
+            int b0 = value(encoded.charAt(i++));
+            int b1 = value(encoded.charAt(i++));
+            int b2 = value(encoded.charAt(i++));
+            int b3 = value(encoded.charAt(i++));
+            if ((b0 | b1 | b2 | b3) < 0)
+            {
+                return false;
+            }
+            int bits = b0 << 18 | b1 << 12 | b2 << 6 | b3;
+            decoded[d++] = (byte) (bits >> 16);
+            decoded[d++] = (byte) (bits >> 8);
+            decoded[d++] = (byte) bits;
+        }
+
+        switch (end - i)
+        {
+            case 1:
+                // 6 bits isn't enough for a byte and is ignored
+                return value(encoded.charAt(i)) >= 0;
+            case 2:
+            {
+                int b0 = value(encoded.charAt(i));
+                int b1 = value(encoded.charAt(i + 1));
+                if ((b0 | b1) < 0)
+                {
+                    return false;
+                }
+                decoded[d] = (byte) ((b0 << 6 | b1) >> 4);
+                return true;
+            }
+            case 3:
+            {
+                int b0 = value(encoded.charAt(i));
+                int b1 = value(encoded.charAt(i + 1));
+                int b2 = value(encoded.charAt(i + 2));
+                if ((b0 | b1 | b2) < 0)
+                {
+                    return false;
+                }
+                int bits = (b0 << 12 | b1 << 6 | b2) >> 2;
+                decoded[d++] = (byte) (bits >> 8);
+                decoded[d] = (byte) bits;
+                return true;
+            }
+            default:
+                return true;
+        }
+    }
+
+    private static byte[] decodeLeniently(CharSequence encoded, int start, int end)
+    {
+        int valueCount = 0;
+        int dataEnd = start;
+        while (dataEnd < end)
+        {
+            char c = encoded.charAt(dataEnd);
+            if (c == PAD)
+            {
+                break;
+            }
+            if (value(c) >= 0)
+            {
+                valueCount++;
+            }
+            dataEnd++;
+        }
+
+        byte[] decoded = new byte[decodedLength(valueCount)];
+        int d = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = start; i < dataEnd; i++)
+        {
+            int value = value(encoded.charAt(i));
+            if (value >= 0)
+            {
+                bits = bits << 6 | value;
+                if (++count == 4)
+                {
+                    decoded[d++] = (byte) (bits >> 16);
+                    decoded[d++] = (byte) (bits >> 8);
+                    decoded[d++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            }
+        }
+
+        if (count == 2)
+        {
+            decoded[d] = (byte) (bits >> 4);
+        }
+        else if (count == 3)
+        {
+            bits = bits >> 2;
+            decoded[d++] = (byte) (bits >> 8);
+            decoded[d] = (byte) bits;
+        }
+
+        return decoded;
+    }
+
+    private static int decodedLength(int valueCount)
+    {
+        int remainder = valueCount % 4;
+        return (valueCount / 4) * 3 + ((remainder < 2) ? 0 : remainder - 1);
+    }
+
+    private static int value(char c)
+    {
+        return (c < DECODE_TABLE.length) ? DECODE_TABLE[c] : -1;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset + length > arrayLength)
+        {
+            throw new IndexOutOfBoundsException("offset " + offset + " and length " + length + " out of bounds for " + arrayLength);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.http;
+
+import org.jose4j.lang.SharedExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  A {@link Get} that can also make requests asynchronously. All the configuration of {@code Get}
+ *  (timeouts, TLS, proxy, response body size limit and retries) applies the same way.
+ *  Each attempt runs on a thread of an {@link Executor} (a small shared pool of daemon threads by default)
+ *  and the wait between retries is scheduled rather than slept so no thread is held while waiting to try again.
+ *  Connections are reused by way of the keep-alive support of {@link java.net.HttpURLConnection}.
+ */
+public class AsyncGet extends Get implements AsyncSimpleGet
+{
+    private static final Logger log = LoggerFactory.getLogger(AsyncGet.class);
+
+    private volatile Executor executor;
+
+    /**
+     * Sets the Executor that runs the requests. By default the pool of daemon threads that's shared by all
+     * AsyncGet instances, and the other parts of this library that wait on HTTP, is used.
+     * @param executor the Executor to use
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    @Override
+    public Future<SimpleResponse> getAsync(String location, Map<String, String> requestHeaders, Callback callback)
+    {
+        ResponseFuture future = new ResponseFuture(callback);
+        try
+        {
+            URL url = new URL(location);
+            log.debug("Async HTTP GET of {}", location);
+            Map<String, String> headers = new LinkedHashMap<>(requestHeaders == null ? Collections.<String, String>emptyMap() : requestHeaders);
+            submit(new Attempt(url, headers, isConditional(headers), future));
+        }
+        catch (IOException e)
+        {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    private void submit(Attempt attempt)
+    {
+        try
+        {
+            Executor e = executor;
+            (e == null ? SharedExecutors.blocking() : e).execute(attempt);
+        }
+        catch (RejectedExecutionException e)
+        {
+            attempt.future.fail(new IOException("Unable to make the HTTP GET request of " + attempt.url + " due to " + e, e));
+        }
+    }
+
+    private class Attempt implements Runnable
+    {
+        private final URL url;
+        private final Map<String, String> requestHeaders;
+        private final boolean conditional;
+        private final ResponseFuture future;
+        private int attempts;
+
+        private Attempt(URL url, Map<String, String> requestHeaders, boolean conditional, ResponseFuture future)
+        {
+            this.url = url;
+            this.requestHeaders = requestHeaders;
+            this.conditional = conditional;
+            this.future = future;
+        }
+
+        @Override
+        public void run()
+        {
+            if (future.isDone())
+            {
+                return;
+            }
+
+            try
+            {
+                future.complete(attempt(url, requestHeaders, conditional));
+            }
+            catch (IOException e)
+            {
+                attempts++;
+                if (!isRetryable(e) || attempts > getRetries())
+                {
+                    future.fail(e);
+                    return;
+                }
+
+                long retryWaitTime = getRetryWaitTime(attempts);
+                log.debug("Will retry ({} of {}) HTTP GET of {} in {}ms after failed attempt: {}", attempts, getRetries(), url, retryWaitTime, e);
+                future.retry = SharedExecutors.blocking().schedule(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        submit(Attempt.this);
+                    }
+                }, retryWaitTime, TimeUnit.MILLISECONDS);
+            }
+            catch (RuntimeException e)
+            {
+                future.fail(new IOException("Unexpected problem with HTTP GET of " + url + ": " + e, e));
+            }
+        }
+    }
+
+    private static class ResponseFuture implements Future<SimpleResponse>
+    {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final Callback callback;
+        private final AtomicInteger state = new AtomicInteger();  // 0 pending, 1 completed, 2 failed, 3 cancelled
+        private volatile SimpleResponse response;
+        private volatile IOException exception;
+        private volatile ScheduledFuture<?> retry;
+
+        private ResponseFuture(Callback callback)
+        {
+            this.callback = callback;
+        }
+
+        private void complete(SimpleResponse simpleResponse)
+        {
+            response = simpleResponse;
+            if (state.compareAndSet(0, 1))
+            {
+                done.countDown();
+                if (callback != null)
+                {
+                    callback.completed(simpleResponse);
+                }
+            }
+        }
+
+        private void fail(IOException e)
+        {
+            exception = e;
+            if (state.compareAndSet(0, 2))
+            {
+                done.countDown();
+                if (callback != null)
+                {
+                    callback.failed(e);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            if (state.compareAndSet(0, 3))
+            {
+                ScheduledFuture<?> r = retry;
+                if (r != null)
+                {
+                    r.cancel(false);
+                }
+                done.countDown();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return state.get() == 3;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return state.get() != 0;
+        }
+
+        @Override
+        public SimpleResponse get() throws InterruptedException, ExecutionException
+        {
+            done.await();
+            return result();
+        }
+
+        @Override
+        public SimpleResponse get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+        {
+            if (!done.await(timeout, unit))
+            {
+                throw new TimeoutException();
+            }
+            return result();
+        }
+
+        private SimpleResponse result() throws ExecutionException
+        {
+            switch (state.get())
+            {
+                case 1:
+                    return response;
+                case 2:
+                    throw new ExecutionException(exception);
+                default:
+                    throw new CancellationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.http;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ *  A {@link SimpleConditionalGet} that can also make the request without the calling thread waiting on it.
+ *  {@link org.jose4j.jwk.HttpsJwks} uses it, when it's available, for refreshing keys in the background.
+ */
+public interface AsyncSimpleGet extends SimpleConditionalGet
+{
+    /**
+     * Starts an HTTP GET request (with the same handling of request headers as
+     * {@link SimpleConditionalGet#get(String, Map)}) and returns right away.
+     * @param location the HTTP(S) URL
+     * @param requestHeaders the names and values of the headers to send
+     * @param callback told about the result when the request completes or fails (after any retries), may be null
+     * @return a Future for the result of the HTTP GET request, which fails with an IOException as the cause if the request does
+     */
+    public Future<SimpleResponse> getAsync(String location, Map<String, String> requestHeaders, Callback callback);
+
+    /**
+     * Receives the result of an asynchronous request. It's called on a thread of the AsyncSimpleGet so should
+     * not do anything that takes long.
+     */
+    public interface Callback
+    {
+        void completed(SimpleResponse response);
+
+        void failed(IOException e);
+    }
+}
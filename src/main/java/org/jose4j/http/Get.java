@@ -36,6 +36,7 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -44,9 +45,14 @@ import java.util.Map;
  *  uses {@link java.net.URL} and {@link javax.net.ssl.HttpsURLConnection} to make
  *  basic HTTP GET requests. 
  */
-public class Get implements SimpleGet
+public class Get implements SimpleConditionalGet
 {
     private static final long MAX_RETRY_WAIT = 8000;
+    private static final long MAX_DISCARD = 64 * 1024;
+    private static final int MAX_INITIAL_BODY_CAPACITY = 64 * 1024;
+
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
 
     private static final Logger log = LoggerFactory.getLogger(Get.class);
 
@@ -63,6 +69,13 @@ public class Get implements SimpleGet
     @Override
     public SimpleResponse get(String location) throws IOException
     {
+        return get(location, Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    public SimpleResponse get(String location, Map<String, String> requestHeaders) throws IOException
+    {
+        boolean conditional = isConditional(requestHeaders);
         int attempts = 0;
         log.debug("HTTP GET of {}", location);
         URL url = new URL(location);
@@ -70,38 +83,12 @@ public class Get implements SimpleGet
         {
             try
             {
-                URLConnection urlConnection = (proxy == null) ? url.openConnection() : url.openConnection(proxy);
-                urlConnection.setConnectTimeout(connectTimeout);
-                urlConnection.setReadTimeout(readTimeout);
-
-                setUpTls(urlConnection);
-
-                HttpURLConnection httpUrlConnection = (HttpURLConnection) urlConnection;
-                int code = httpUrlConnection.getResponseCode();
-                String msg = httpUrlConnection.getResponseMessage();
-
-                if (code != HttpURLConnection.HTTP_OK)
-                {
-                    throw new IOException("Non 200 status code ("+ code + " " + msg +") returned from " + url);
-                }
-
-                String charset = getCharset(urlConnection);
-
-                String body = getBody(urlConnection, charset);
-
-                Map<String,List<String>> headers = httpUrlConnection.getHeaderFields();
-                SimpleResponse simpleResponse = new Response(code, msg, headers, body);
-                log.debug("HTTP GET of {} returned {}", url, simpleResponse);
-                return simpleResponse;
-            }
-            catch (SSLHandshakeException | SSLPeerUnverifiedException | FileNotFoundException | ResponseBodyTooLargeException e)
-            {
-                throw e;
+                return attempt(url, requestHeaders, conditional);
             }
             catch (IOException e)
             {
                 attempts++;
-                if (attempts > retries)
+                if (!isRetryable(e) || attempts > retries)
                 {
                     throw e;
                 }
@@ -112,18 +99,109 @@ public class Get implements SimpleGet
         }
     }
 
+    // a single try at the request, without any retries
+    SimpleResponse attempt(URL url, Map<String, String> requestHeaders, boolean conditional) throws IOException
+    {
+        URLConnection urlConnection = (proxy == null) ? url.openConnection() : url.openConnection(proxy);
+        urlConnection.setConnectTimeout(connectTimeout);
+        urlConnection.setReadTimeout(readTimeout);
+
+        setUpTls(urlConnection);
+
+        for (Map.Entry<String, String> header : requestHeaders.entrySet())
+        {
+            urlConnection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        HttpURLConnection httpUrlConnection = (HttpURLConnection) urlConnection;
+        int code = httpUrlConnection.getResponseCode();
+        String msg = httpUrlConnection.getResponseMessage();
+
+        String body;
+        if (conditional && code == HttpURLConnection.HTTP_NOT_MODIFIED)
+        {
+            body = "";
+        }
+        else if (code != HttpURLConnection.HTTP_OK)
+        {
+            discardErrorBody(httpUrlConnection);
+            throw new IOException("Non 200 status code ("+ code + " " + msg +") returned from " + url);
+        }
+        else
+        {
+            String charset = getCharset(urlConnection);
+            body = getBody(urlConnection, charset);
+        }
+
+        Map<String,List<String>> headers = httpUrlConnection.getHeaderFields();
+        SimpleResponse simpleResponse = new Response(code, msg, headers, body);
+        log.debug("HTTP GET of {} returned {}", url, simpleResponse);
+        return simpleResponse;
+    }
+
+    boolean isRetryable(IOException e)
+    {
+        return !(e instanceof SSLHandshakeException || e instanceof SSLPeerUnverifiedException
+                || e instanceof FileNotFoundException || e instanceof ResponseBodyTooLargeException);
+    }
+
+    int getRetries()
+    {
+        return retries;
+    }
+
+    // reading what's left of an error response lets the connection go back in the keep-alive pool
+    private void discardErrorBody(HttpURLConnection httpUrlConnection)
+    {
+        try (InputStream es = httpUrlConnection.getErrorStream())
+        {
+            if (es != null)
+            {
+                byte[] buffer = new byte[4096];
+                long discarded = 0;
+                int n;
+                while (discarded < MAX_DISCARD && -1 != (n = es.read(buffer)))
+                {
+                    discarded += n;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.debug("Problem reading error response body (the connection won't be reused): {}", e.toString());
+        }
+    }
+
+    boolean isConditional(Map<String, String> requestHeaders)
+    {
+        for (String name : requestHeaders.keySet())
+        {
+            if (IF_NONE_MATCH.equalsIgnoreCase(name) || IF_MODIFIED_SINCE.equalsIgnoreCase(name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String getBody(URLConnection urlConnection, String charset) throws IOException
     {
-        StringWriter writer = new StringWriter();
+        // the Content-Length comes from the server so it only sizes the buffer up to a point
+        int contentLength = Math.min(urlConnection.getContentLength(), MAX_INITIAL_BODY_CAPACITY);
+        if (responseBodySizeLimit > 0)
+        {
+            contentLength = Math.min(contentLength, responseBodySizeLimit);
+        }
+        StringBuilder body = new StringBuilder(contentLength > 0 ? contentLength : 1024);
         try (InputStream is = urlConnection.getInputStream();
              InputStreamReader isr = new InputStreamReader(is, charset))
         {
             int charactersRead = 0;
-            char[] buffer = new char[1024];
+            char[] buffer = new char[4096];
             int n;
             while (-1 != (n = isr.read(buffer)))
             {
-                writer.write(buffer, 0, n);
+                body.append(buffer, 0, n);
                 charactersRead += n;
                 if (responseBodySizeLimit > 0 && charactersRead > responseBodySizeLimit)
                 {
@@ -132,7 +210,7 @@ public class Get implements SimpleGet
             }
             log.debug("read {} characters", charactersRead);
         }
-        return writer.toString();
+        return body.toString();
     }
 
     private void setUpTls(URLConnection urlConnection)
@@ -178,7 +256,7 @@ public class Get implements SimpleGet
         return charset;
     }
 
-    private long getRetryWaitTime(int attempt)
+    long getRetryWaitTime(int attempt)
     {
         if (progressiveRetryWait)
         {
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.http;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ *  A {@link SimpleGet} that can also send request headers, like the {@code If-None-Match}
+ *  and {@code If-Modified-Since} headers of a conditional GET.
+ */
+public interface SimpleConditionalGet extends SimpleGet
+{
+    /**
+     * Make an HTTP GET request with the given request headers. When the request is conditional
+     * (has an {@code If-None-Match} or {@code If-Modified-Since} header) a 304 Not Modified
+     * response is returned, with an empty body, rather than treated as a failure.
+     * @param location the HTTP(S) URL
+     * @param requestHeaders the names and values of the headers to send
+     * @return a SimpleResponse object representing the result of the HTTP GET request
+     * @throws IOException if a problem occurs with the request
+     */
+    public SimpleResponse get(String location, Map<String, String> requestHeaders) throws IOException;
+}
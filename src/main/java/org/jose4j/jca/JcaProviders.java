@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jca;
+
+import java.security.NoSuchProviderException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the provider names used in a {@link ProviderContext} to {@code java.security.Provider} objects
+ * and remembers the result, so the various {@code getInstance(algorithm, provider)} calls can be handed the
+ * Provider itself rather than a name that the JCA would look up in the global provider list every time.
+ * It also keeps a table of (service type, algorithm, provider) to {@code Provider.Service} that's filled in
+ * as things are looked up.
+ * <p>
+ * A Provider instance that isn't (or can't be) installed with {@code java.security.Security} can be
+ * registered here with {@link #register(Provider)} and then used anywhere a provider name is set on a ProviderContext.
+ * Registered providers take precedence over installed providers of the same name.
+ * <p>
+ * When no provider name is given, jose4j still calls the plain {@code getInstance(algorithm)} and lets the JCA
+ * pick, because for things like Cipher and Signature the JCA picks the provider based on the key
+ * (a PKCS#11 key, for example, needs the PKCS#11 provider), which a precomputed choice can't do.
+ * <p>
+ * If the installed providers are changed after they've been looked up, call {@link #clear()}.
+ */
+public class JcaProviders
+{
+    private static final ConcurrentMap<String, Provider> registered = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Provider> resolved = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ServiceKey, Provider.Service> services = new ConcurrentHashMap<>();
+
+    /**
+     * Makes a provider available by its name, whether or not it's installed.
+     * @param provider the provider
+     */
+    public static void register(Provider provider)
+    {
+        registered.put(provider.getName(), provider);
+        resolved.remove(provider.getName());
+        services.clear();
+    }
+
+    public static void unregister(String providerName)
+    {
+        registered.remove(providerName);
+        resolved.remove(providerName);
+        services.clear();
+    }
+
+    /**
+     * Forgets everything that has been looked up (but not what's been registered).
+     */
+    public static void clear()
+    {
+        resolved.clear();
+        services.clear();
+    }
+
+    /**
+     * @param providerName the name of the provider
+     * @return the registered or installed Provider with that name
+     * @throws NoSuchProviderException if there isn't one
+     */
+    public static Provider getProvider(String providerName) throws NoSuchProviderException
+    {
+        Provider provider = resolved.get(providerName);
+        if (provider == null)
+        {
+            provider = registered.get(providerName);
+            if (provider == null)
+            {
+                provider = Security.getProvider(providerName);
+            }
+            if (provider == null)
+            {
+                throw new NoSuchProviderException("no such provider: " + providerName);
+            }
+            resolved.put(providerName, provider);
+        }
+        return provider;
+    }
+
+    /**
+     * Finds the service for a type and algorithm.
+     * @param type the type of service, like "Cipher" or "Signature"
+     * @param algorithm the algorithm name (or an alias for it)
+     * @param providerName the name of the provider or {@code null} for the first installed provider that has it
+     * @return the service or {@code null} if it's not available
+     */
+    public static Provider.Service getService(String type, String algorithm, String providerName)
+    {
+        ServiceKey key = new ServiceKey(type, algorithm, providerName);
+        Provider.Service service = services.get(key);
+        if (service == null)
+        {
+            service = findService(type, algorithm, providerName);
+            if (service != null)
+            {
+                services.put(key, service);
+            }
+        }
+        return service;
+    }
+
+    private static Provider.Service findService(String type, String algorithm, String providerName)
+    {
+        if (providerName != null)
+        {
+            try
+            {
+                return getProvider(providerName).getService(type, algorithm);
+            }
+            catch (NoSuchProviderException e)
+            {
+                return null;
+            }
+        }
+
+        for (Provider provider : Security.getProviders())
+        {
+            Provider.Service service = provider.getService(type, algorithm);
+            if (service != null)
+            {
+                return service;
+            }
+        }
+        return null;
+    }
+
+    private static class ServiceKey
+    {
+        private final String type;
+        private final String algorithm;
+        private final String providerName;
+
+        private ServiceKey(String type, String algorithm, String providerName)
+        {
+            this.type = type;
+            this.algorithm = algorithm;
+            this.providerName = providerName;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof ServiceKey))
+            {
+                return false;
+            }
+            ServiceKey other = (ServiceKey) o;
+            return type.equals(other.type)
+                    && algorithm.equals(other.algorithm)
+                    && (providerName == null ? other.providerName == null : providerName.equals(other.providerName));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = type.hashCode();
+            result = 31 * result + algorithm.hashCode();
+            result = 31 * result + (providerName == null ? 0 : providerName.hashCode());
+            return result;
+        }
+    }
+}
@@ -40,6 +40,10 @@ import java.security.SecureRandom;
  * <p>
  * A ProviderContext can be set on a {@link org.jose4j.jws.JsonWebSignature} or {@link org.jose4j.jwe.JsonWebEncryption} as well as a
  * {@link org.jose4j.jwt.consumer.JwtConsumer} via the {@link org.jose4j.jwt.consumer.JwtConsumerBuilder}.
+ * <p>
+ * Provider names are resolved to {@code java.security.Provider} objects once, by {@link JcaProviders}, rather than on every operation.
+ * A {@code Provider} instance that isn't installed can be registered with {@link JcaProviders#register(java.security.Provider)}
+ * and then referred to by name here.
  *
  *
  * @see org.jose4j.jwx.JsonWebStructure#setProviderContext(ProviderContext)
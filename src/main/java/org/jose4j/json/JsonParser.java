@@ -0,0 +1,484 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.parser.ParseException;
+import org.jose4j.lang.StringUtil;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small recursive descent JSON parser that works directly on the input, either a String or
+ * UTF-8 encoded bytes.
+ *
+ * The json_simple parser, which this replaces for JsonUtil.parseJson, allocates a 16k char lookahead buffer
+ * plus a Reader and a couple of linked lists for every parse, which adds up when parsing a couple of small headers
+ * and claims sets per token. This one only allocates what ends up in the result (plus a StringBuilder
+ * for a string that actually contains escapes). There's no state in the parser itself beyond a single parse, so
+ * a new instance is created per call and nothing is ever shared between threads.
+ *
+ * All the structural characters in JSON are ASCII, so parsing UTF-8 bytes works the same way as parsing chars
+ * and only the content of strings needs to actually be decoded. That avoids decoding the whole thing
+ * into an intermediate String first.
+ *
+ * The values produced are the same as what json_simple produced: objects are DupeKeyDisallowingLinkedHashMap,
+ * arrays are ArrayList, integers are Long (or BigInteger when too big for a long), numbers with a fraction
+ * or exponent are Double, and true/false/null are Boolean.TRUE/Boolean.FALSE/null.
+ * Like json_simple, it's lenient about commas and colons between members/elements.
+ * Unlike json_simple, the top level value is required to be an object (JsonUtil.parseJson would
+ * have failed with a ClassCastException on anything else anyway).
+ */
+abstract class JsonParser
+{
+    /**
+     * Bounds the recursion on nested objects/arrays so that a silly or malicious input can't blow the stack.
+     * Nothing in JOSE comes anywhere near it.
+     */
+    static final int MAX_DEPTH = 256;
+
+    private static final Charset UTF_8 = Charset.forName(StringUtil.UTF_8);
+    private static final Charset US_ASCII = Charset.forName(StringUtil.US_ASCII);
+
+    private final int end;
+    private int pos;
+    private int depth;
+
+    private JsonParser(int offset, int length, int inputLength)
+    {
+        if (offset < 0 || length < 0 || offset + length > inputLength)
+        {
+            throw new IndexOutOfBoundsException("offset " + offset + " and length " + length + " out of bounds for " + inputLength);
+        }
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    static Map<String,Object> parseObject(String json) throws ParseException
+    {
+        return parseObject(json, 0, json.length());
+    }
+
+    static Map<String,Object> parseObject(String json, int offset, int length) throws ParseException
+    {
+        JsonParser parser = new CharParser(json, offset, length);
+        return parser.parseTopLevelObject();
+    }
+
+    static Map<String,Object> parseObject(byte[] utf8, int offset, int length) throws ParseException
+    {
+        JsonParser parser = new Utf8Parser(utf8, offset, length);
+        return parser.parseTopLevelObject();
+    }
+
+    /**
+     * @return the char (or byte, as an unsigned value) at index, which must be less than end
+     */
+    abstract int at(int index);
+
+    /**
+     * @return a String of the content between start and end, which doesn't contain any escapes
+     */
+    abstract String string(int start, int end);
+
+    /**
+     * @return a String of the content between start and end, which is known to be only ASCII
+     */
+    abstract String asciiString(int start, int end);
+
+    private Map<String,Object> parseTopLevelObject() throws ParseException
+    {
+        skipWhitespace();
+        if (pos >= end || at(pos) != '{')
+        {
+            throw unexpected();
+        }
+        Map<String,Object> object = readObject();
+        skipWhitespace();
+        if (pos < end)
+        {
+            throw unexpected();
+        }
+        return object;
+    }
+
+    private Object readValue() throws ParseException
+    {
+        if (pos >= end)
+        {
+            throw unexpected();
+        }
+
+        int c = at(pos);
+        switch (c)
+        {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                readLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                readLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                readLiteral("null");
+                return null;
+            default:
+                if (c == '-' || isDigit(c))
+                {
+                    return readNumber();
+                }
+                throw unexpected();
+        }
+    }
+
+    private Map<String,Object> readObject() throws ParseException
+    {
+        enter();
+        pos++; // the {
+        JsonUtil.DupeKeyDisallowingLinkedHashMap object = new JsonUtil.DupeKeyDisallowingLinkedHashMap();
+
+        while (true)
+        {
+            skipSeparators(',');
+            if (pos < end && at(pos) == '}')
+            {
+                pos++;
+                depth--;
+                return object;
+            }
+            if (pos >= end || at(pos) != '"')
+            {
+                throw unexpected();
+            }
+            String name = readString();
+            skipSeparators(':');
+            object.put(name, readValue());
+        }
+    }
+
+    private List<Object> readArray() throws ParseException
+    {
+        enter();
+        pos++; // the [
+        List<Object> array = new ArrayList<>();
+
+        while (true)
+        {
+            skipSeparators(',');
+            if (pos < end && at(pos) == ']')
+            {
+                pos++;
+                depth--;
+                return array;
+            }
+            array.add(readValue());
+        }
+    }
+
+    private String readString() throws ParseException
+    {
+        int start = ++pos; // past the opening quote
+        boolean escaped = false;
+
+        while (pos < end)
+        {
+            int c = at(pos);
+            if (c == '"')
+            {
+                // the common case of no escapes is just a substring of the input
+                String raw = string(start, pos++);
+                return escaped ? unescape(raw, start) : raw;
+            }
+            else if (c == '\\')
+            {
+                escaped = true;
+                pos++; // skip whatever is escaped so an escaped quote doesn't end the string
+            }
+            pos++;
+        }
+
+        pos = end;
+        throw unexpected();
+    }
+
+    private static String unescape(String raw, int rawStart) throws ParseException
+    {
+        StringBuilder sb = new StringBuilder(raw.length());
+        int length = raw.length();
+        int i = 0;
+        while (i < length)
+        {
+            char c = raw.charAt(i++);
+            if (c != '\\')
+            {
+                sb.append(c);
+                continue;
+            }
+
+            char escaped = raw.charAt(i++);
+            switch (escaped)
+            {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(escaped);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (length - i < 4)
+                    {
+                        throw new ParseException(rawStart, ParseException.ERROR_UNEXPECTED_CHAR, "incomplete unicode escape in \"" + raw + "\"");
+                    }
+                    int value = 0;
+                    for (int j = 0; j < 4; j++)
+                    {
+                        int digit = Character.digit(raw.charAt(i++), 16);
+                        if (digit < 0)
+                        {
+                            throw new ParseException(rawStart, ParseException.ERROR_UNEXPECTED_CHAR, "invalid unicode escape in \"" + raw + "\"");
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    sb.append((char) value);
+                    break;
+                default:
+                    throw new ParseException(rawStart, ParseException.ERROR_UNEXPECTED_CHAR, "invalid escape \\" + escaped + " in \"" + raw + "\"");
+            }
+        }
+        return sb.toString();
+    }
+
+    private Number readNumber() throws ParseException
+    {
+        int start = pos;
+        boolean negative = at(pos) == '-';
+        if (negative)
+        {
+            pos++;
+        }
+
+        int digitsStart = pos;
+        long value = 0;
+        boolean overflow = false;
+        while (pos < end && isDigit(at(pos)))
+        {
+            int digit = at(pos) - '0';
+            // accumulate as a negative number so that Long.MIN_VALUE fits
+            if (value < (Long.MIN_VALUE + digit) / 10)
+            {
+                overflow = true;
+            }
+            value = value * 10 - digit;
+            pos++;
+        }
+
+        if (pos == digitsStart)
+        {
+            throw unexpected();
+        }
+
+        boolean integral = true;
+        if (pos < end && at(pos) == '.')
+        {
+            integral = false;
+            pos++;
+            requireDigits();
+        }
+        if (pos < end && (at(pos) == 'e' || at(pos) == 'E'))
+        {
+            integral = false;
+            pos++;
+            if (pos < end && (at(pos) == '+' || at(pos) == '-'))
+            {
+                pos++;
+            }
+            requireDigits();
+        }
+
+        if (!integral)
+        {
+            return Double.valueOf(asciiString(start, pos));
+        }
+        else if (overflow || (!negative && value == Long.MIN_VALUE))
+        {
+            return new BigInteger(asciiString(start, pos));
+        }
+        else
+        {
+            return negative ? value : -value;
+        }
+    }
+
+    private void requireDigits() throws ParseException
+    {
+        int digitsStart = pos;
+        while (pos < end && isDigit(at(pos)))
+        {
+            pos++;
+        }
+        if (pos == digitsStart)
+        {
+            throw unexpected();
+        }
+    }
+
+    private void readLiteral(String literal) throws ParseException
+    {
+        int length = literal.length();
+        if (end - pos < length)
+        {
+            throw unexpected();
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (at(pos) != literal.charAt(i))
+            {
+                throw unexpected();
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * json_simple just ignored commas and colons in the places where they are expected (so they
+     * could be missing or repeated) and there is JSON out there, like JWK sets with trailing commas,
+     * that relies on that. So this keeps doing the same rather than rejecting it.
+     */
+    private void skipSeparators(char separator)
+    {
+        skipWhitespace();
+        while (pos < end && at(pos) == separator)
+        {
+            pos++;
+            skipWhitespace();
+        }
+    }
+
+    private void enter() throws ParseException
+    {
+        if (++depth > MAX_DEPTH)
+        {
+            throw new ParseException(pos, ParseException.ERROR_UNEXPECTED_EXCEPTION, "nesting deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private void skipWhitespace()
+    {
+        while (pos < end)
+        {
+            int c = at(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+            {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(int c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private ParseException unexpected()
+    {
+        Object unexpected = pos < end ? (Object) (char) at(pos) : "end of input";
+        return new ParseException(pos, ParseException.ERROR_UNEXPECTED_CHAR, unexpected);
+    }
+
+    private static class CharParser extends JsonParser
+    {
+        private final String json;
+
+        private CharParser(String json, int offset, int length)
+        {
+            super(offset, length, json.length());
+            this.json = json;
+        }
+
+        @Override
+        int at(int index)
+        {
+            return json.charAt(index);
+        }
+
+        @Override
+        String string(int start, int end)
+        {
+            return json.substring(start, end);
+        }
+
+        @Override
+        String asciiString(int start, int end)
+        {
+            return json.substring(start, end);
+        }
+    }
+
+    private static class Utf8Parser extends JsonParser
+    {
+        private final byte[] utf8;
+
+        private Utf8Parser(byte[] utf8, int offset, int length)
+        {
+            super(offset, length, utf8.length);
+            this.utf8 = utf8;
+        }
+
+        @Override
+        int at(int index)
+        {
+            return utf8[index] & 0xff;
+        }
+
+        @Override
+        String string(int start, int end)
+        {
+            // a multi-byte UTF-8 sequence never contains a byte that looks like an ASCII quote or backslash
+            // so the string boundaries found byte by byte are right and the content can be decoded in one go
+            return new String(utf8, start, end - start, UTF_8);
+        }
+
+        @Override
+        String asciiString(int start, int end)
+        {
+            return new String(utf8, start, end - start, US_ASCII);
+        }
+    }
+}
@@ -16,8 +16,6 @@
 
 package org.jose4j.json;
 
-import org.jose4j.json.internal.json_simple.parser.ContainerFactory;
-import org.jose4j.json.internal.json_simple.parser.JSONParser;
 import org.jose4j.json.internal.json_simple.JSONValue;
 
 import org.jose4j.json.internal.json_simple.parser.ParseException;
@@ -38,28 +36,38 @@ import java.util.*;
  * like not escaping forward slashes. There’s some risk in this but moving to a new/different processor
  * in the future isn’t really made particularly more difficult by this (as long as this class is the touch point
  * for JSON processing).
+ *
+ * Parsing now goes through JsonParser, which works directly on the input and allocates only what ends up in
+ * the result. The json_simple code is still used for producing JSON.
  */
 public class JsonUtil
 {
-    private static final ContainerFactory CONTAINER_FACTORY = new ContainerFactory()
+    public static Map<String,Object> parseJson(String jsonString) throws JoseException
     {
-        public List creatArrayContainer()
+        try
         {
-            return new ArrayList<Object>();
+            return JsonParser.parseObject(jsonString);
         }
-
-        public Map createObjectContainer()
+        catch (ParseException | IllegalArgumentException e)
         {
-            return new DupeKeyDisallowingLinkedHashMap();
+            throw new JoseException("Parsing error: " + e, e);
         }
-    };
+    }
 
-    public static Map<String,Object> parseJson(String jsonString) throws JoseException
+    /**
+     * Parses a JSON object directly from its UTF-8 encoded bytes, which saves decoding into an intermediate
+     * String first when the JSON is coming from something like a base64url decoded header or payload.
+     * @param utf8 the bytes containing the UTF-8 encoded JSON
+     * @param off the offset of the JSON in the array
+     * @param len the number of bytes of JSON
+     * @return the parsed JSON object
+     * @throws JoseException if the bytes aren't a valid JSON object
+     */
+    public static Map<String,Object> parseJson(byte[] utf8, int off, int len) throws JoseException
     {
         try
         {
-            JSONParser parser = new JSONParser();
-            return (DupeKeyDisallowingLinkedHashMap)parser.parse(jsonString, CONTAINER_FACTORY);
+            return JsonParser.parseObject(utf8, off, len);
         }
         catch (ParseException | IllegalArgumentException e)
         {
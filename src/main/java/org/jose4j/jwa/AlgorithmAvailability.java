@@ -16,8 +16,8 @@
 package org.jose4j.jwa;
 
 import java.security.Security;
-import java.util.Set;
 
+import org.jose4j.jca.JcaProviders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,16 +29,15 @@ public class AlgorithmAvailability
 
     public static boolean isAvailable(String serviceName, String algorithm)
     {
-        Set<String> algorithms = Security.getAlgorithms(serviceName);
-        for (String serviceAlg : algorithms)
+        if (JcaProviders.getService(serviceName, algorithm, null) != null)
         {
-            if (serviceAlg.equalsIgnoreCase(algorithm))
-            {
-                return true;
-            }
+            return true;
         }
 
-        log.debug("{} is NOT available for {}. Algorithms available from underlying JCE: {}", algorithm, serviceName, algorithms);
+        if (log.isDebugEnabled())
+        {
+            log.debug("{} is NOT available for {}. Algorithms available from underlying JCE: {}", algorithm, serviceName, Security.getAlgorithms(serviceName));
+        }
         return false;
     }
 }
@@ -38,6 +38,10 @@ public class AlgorithmConstraints
     private final ConstraintType type;
     private final Set<String> algorithms;
 
+    // the lookup tables AlgorithmFactory has worked out for these constraints, one per factory and tagged with
+    // the snapshot of algorithms it was made from, so they go away with the constraints
+    private volatile Object[] constrainedTables = new Object[0];
+
     public AlgorithmConstraints(ConstraintType type, String... algorithms)
     {
         if (type == null)
@@ -49,21 +53,42 @@ public class AlgorithmConstraints
     }
 
     public void checkConstraint(String algorithm) throws InvalidAlgorithmException
+    {
+        String problem = check(algorithm);
+        if (problem != null)
+        {
+            throw new InvalidAlgorithmException(problem);
+        }
+    }
+
+    Object[] getConstrainedTables()
+    {
+        return constrainedTables;
+    }
+
+    void setConstrainedTables(Object[] constrainedTables)
+    {
+        this.constrainedTables = constrainedTables;
+    }
+
+    // what's wrong with the algorithm or null if it's allowed
+    String check(String algorithm)
     {
         switch (type)
         {
             case WHITELIST:
                 if (!algorithms.contains(algorithm))
                 {
-                    throw new InvalidAlgorithmException("'" +algorithm + "' is not a whitelisted algorithm.");
+                    return "'" +algorithm + "' is not a whitelisted algorithm.";
                 }
                 break;
             case BLACKLIST:
                 if (algorithms.contains(algorithm))
                 {
-                    throw new InvalidAlgorithmException("'" + algorithm + "' is a blacklisted algorithm.");
+                    return "'" + algorithm + "' is a blacklisted algorithm.";
                 }
                 break;
         }
+        return null;
     }
 }
@@ -21,12 +21,19 @@ import org.jose4j.lang.InvalidAlgorithmException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * The algorithms for one header parameter. Lookups work off an immutable snapshot of the registered algorithms that
+ * is replaced as a whole when algorithms are registered, unregistered or checked, so they don't take any locks
+ * and can't see a change half done.
  */
 public class AlgorithmFactory<A extends Algorithm>
 {
@@ -34,7 +41,7 @@ public class AlgorithmFactory<A extends Algorithm>
 
     private String parameterName;
 
-    private final Map<String,A> algorithms = new LinkedHashMap<>();
+    private volatile Registry<A> registry = new Registry<>(new LinkedHashMap<String,A>(), new LinkedHashMap<String,A>());
 
     public AlgorithmFactory(String parameterName, Class<A> type)
     {
@@ -44,7 +51,7 @@ public class AlgorithmFactory<A extends Algorithm>
 
     public A getAlgorithm(String algorithmIdentifier) throws InvalidAlgorithmException
     {
-        A algo = algorithms.get(algorithmIdentifier);
+        A algo = lookup(algorithmIdentifier);
 
         if (algo == null)
         {
@@ -55,14 +62,49 @@ public class AlgorithmFactory<A extends Algorithm>
         return algo;
     }
 
+    /**
+     * Gets the algorithm, if it's allowed by the constraints, with one lookup in a table of the available algorithms
+     * combined with the constraints that's worked out the first time the constraints are used (with the current algorithms).
+     * It's the same as {@link AlgorithmConstraints#checkConstraint(String)} followed by {@link #getAlgorithm(String)}.
+     * @param algorithmIdentifier the algorithm identifier
+     * @param constraints the constraints on which algorithms are allowed
+     * @return the algorithm
+     * @throws InvalidAlgorithmException if the algorithm isn't allowed or isn't available
+     */
+    public A getAlgorithm(String algorithmIdentifier, AlgorithmConstraints constraints) throws InvalidAlgorithmException
+    {
+        if (constraints.getClass() != AlgorithmConstraints.class)
+        {
+            // a subclass might check differently so it can't be worked out ahead of time
+            constraints.checkConstraint(algorithmIdentifier);
+            return getAlgorithm(algorithmIdentifier);
+        }
+
+        Map<String, Constrained<A>> table = getConstrainedTable(registry, constraints);
+        Constrained<A> constrained = table.get(algorithmIdentifier);
+        if (constrained == null)
+        {
+            // not an available algorithm (or not checked yet) so no shortcut
+            constraints.checkConstraint(algorithmIdentifier);
+            return getAlgorithm(algorithmIdentifier);
+        }
+
+        if (constrained.problem != null)
+        {
+            throw new InvalidAlgorithmException(constrained.problem);
+        }
+        return constrained.algorithm;
+    }
+
     public boolean isAvailable(String algorithmIdentifier)
     {
-        return algorithms.containsKey(algorithmIdentifier);
+        return lookup(algorithmIdentifier) != null;
     }
 
     public Set<String> getSupportedAlgorithms()
     {
-        return Collections.unmodifiableSet(algorithms.keySet());
+        checkAvailability();
+        return registry.supported;
     }
 
     public void registerAlgorithm(A algorithm)
@@ -70,7 +112,15 @@ public class AlgorithmFactory<A extends Algorithm>
         String algId = algorithm.getAlgorithmIdentifier();
         if (isAvailable(algorithm))
         {
-            algorithms.put(algId, algorithm);
+            synchronized (this)
+            {
+                Registry<A> r = registry;
+                Map<String,A> algorithms = new LinkedHashMap<>(r.algorithms);
+                Map<String,A> unchecked = new LinkedHashMap<>(r.unchecked);
+                unchecked.remove(algId);
+                algorithms.put(algId, algorithm);
+                registry = new Registry<>(algorithms, unchecked);
+            }
             log.debug("{} registered for {} algorithm {}", algorithm, parameterName, algId);
         }
         else
@@ -79,6 +129,125 @@ public class AlgorithmFactory<A extends Algorithm>
         }
     }
 
+    /**
+     * Registers an algorithm without checking that it's available, which can be relatively slow.
+     * That's put off until the algorithm is first asked for or {@link #checkAvailability()} is called,
+     * at which point it's dropped if it turns out to be unavailable.
+     * @param algorithm the algorithm
+     */
+    public void registerAlgorithmUnchecked(A algorithm)
+    {
+        String algId = algorithm.getAlgorithmIdentifier();
+        synchronized (this)
+        {
+            Registry<A> r = registry;
+            Map<String,A> algorithms = new LinkedHashMap<>(r.algorithms);
+            Map<String,A> unchecked = new LinkedHashMap<>(r.unchecked);
+            algorithms.remove(algId);
+            unchecked.put(algId, algorithm);
+            registry = new Registry<>(algorithms, unchecked);
+        }
+        log.debug("{} registered, pending an availability check, for {} algorithm {}", algorithm, parameterName, algId);
+    }
+
+    /**
+     * Checks the availability of all the algorithms registered with {@link #registerAlgorithmUnchecked(Algorithm)}
+     * that haven't been checked yet.
+     */
+    public void checkAvailability()
+    {
+        for (String algId : getUncheckedAlgorithms())
+        {
+            checkAvailability(algId);
+        }
+    }
+
+    Set<String> getUncheckedAlgorithms()
+    {
+        return registry.unchecked.keySet();
+    }
+
+    void checkAvailability(String algorithmIdentifier)
+    {
+        A algorithm = registry.unchecked.get(algorithmIdentifier);
+        if (algorithm == null)
+        {
+            return;
+        }
+
+        // done without holding the lock so other algorithms can be checked or looked up at the same time
+        boolean available = isAvailable(algorithm);
+        synchronized (this)
+        {
+            Registry<A> r = registry;
+            if (r.unchecked.get(algorithmIdentifier) != algorithm)
+            {
+                return; // checked by someone else or it's been registered again or unregistered
+            }
+
+            Map<String,A> algorithms = new LinkedHashMap<>(r.algorithms);
+            Map<String,A> unchecked = new LinkedHashMap<>(r.unchecked);
+            unchecked.remove(algorithmIdentifier);
+            if (available)
+            {
+                algorithms.put(algorithmIdentifier, algorithm);
+            }
+            registry = new Registry<>(algorithms, unchecked);
+        }
+
+        if (available)
+        {
+            log.debug("{} is available for {} algorithm {}", algorithm, parameterName, algorithmIdentifier);
+        }
+        else
+        {
+            log.debug("{} is unavailable so will not be used for {} algorithms.", algorithmIdentifier, parameterName);
+        }
+    }
+
+    private A lookup(String algorithmIdentifier)
+    {
+        Registry<A> r = registry;
+        A algo = r.algorithms.get(algorithmIdentifier);
+        if (algo == null && r.unchecked.containsKey(algorithmIdentifier))
+        {
+            checkAvailability(algorithmIdentifier);
+            algo = registry.algorithms.get(algorithmIdentifier);
+        }
+        return algo;
+    }
+
+    private Map<String, Constrained<A>> getConstrainedTable(Registry<A> r, AlgorithmConstraints constraints)
+    {
+        Object[] tables = constraints.getConstrainedTables();
+        for (Object o : tables)
+        {
+            ConstrainedTable t = (ConstrainedTable) o;
+            if (t.registry == r)
+            {
+                @SuppressWarnings("unchecked")
+                Map<String, Constrained<A>> table = (Map<String, Constrained<A>>) t.table;
+                return table;
+            }
+        }
+
+        Map<String, Constrained<A>> table = r.constrain(constraints);
+
+        // replaces any table this factory made from an older snapshot (losing a race with another factory
+        // just means that one's table gets worked out again next time)
+        List<Object> updated = new ArrayList<>(tables.length + 1);
+        for (Object o : tables)
+        {
+            if (((ConstrainedTable) o).factory != this)
+            {
+                updated.add(o);
+            }
+        }
+        updated.add(new ConstrainedTable(this, r, table));
+        constraints.setConstrainedTables(updated.toArray());
+        return table;
+    }
+
     private boolean isAvailable(A algorithm)
     {
         try
@@ -95,6 +264,65 @@ public class AlgorithmFactory<A extends Algorithm>
 
     public void unregisterAlgorithm(String algorithmIdentifier)
     {
-        algorithms.remove(algorithmIdentifier);
+        synchronized (this)
+        {
+            Registry<A> r = registry;
+            Map<String,A> algorithms = new LinkedHashMap<>(r.algorithms);
+            Map<String,A> unchecked = new LinkedHashMap<>(r.unchecked);
+            algorithms.remove(algorithmIdentifier);
+            unchecked.remove(algorithmIdentifier);
+            registry = new Registry<>(algorithms, unchecked);
+        }
+    }
+
+    private static class Registry<A extends Algorithm>
+    {
+        private final Map<String,A> algorithms;
+        private final Map<String,A> unchecked;
+        private final Set<String> supported;
+
+        private Registry(Map<String,A> algorithms, Map<String,A> unchecked)
+        {
+            this.algorithms = Collections.unmodifiableMap(algorithms);
+            this.unchecked = Collections.unmodifiableMap(unchecked);
+            this.supported = Collections.unmodifiableSet(new LinkedHashSet<>(algorithms.keySet()));
+        }
+
+        private Map<String, Constrained<A>> constrain(AlgorithmConstraints constraints)
+        {
+            Map<String, Constrained<A>> table = new HashMap<>();
+            for (Map.Entry<String,A> entry : algorithms.entrySet())
+            {
+                String problem = constraints.check(entry.getKey());
+                table.put(entry.getKey(), new Constrained<>(problem == null ? entry.getValue() : null, problem));
+            }
+            return table;
+        }
+    }
+
+    private static class ConstrainedTable
+    {
+        private final AlgorithmFactory<?> factory;
+        private final Registry<?> registry;
+        private final Map<String, ?> table;
+
+        private ConstrainedTable(AlgorithmFactory<?> factory, Registry<?> registry, Map<String, ?> table)
+        {
+            this.factory = factory;
+            this.registry = registry;
+            this.table = table;
+        }
+    }
+
+    private static class Constrained<A>
+    {
+        private final A algorithm;
+        private final String problem;
+
+        private Constrained(A algorithm, String problem)
+        {
+            this.algorithm = algorithm;
+            this.problem = problem;
+        }
     }
 }
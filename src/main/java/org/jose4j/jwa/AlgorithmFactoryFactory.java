@@ -16,16 +16,25 @@
 
 package org.jose4j.jwa;
 
+import org.jose4j.jca.JcaProviders;
 import org.jose4j.jwe.*;
 import org.jose4j.jws.*;
 import org.jose4j.jwx.HeaderParameterNames;
+import org.jose4j.lang.SharedExecutors;
 import org.jose4j.zip.CompressionAlgorithm;
 import org.jose4j.zip.DeflateRFC1951CompressionAlgorithm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.Security;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  */
@@ -33,12 +42,44 @@ public class AlgorithmFactoryFactory
 {
     private static final Logger log = LoggerFactory.getLogger(AlgorithmFactoryFactory.class);
 
+    /**
+     * The system property that sets when the availability of the algorithms is checked, which is one of the
+     * {@link AvailabilityCheck} values (case doesn't matter). The default is {@code EAGER}.
+     */
+    public static final String AVAILABILITY_CHECK_PROPERTY = "org.jose4j.jwa.availability-check";
+
+    /**
+     * When the availability of each algorithm with the underlying JCA providers is checked. Some of the checks,
+     * like actually doing an AES-GCM encryption, take a while and, done all together when jose4j is first used,
+     * they can add noticeably to the startup time of short-lived processes.
+     */
+    public enum AvailabilityCheck
+    {
+        /**
+         * All algorithms are checked, one after another, when jose4j is initialized
+         */
+        EAGER,
+
+        /**
+         * Each algorithm is checked the first time it's asked for, so only the algorithms actually used get checked
+         */
+        LAZY,
+
+        /**
+         * All algorithms are checked in parallel on background threads after jose4j is initialized, and
+         * any asked for before that's done are checked right then
+         */
+        BACKGROUND
+    }
+
     private static final AlgorithmFactoryFactory factoryFactory = new AlgorithmFactoryFactory();
 
-    private AlgorithmFactory<JsonWebSignatureAlgorithm> jwsAlgorithmFactory;
-    private AlgorithmFactory<KeyManagementAlgorithm> jweKeyMgmtModeAlgorithmFactory;
-    private AlgorithmFactory<ContentEncryptionAlgorithm> jweContentEncryptionAlgorithmFactory;
-    private AlgorithmFactory<CompressionAlgorithm> compressionAlgorithmFactory;
+    private volatile AlgorithmFactory<JsonWebSignatureAlgorithm> jwsAlgorithmFactory;
+    private volatile AlgorithmFactory<KeyManagementAlgorithm> jweKeyMgmtModeAlgorithmFactory;
+    private volatile AlgorithmFactory<ContentEncryptionAlgorithm> jweContentEncryptionAlgorithmFactory;
+    private volatile AlgorithmFactory<CompressionAlgorithm> compressionAlgorithmFactory;
+
+    private volatile AvailabilityCheck availabilityCheck;
 
     private AlgorithmFactoryFactory()
     {
@@ -48,6 +89,7 @@ public class AlgorithmFactoryFactory
     void reinitialize()
     {
         log.debug("Reinitializing jose4j...");
+        JcaProviders.clear();
         initialize();
     }
 
@@ -59,59 +101,167 @@ public class AlgorithmFactoryFactory
         String providers = Arrays.toString(Security.getProviders());
         log.debug("Initializing jose4j (running with Java {} from {} at {} with {} security providers installed)...", version, vendor, home, providers);
         long startTime = System.currentTimeMillis();
-        jwsAlgorithmFactory = new AlgorithmFactory<>(HeaderParameterNames.ALGORITHM, JsonWebSignatureAlgorithm.class);
-        jwsAlgorithmFactory.registerAlgorithm(new PlaintextNoneAlgorithm());
-        jwsAlgorithmFactory.registerAlgorithm(new HmacUsingShaAlgorithm.HmacSha256());
-        jwsAlgorithmFactory.registerAlgorithm(new HmacUsingShaAlgorithm.HmacSha384());
-        jwsAlgorithmFactory.registerAlgorithm(new HmacUsingShaAlgorithm.HmacSha512());
-        jwsAlgorithmFactory.registerAlgorithm(new EcdsaUsingShaAlgorithm.EcdsaP256UsingSha256());
-        jwsAlgorithmFactory.registerAlgorithm(new EcdsaUsingShaAlgorithm.EcdsaP384UsingSha384());
-        jwsAlgorithmFactory.registerAlgorithm(new EcdsaUsingShaAlgorithm.EcdsaP521UsingSha512());
-        jwsAlgorithmFactory.registerAlgorithm(new RsaUsingShaAlgorithm.RsaSha256());
-        jwsAlgorithmFactory.registerAlgorithm(new RsaUsingShaAlgorithm.RsaSha384());
-        jwsAlgorithmFactory.registerAlgorithm(new RsaUsingShaAlgorithm.RsaSha512());
-        jwsAlgorithmFactory.registerAlgorithm(new RsaUsingShaAlgorithm.RsaPssSha256());
-        jwsAlgorithmFactory.registerAlgorithm(new RsaUsingShaAlgorithm.RsaPssSha384());
-        jwsAlgorithmFactory.registerAlgorithm(new RsaUsingShaAlgorithm.RsaPssSha512());
-
-        log.debug("JWS signature algorithms: {}", jwsAlgorithmFactory.getSupportedAlgorithms());
-
-        jweKeyMgmtModeAlgorithmFactory = new AlgorithmFactory<>(HeaderParameterNames.ALGORITHM, KeyManagementAlgorithm.class);
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new RsaKeyManagementAlgorithm.Rsa1_5());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new RsaKeyManagementAlgorithm.RsaOaep());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new RsaKeyManagementAlgorithm.RsaOaep256());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new DirectKeyManagementAlgorithm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new AesKeyWrapManagementAlgorithm.Aes128());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new AesKeyWrapManagementAlgorithm.Aes192());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new AesKeyWrapManagementAlgorithm.Aes256());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new EcdhKeyAgreementAlgorithm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new EcdhKeyAgreementWithAesKeyWrapAlgorithm.EcdhKeyAgreementWithAes128KeyWrapAlgorithm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new EcdhKeyAgreementWithAesKeyWrapAlgorithm.EcdhKeyAgreementWithAes192KeyWrapAlgorithm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new EcdhKeyAgreementWithAesKeyWrapAlgorithm.EcdhKeyAgreementWithAes256KeyWrapAlgorithm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new Pbes2HmacShaWithAesKeyWrapAlgorithm.HmacSha256Aes128());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new Pbes2HmacShaWithAesKeyWrapAlgorithm.HmacSha384Aes192());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new Pbes2HmacShaWithAesKeyWrapAlgorithm.HmacSha512Aes256());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new AesGcmKeyEncryptionAlgorithm.Aes128Gcm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new AesGcmKeyEncryptionAlgorithm.Aes192Gcm());
-        jweKeyMgmtModeAlgorithmFactory.registerAlgorithm(new AesGcmKeyEncryptionAlgorithm.Aes256Gcm());
-
-        log.debug("JWE key management algorithms: {}", jweKeyMgmtModeAlgorithmFactory.getSupportedAlgorithms());
-
-        jweContentEncryptionAlgorithmFactory = new AlgorithmFactory<>(HeaderParameterNames.ENCRYPTION_METHOD, ContentEncryptionAlgorithm.class);
-        jweContentEncryptionAlgorithmFactory.registerAlgorithm(new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes128CbcHmacSha256());
-        jweContentEncryptionAlgorithmFactory.registerAlgorithm(new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes192CbcHmacSha384());
-        jweContentEncryptionAlgorithmFactory.registerAlgorithm(new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes256CbcHmacSha512());
-        jweContentEncryptionAlgorithmFactory.registerAlgorithm(new AesGcmContentEncryptionAlgorithm.Aes128Gcm());
-        jweContentEncryptionAlgorithmFactory.registerAlgorithm(new AesGcmContentEncryptionAlgorithm.Aes192Gcm());
-        jweContentEncryptionAlgorithmFactory.registerAlgorithm(new AesGcmContentEncryptionAlgorithm.Aes256Gcm());
-
-        log.debug("JWE content encryption algorithms: {}", jweContentEncryptionAlgorithmFactory.getSupportedAlgorithms());
-
-        compressionAlgorithmFactory = new AlgorithmFactory<>(HeaderParameterNames.ZIP, CompressionAlgorithm.class);
-        compressionAlgorithmFactory.registerAlgorithm(new DeflateRFC1951CompressionAlgorithm());
-
-        log.debug("JWE compression algorithms: {}", compressionAlgorithmFactory.getSupportedAlgorithms());
-        log.debug("Initialized jose4j in {}ms", (System.currentTimeMillis() - startTime));
+        availabilityCheck = availabilityCheck();
+        AlgorithmFactory<JsonWebSignatureAlgorithm> jwsAlgs = new AlgorithmFactory<>(HeaderParameterNames.ALGORITHM, JsonWebSignatureAlgorithm.class);
+        register(jwsAlgs, new PlaintextNoneAlgorithm());
+        register(jwsAlgs, new HmacUsingShaAlgorithm.HmacSha256());
+        register(jwsAlgs, new HmacUsingShaAlgorithm.HmacSha384());
+        register(jwsAlgs, new HmacUsingShaAlgorithm.HmacSha512());
+        register(jwsAlgs, new EcdsaUsingShaAlgorithm.EcdsaP256UsingSha256());
+        register(jwsAlgs, new EcdsaUsingShaAlgorithm.EcdsaP384UsingSha384());
+        register(jwsAlgs, new EcdsaUsingShaAlgorithm.EcdsaP521UsingSha512());
+        register(jwsAlgs, new RsaUsingShaAlgorithm.RsaSha256());
+        register(jwsAlgs, new RsaUsingShaAlgorithm.RsaSha384());
+        register(jwsAlgs, new RsaUsingShaAlgorithm.RsaSha512());
+        register(jwsAlgs, new RsaUsingShaAlgorithm.RsaPssSha256());
+        register(jwsAlgs, new RsaUsingShaAlgorithm.RsaPssSha384());
+        register(jwsAlgs, new RsaUsingShaAlgorithm.RsaPssSha512());
+
+        logSupportedAlgorithms("JWS signature algorithms: {}", jwsAlgs);
+
+        AlgorithmFactory<KeyManagementAlgorithm> keyMgmtAlgs = new AlgorithmFactory<>(HeaderParameterNames.ALGORITHM, KeyManagementAlgorithm.class);
+        register(keyMgmtAlgs, new RsaKeyManagementAlgorithm.Rsa1_5());
+        register(keyMgmtAlgs, new RsaKeyManagementAlgorithm.RsaOaep());
+        register(keyMgmtAlgs, new RsaKeyManagementAlgorithm.RsaOaep256());
+        register(keyMgmtAlgs, new DirectKeyManagementAlgorithm());
+        register(keyMgmtAlgs, new AesKeyWrapManagementAlgorithm.Aes128());
+        register(keyMgmtAlgs, new AesKeyWrapManagementAlgorithm.Aes192());
+        register(keyMgmtAlgs, new AesKeyWrapManagementAlgorithm.Aes256());
+        register(keyMgmtAlgs, new EcdhKeyAgreementAlgorithm());
+        register(keyMgmtAlgs, new EcdhKeyAgreementWithAesKeyWrapAlgorithm.EcdhKeyAgreementWithAes128KeyWrapAlgorithm());
+        register(keyMgmtAlgs, new EcdhKeyAgreementWithAesKeyWrapAlgorithm.EcdhKeyAgreementWithAes192KeyWrapAlgorithm());
+        register(keyMgmtAlgs, new EcdhKeyAgreementWithAesKeyWrapAlgorithm.EcdhKeyAgreementWithAes256KeyWrapAlgorithm());
+        register(keyMgmtAlgs, new Pbes2HmacShaWithAesKeyWrapAlgorithm.HmacSha256Aes128());
+        register(keyMgmtAlgs, new Pbes2HmacShaWithAesKeyWrapAlgorithm.HmacSha384Aes192());
+        register(keyMgmtAlgs, new Pbes2HmacShaWithAesKeyWrapAlgorithm.HmacSha512Aes256());
+        register(keyMgmtAlgs, new AesGcmKeyEncryptionAlgorithm.Aes128Gcm());
+        register(keyMgmtAlgs, new AesGcmKeyEncryptionAlgorithm.Aes192Gcm());
+        register(keyMgmtAlgs, new AesGcmKeyEncryptionAlgorithm.Aes256Gcm());
+
+        logSupportedAlgorithms("JWE key management algorithms: {}", keyMgmtAlgs);
+
+        AlgorithmFactory<ContentEncryptionAlgorithm> encAlgs = new AlgorithmFactory<>(HeaderParameterNames.ENCRYPTION_METHOD, ContentEncryptionAlgorithm.class);
+        register(encAlgs, new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes128CbcHmacSha256());
+        register(encAlgs, new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes192CbcHmacSha384());
+        register(encAlgs, new AesCbcHmacSha2ContentEncryptionAlgorithm.Aes256CbcHmacSha512());
+        register(encAlgs, new AesGcmContentEncryptionAlgorithm.Aes128Gcm());
+        register(encAlgs, new AesGcmContentEncryptionAlgorithm.Aes192Gcm());
+        register(encAlgs, new AesGcmContentEncryptionAlgorithm.Aes256Gcm());
+
+        logSupportedAlgorithms("JWE content encryption algorithms: {}", encAlgs);
+
+        AlgorithmFactory<CompressionAlgorithm> zipAlgs = new AlgorithmFactory<>(HeaderParameterNames.ZIP, CompressionAlgorithm.class);
+        register(zipAlgs, new DeflateRFC1951CompressionAlgorithm());
+
+        logSupportedAlgorithms("JWE compression algorithms: {}", zipAlgs);
+
+        // each is only published once it's fully set up
+        jwsAlgorithmFactory = jwsAlgs;
+        jweKeyMgmtModeAlgorithmFactory = keyMgmtAlgs;
+        jweContentEncryptionAlgorithmFactory = encAlgs;
+        compressionAlgorithmFactory = zipAlgs;
+
+        log.debug("Initialized jose4j in {}ms with {} algorithm availability checking", (System.currentTimeMillis() - startTime), availabilityCheck);
+
+        if (availabilityCheck == AvailabilityCheck.BACKGROUND)
+        {
+            checkAvailabilityInBackground();
+        }
+    }
+
+    private static AvailabilityCheck availabilityCheck()
+    {
+        String value = System.getProperty(AVAILABILITY_CHECK_PROPERTY);
+        if (value == null)
+        {
+            return AvailabilityCheck.EAGER;
+        }
+
+        try
+        {
+            return AvailabilityCheck.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.warn("Unknown {} value '{}' so using {} (should be one of {})", AVAILABILITY_CHECK_PROPERTY, value, AvailabilityCheck.EAGER, Arrays.toString(AvailabilityCheck.values()));
+            return AvailabilityCheck.EAGER;
+        }
+    }
+
+    private <A extends Algorithm> void register(AlgorithmFactory<A> factory, A algorithm)
+    {
+        if (availabilityCheck == AvailabilityCheck.EAGER)
+        {
+            factory.registerAlgorithm(algorithm);
+        }
+        else
+        {
+            factory.registerAlgorithmUnchecked(algorithm);
+        }
+    }
+
+    private void logSupportedAlgorithms(String message, AlgorithmFactory<?> factory)
+    {
+        // getting them would check the availability of everything, which is what LAZY and BACKGROUND are trying to put off
+        if (availabilityCheck == AvailabilityCheck.EAGER)
+        {
+            log.debug(message, factory.getSupportedAlgorithms());
+        }
+    }
+
+    private void checkAvailabilityInBackground()
+    {
+        final long startTime = System.currentTimeMillis();
+        final Map<String, AlgorithmFactory<?>> factories = new LinkedHashMap<>();
+        factories.put("JWS signature", jwsAlgorithmFactory);
+        factories.put("JWE key management", jweKeyMgmtModeAlgorithmFactory);
+        factories.put("JWE content encryption", jweContentEncryptionAlgorithmFactory);
+        factories.put("JWE compression", compressionAlgorithmFactory);
+
+        final ExecutorService executor = SharedExecutors.computation();
+
+        List<Runnable> checks = new ArrayList<>();
+        for (final AlgorithmFactory<?> factory : factories.values())
+        {
+            for (final String algId : factory.getUncheckedAlgorithms())
+            {
+                checks.add(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        factory.checkAvailability(algId);
+                    }
+                });
+            }
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(checks.size());
+        for (final Runnable check : checks)
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        check.run();
+                    }
+                    finally
+                    {
+                        if (remaining.decrementAndGet() == 0)
+                        {
+                            log.debug("Checked the availability of jose4j algorithms in the background in {}ms", (System.currentTimeMillis() - startTime));
+                            for (Map.Entry<String, AlgorithmFactory<?>> entry : factories.entrySet())
+                            {
+                                log.debug("{} algorithms: {}", entry.getKey(), entry.getValue().getSupportedAlgorithms());
+                            }
+                        }
+                    }
+                }
+            });
+        }
     }
 
     public static AlgorithmFactoryFactory getInstance()
@@ -119,6 +269,11 @@ public class AlgorithmFactoryFactory
         return factoryFactory;
     }
 
+    public AvailabilityCheck getAvailabilityCheck()
+    {
+        return availabilityCheck;
+    }
+
     public AlgorithmFactory<JsonWebSignatureAlgorithm> getJwsAlgorithmFactory()
     {
         return jwsAlgorithmFactory;
@@ -89,43 +89,46 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         Key hmacKey = new HmacKey(ByteUtil.leftHalf(key));
         Key encryptionKey = new AesKey(ByteUtil.rightHalf(key));
         final String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), cipherProvider);
+        Cipher cipher = CipherUtil.borrowCipher(getJavaAlgorithm(), cipherProvider);
 
+        byte[] cipherText;
         try
         {
             cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            cipherText = cipher.doFinal(plaintext);
         }
         catch (InvalidKeyException e)
         {
             throw new JoseException("Invalid key for " + getJavaAlgorithm(), e);
         }
-        catch (InvalidAlgorithmParameterException e)
+        catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e)
         {
             throw new JoseException(e.toString(), e);
         }
-
-        byte[] cipherText;
-        try
-        {
-            cipherText = cipher.doFinal(plaintext);
-        }
-        catch (IllegalBlockSizeException | BadPaddingException e)
+        finally
         {
-            throw new JoseException(e.toString(), e);
+            CipherUtil.releaseCipher(getJavaAlgorithm(), cipherProvider, cipher);
         }
 
         final String macProvider = ContentEncryptionHelp.getMacProvider(headers, providerContext);
-        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
-
         byte[] al = getAdditionalAuthenticatedDataLengthBytes(aad);
 
-        byte[] authenticationTagInput = ByteUtil.concat(aad, iv, cipherText, al);
-        byte[] authenticationTag = mac.doFinal(authenticationTagInput);
+        byte[] authenticationTag = authenticationTag(hmacKey, macProvider, aad, iv, cipherText, al);
         authenticationTag = ByteUtil.subArray(authenticationTag, 0, getTagTruncationLength()); // truncate it
 
         return new ContentEncryptionParts(iv, cipherText, authenticationTag);
     }
 
+    // the MAC key is a one-off part of the CEK so it's not pooled
+    private byte[] authenticationTag(Key hmacKey, String macProvider, byte[] aad, byte[] iv, byte[] cipherText, byte[] al) throws JoseException
+    {
+        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
+        mac.update(aad);
+        mac.update(iv);
+        mac.update(cipherText);
+        return mac.doFinal(al);
+    }
+
     public byte[] decrypt(ContentEncryptionParts contentEncryptionParts, byte[] aad, byte[] contentEncryptionKey, Headers headers, ProviderContext providerContext) throws JoseException
     {
         String cipherProvider = ContentEncryptionHelp.getCipherProvider(headers, providerContext);
@@ -135,10 +138,8 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         byte[] ciphertext = contentEncryptionParts.getCiphertext();
         byte[] authenticationTag = contentEncryptionParts.getAuthenticationTag();
         byte[] al = getAdditionalAuthenticatedDataLengthBytes(aad);
-        byte[] authenticationTagInput = ByteUtil.concat(aad, iv, ciphertext, al);
         Key hmacKey = new HmacKey(ByteUtil.leftHalf(contentEncryptionKey));
-        Mac mac = MacUtil.getInitializedMac(getHmacJavaAlgorithm(), hmacKey, macProvider);
-        byte[] calculatedAuthenticationTag = mac.doFinal(authenticationTagInput);
+        byte[] calculatedAuthenticationTag = authenticationTag(hmacKey, macProvider, aad, iv, ciphertext, al);
         calculatedAuthenticationTag = ByteUtil.subArray(calculatedAuthenticationTag, 0, getTagTruncationLength()); // truncate it
         boolean tagMatch = ByteUtil.secureEquals(authenticationTag, calculatedAuthenticationTag);
         if (!tagMatch)
@@ -150,27 +151,23 @@ public class AesCbcHmacSha2ContentEncryptionAlgorithm extends AlgorithmInfo impl
         }
 
         Key encryptionKey = new AesKey(ByteUtil.rightHalf(contentEncryptionKey));
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), cipherProvider);
+        Cipher cipher = CipherUtil.borrowCipher(getJavaAlgorithm(), cipherProvider);
         try
         {
             cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            return cipher.doFinal(ciphertext);
         }
         catch (InvalidKeyException e)
         {
             throw new JoseException("Invalid key for " + getJavaAlgorithm(), e);
         }
-        catch (InvalidAlgorithmParameterException e)
+        catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e)
         {
             throw new JoseException(e.toString(), e);
         }
-
-        try
+        finally
         {
-            return cipher.doFinal(ciphertext);
-        }
-        catch (IllegalBlockSizeException | BadPaddingException e)
-        {
-            throw new JoseException(e.toString(), e);
+            CipherUtil.releaseCipher(getJavaAlgorithm(), cipherProvider, cipher);
         }
     }
 
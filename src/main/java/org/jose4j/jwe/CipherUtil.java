@@ -16,17 +16,44 @@
 
 package org.jose4j.jwe;
 
+import org.jose4j.jca.JcaProviders;
+import org.jose4j.keys.RsaKeyUtil;
 import org.jose4j.lang.JoseException;
 
 import javax.crypto.Cipher;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Cipher.getInstance is one of the more expensive JCA calls so instances are pooled per transformation and provider.
+ * Every use of a Cipher in jose4j starts with an init (with the key and any IV for that operation) and runs through
+ * to completion on one thread, so a pooled instance carries nothing from one use to the next that matters
+ * and a borrowed instance is only ever used by one thread at a time.
+ * The one thing that does carry over is that some GCM implementations remember the last key and IV used to encrypt
+ * and refuse to encrypt with them again. See {@link SimpleAeadCipher} for how that's handled.
+ * <p>
+ * A released Cipher is initialized again with a throwaway key before it goes back in the pool so that the pool doesn't
+ * keep the caller's key (an RSA private key, a key wrapping key or a content encryption key) around after
+ * the caller is done with it. One that can't be is just dropped.
  */
 public class CipherUtil
 {
+    static final int MAX_IDLE_PER_TRANSFORMATION = 32;
+
+    private static final ConcurrentMap<String, Idle> pool = new ConcurrentHashMap<>();
+
+    private static final Key THROWAWAY_SECRET_KEY = new SecretKeySpec(new byte[16], "AES");
+
 //    static Cipher getCipher(String algorithm) throws JoseException
 //    {
 //        return getCipher(algorithm, null);
@@ -36,7 +63,7 @@ public class CipherUtil
     {
         try
         {
-            return provider == null ? Cipher.getInstance(algorithm) : Cipher.getInstance(algorithm, provider);
+            return provider == null ? Cipher.getInstance(algorithm) : Cipher.getInstance(algorithm, JcaProviders.getProvider(provider));
         }
         catch (NoSuchAlgorithmException | NoSuchPaddingException e)
         {
@@ -47,4 +74,105 @@ public class CipherUtil
             throw new JoseException("Unable to get a Cipher implementation of " + algorithm + " using provider " + provider, e);
         }
     }
+
+    /**
+     * Gets a Cipher from the pool, or a new one if none are idle, which must be initialized before use
+     * and then given back with {@link #releaseCipher(String, String, Cipher)} when done.
+     */
+    static Cipher borrowCipher(String algorithm, String provider) throws JoseException
+    {
+        Idle idle = pool.get(poolKey(algorithm, provider));
+        Cipher cipher = (idle == null) ? null : idle.ciphers.poll();
+        if (cipher == null)
+        {
+            return getCipher(algorithm, provider);
+        }
+        idle.count.decrementAndGet();
+        return cipher;
+    }
+
+    static void releaseCipher(String algorithm, String provider, Cipher cipher)
+    {
+        if (!forgetKey(cipher))
+        {
+            return;
+        }
+
+        String key = poolKey(algorithm, provider);
+        Idle idle = pool.get(key);
+        if (idle == null)
+        {
+            Idle newIdle = new Idle();
+            idle = pool.putIfAbsent(key, newIdle);
+            if (idle == null)
+            {
+                idle = newIdle;
+            }
+        }
+
+        if (idle.count.incrementAndGet() <= MAX_IDLE_PER_TRANSFORMATION)
+        {
+            idle.ciphers.offer(cipher);
+        }
+        else
+        {
+            idle.count.decrementAndGet();
+        }
+    }
+
+    private static boolean forgetKey(Cipher cipher)
+    {
+        String algorithm = cipher.getAlgorithm();
+        Key throwawayKey = algorithm.startsWith("RSA") ? ThrowawayRsaKey.KEY : THROWAWAY_SECRET_KEY;
+        if (throwawayKey == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            cipher.init(algorithm.contains("Wrap") ? Cipher.WRAP_MODE : Cipher.ENCRYPT_MODE, throwawayKey);
+            return true;
+        }
+        catch (GeneralSecurityException | RuntimeException e)
+        {
+            return false;
+        }
+    }
+
+    static int idleCount(String algorithm, String provider)
+    {
+        Idle idle = pool.get(poolKey(algorithm, provider));
+        return (idle == null) ? 0 : idle.count.get();
+    }
+
+    private static String poolKey(String algorithm, String provider)
+    {
+        return (provider == null) ? algorithm : algorithm + '\n' + provider;
+    }
+
+    private static class ThrowawayRsaKey
+    {
+        // only ever used to encrypt nothing so any big enough modulus will do
+        private static final Key KEY = newKey();
+
+        private static Key newKey()
+        {
+            try
+            {
+                BigInteger modulus = BigInteger.ONE.shiftLeft(2048).subtract(BigInteger.ONE);
+                return new RsaKeyUtil().publicKey(modulus, BigInteger.valueOf(65537));
+            }
+            catch (JoseException | RuntimeException e)
+            {
+                return null;
+            }
+        }
+    }
+
+    private static class Idle
+    {
+        private final Queue<Cipher> ciphers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
 }
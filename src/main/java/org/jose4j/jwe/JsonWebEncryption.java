@@ -21,6 +21,7 @@ import org.jose4j.jwa.Algorithm;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwa.AlgorithmFactory;
 import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.jose4j.jwx.CompactSerializationParts;
 import org.jose4j.jwx.CompactSerializer;
 import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.Headers;
@@ -57,6 +58,11 @@ public class JsonWebEncryption extends JsonWebStructure
         this.plaintextCharEncoding = plaintextCharEncoding;
     }
 
+    public String getPlainTextCharEncoding()
+    {
+        return plaintextCharEncoding;
+    }
+
     public void setPlaintext(byte[] plaintext)
     {
         this.plaintext = plaintext;
@@ -131,10 +137,9 @@ public class JsonWebEncryption extends JsonWebStructure
             throw new InvalidAlgorithmException("Content encryption header ("+HeaderParameterNames.ENCRYPTION_METHOD+") not set.");
         }
 
-        contentEncryptionAlgorithmConstraints.checkConstraint(encValue);
         AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
         AlgorithmFactory<ContentEncryptionAlgorithm> factory = factoryFactory.getJweContentEncryptionAlgorithmFactory();
-        return factory.getAlgorithm(encValue);
+        return factory.getAlgorithm(encValue, contentEncryptionAlgorithmConstraints);
     }
 
     public KeyManagementAlgorithm getKeyManagementModeAlgorithm() throws InvalidAlgorithmException
@@ -150,13 +155,9 @@ public class JsonWebEncryption extends JsonWebStructure
             throw new InvalidAlgorithmException("Encryption key management algorithm header ("+HeaderParameterNames.ALGORITHM+") not set.");
         }
 
-        if (checkConstraints)
-        {
-            getAlgorithmConstraints().checkConstraint(algo);
-        }
         AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
         AlgorithmFactory<KeyManagementAlgorithm> factory = factoryFactory.getJweKeyManagementAlgorithmFactory();
-        return factory.getAlgorithm(algo);
+        return checkConstraints ? factory.getAlgorithm(algo, getAlgorithmConstraints()) : factory.getAlgorithm(algo);
     }
 
     @Override
@@ -190,6 +191,23 @@ public class JsonWebEncryption extends JsonWebStructure
         setIntegrity(tag);
     }
 
+    @Override
+    protected void setCompactSerializationParts(CompactSerializationParts parts) throws JoseException
+    {
+        if (parts.size() != COMPACT_SERIALIZATION_PARTS)
+        {
+            throw new JoseException("A JWE Compact Serialization must have exactly " + COMPACT_SERIALIZATION_PARTS + " parts separated by period ('.') characters");
+        }
+
+        setEncodedHeader(parts);
+        encryptedKey = parts.decode(1);
+        setIv(parts.decode(2));
+        checkNotEmptyPart(parts, 3, "Encoded JWE Ciphertext");
+        ciphertext = parts.decode(3);
+        checkNotEmptyPart(parts, 4, "Encoded JWE Authentication Tag");
+        setIntegrity(parts.decode(4));
+    }
+
     private void decrypt() throws JoseException
     {
         KeyManagementAlgorithm keyManagementModeAlg = getKeyManagementModeAlgorithm();
@@ -222,6 +240,12 @@ public class JsonWebEncryption extends JsonWebStructure
 
     byte[] getEncodedHeaderAsciiBytesForAdditionalAuthenticatedData()
     {
+        CompactSerializationParts parts = getCompactSerializationPartsWithCurrentHeader();
+        if (parts != null)
+        {
+            return parts.getAsciiBytes(0, 0);
+        }
+
         String encodedHeader = getEncodedHeader();
         return StringUtil.getBytesAscii(encodedHeader);
     }
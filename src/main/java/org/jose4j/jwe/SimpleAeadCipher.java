@@ -48,11 +48,22 @@ public class SimpleAeadCipher
 
     private Cipher getInitialisedCipher(Key key, byte[] iv, int mode, String provider) throws JoseException
     {
-        Cipher cipher = CipherUtil.getCipher(algorithm, provider);
+        Cipher cipher = CipherUtil.borrowCipher(algorithm, provider);
+        GCMParameterSpec parameterSpec = new GCMParameterSpec(ByteUtil.bitLength(tagByteLength), iv);
         try
         {
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(ByteUtil.bitLength(tagByteLength), iv);
-            cipher.init(mode, key, parameterSpec);
+            try
+            {
+                cipher.init(mode, key, parameterSpec);
+            }
+            catch (InvalidAlgorithmParameterException e)
+            {
+                // a pooled GCM cipher that last encrypted with this same key and IV may refuse to do so again, which
+                // depends on what some unrelated earlier use of the instance happened to be rather than anything
+                // about this call, so give it one more go with a new instance like it would have had before pooling
+                cipher = CipherUtil.getCipher(algorithm, provider);
+                cipher.init(mode, key, parameterSpec);
+            }
             return cipher;
         }
         catch (java.security.InvalidKeyException e)
@@ -68,17 +79,21 @@ public class SimpleAeadCipher
     public CipherOutput encrypt(Key key, byte[] iv, byte[] plaintext, byte[] aad, String provider) throws JoseException
     {
         Cipher cipher = getInitialisedCipher(key, iv, Cipher.ENCRYPT_MODE, provider);
-        updateAad(cipher, aad);
 
         byte[] cipherOutput;
         try
         {
+            updateAad(cipher, aad);
             cipherOutput = cipher.doFinal(plaintext);
         }
         catch (IllegalBlockSizeException | BadPaddingException e)
         {
             throw new JoseException(e.toString(), e);
         }
+        finally
+        {
+            CipherUtil.releaseCipher(algorithm, provider, cipher);
+        }
 
         CipherOutput result = new CipherOutput();
         int tagIndex = cipherOutput.length - tagByteLength;
@@ -98,17 +113,20 @@ public class SimpleAeadCipher
     public byte[] decrypt(Key key, byte[] iv, byte[] ciphertext, byte[] tag, byte[] aad, String provider) throws JoseException
     {
         Cipher cipher = getInitialisedCipher(key, iv, Cipher.DECRYPT_MODE, provider);
-        updateAad(cipher, aad);
 
         try
         {
+            updateAad(cipher, aad);
             return cipher.doFinal(ByteUtil.concat(ciphertext,tag));
         }
         catch (IllegalBlockSizeException | BadPaddingException e)
         {
             throw new JoseException(e.toString(), e);
         }
-
+        finally
+        {
+            CipherUtil.releaseCipher(algorithm, provider, cipher);
+        }
     }
 
     public boolean isAvailable(Logger log, int keyByteLength, int ivByteLength, String joseAlg)
@@ -65,7 +65,7 @@ public abstract class WrappingKeyManagementAlgorithm extends AlgorithmInfo imple
         ProviderContext.Context ctx = useSuppliedKeyProviderContext ? providerContext.getSuppliedKeyProviderContext() : providerContext.getGeneralProviderContext();
         String provider = ctx.getCipherProvider();
 
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), provider);
+        Cipher cipher = CipherUtil.borrowCipher(getJavaAlgorithm(), provider);
 
         try
         {
@@ -82,6 +82,10 @@ public abstract class WrappingKeyManagementAlgorithm extends AlgorithmInfo imple
         {
             throw new JoseException("Unable to encrypt ("+cipher.getAlgorithm()+") the Content Encryption Key: " + e, e);
         }
+        finally
+        {
+            CipherUtil.releaseCipher(getJavaAlgorithm(), provider, cipher);
+        }
     }
 
     void initCipher(Cipher cipher, int mode, Key key) throws InvalidAlgorithmParameterException, InvalidKeyException
@@ -99,46 +103,52 @@ public abstract class WrappingKeyManagementAlgorithm extends AlgorithmInfo imple
     public Key manageForDecrypt(Key managementKey, byte[] encryptedKey, ContentEncryptionKeyDescriptor cekDesc, Headers headers, ProviderContext providerContext) throws JoseException
     {
         String provider = providerContext.getSuppliedKeyProviderContext().getCipherProvider();
-        Cipher cipher = CipherUtil.getCipher(getJavaAlgorithm(), provider);
-
+        Cipher cipher = CipherUtil.borrowCipher(getJavaAlgorithm(), provider);
         try
         {
-            initCipher(cipher, Cipher.UNWRAP_MODE, managementKey);
-        }
-        catch  (InvalidKeyException e)
-        {
-            throw new org.jose4j.lang.InvalidKeyException("Unable to initialize cipher ("+cipher.getAlgorithm()+") for key decryption - " + e, e);
-        }
-        catch (InvalidAlgorithmParameterException e)
-        {
-            throw new JoseException("Unable to initialize cipher ("+cipher.getAlgorithm()+") for key decryption - " + e, e);
-        }
+            try
+            {
+                initCipher(cipher, Cipher.UNWRAP_MODE, managementKey);
+            }
+            catch  (InvalidKeyException e)
+            {
+                throw new org.jose4j.lang.InvalidKeyException("Unable to initialize cipher ("+cipher.getAlgorithm()+") for key decryption - " + e, e);
+            }
+            catch (InvalidAlgorithmParameterException e)
+            {
+                throw new JoseException("Unable to initialize cipher ("+cipher.getAlgorithm()+") for key decryption - " + e, e);
+            }
 
-        String cekAlg = cekDesc.getContentEncryptionKeyAlgorithm();
+            String cekAlg = cekDesc.getContentEncryptionKeyAlgorithm();
 
-        try
-        {
-            return cipher.unwrap(encryptedKey, cekAlg, Cipher.SECRET_KEY);
-        }
-        catch (Exception e)
-        {
-            if (log.isDebugEnabled())
+            try
+            {
+                return cipher.unwrap(encryptedKey, cekAlg, Cipher.SECRET_KEY);
+            }
+            catch (Exception e)
             {
-                String flatStack = ExceptionHelp.toStringWithCausesAndAbbreviatedStack(e, JsonWebEncryption.class);
-                log.debug("Key unwrap failed. Substituting a randomly generated CEK and proceeding. {}", flatStack);
+                if (log.isDebugEnabled())
+                {
+                    String flatStack = ExceptionHelp.toStringWithCausesAndAbbreviatedStack(e, JsonWebEncryption.class);
+                    log.debug("Key unwrap failed. Substituting a randomly generated CEK and proceeding. {}", flatStack);
+                }
+                /* https://tools.ietf.org/html/draft-ietf-jose-json-web-encryption-39#section-11.5
+                       and doing this should also result in the same type of error for different types of problems as suggested 11.4
+
+                   To mitigate the attacks described in RFC 3218 [RFC3218], the
+                   recipient MUST NOT distinguish between format, padding, and length
+                   errors of encrypted keys.  It is strongly recommended, in the event
+                   of receiving an improperly formatted key, that the recipient
+                   substitute a randomly generated CEK and proceed to the next step, to
+                   mitigate timing attacks.
+                 */
+                byte[] bytes = ByteUtil.randomBytes(cekDesc.getContentEncryptionKeyByteLength());
+                return new SecretKeySpec(bytes, cekAlg);
             }
-            /* https://tools.ietf.org/html/draft-ietf-jose-json-web-encryption-39#section-11.5
-                   and doing this should also result in the same type of error for different types of problems as suggested 11.4
-
-               To mitigate the attacks described in RFC 3218 [RFC3218], the
-               recipient MUST NOT distinguish between format, padding, and length
-               errors of encrypted keys.  It is strongly recommended, in the event
-               of receiving an improperly formatted key, that the recipient
-               substitute a randomly generated CEK and proceed to the next step, to
-               mitigate timing attacks.
-             */
-            byte[] bytes = ByteUtil.randomBytes(cekDesc.getContentEncryptionKeyByteLength());
-            return new SecretKeySpec(bytes, cekAlg);
+        }
+        finally
+        {
+            CipherUtil.releaseCipher(getJavaAlgorithm(), provider, cipher);
         }
     }
 }
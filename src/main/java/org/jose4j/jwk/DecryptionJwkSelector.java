@@ -38,4 +38,16 @@ public class DecryptionJwkSelector
         SimpleJwkFilter filter = SelectorSupport.filterForInboundEncrypted(jwe);
         return filter.filter(keys);
     }
+
+    public JsonWebKey select(JsonWebEncryption jwe, JsonWebKeyIndex keys) throws JoseException
+    {
+        List<JsonWebKey> jsonWebKeys = selectList(jwe, keys);
+        return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
+    }
+
+    public List<JsonWebKey> selectList(JsonWebEncryption jwe, JsonWebKeyIndex keys) throws JoseException
+    {
+        SimpleJwkFilter filter = SelectorSupport.filterForInboundEncrypted(jwe);
+        return filter.filter(keys);
+    }
 }
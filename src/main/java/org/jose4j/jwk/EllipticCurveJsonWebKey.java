@@ -59,9 +59,34 @@ public class EllipticCurveJsonWebKey extends PublicJsonWebKey
 
     public EllipticCurveJsonWebKey(Map<String, Object> params, String jcaProvider) throws JoseException
     {
-        super(params, jcaProvider);
+        this(params, jcaProvider, false);
+    }
+
+    EllipticCurveJsonWebKey(Map<String, Object> params, String jcaProvider, boolean deferKey) throws JoseException
+    {
+        super(params, jcaProvider, deferKey);
 
         curveName = getString(params, CURVE_MEMBER_NAME, true);
+
+        if (deferKey)
+        {
+            getString(params, X_MEMBER_NAME, true);
+            getString(params, Y_MEMBER_NAME, true);
+            deferKey(params);
+        }
+        else
+        {
+            makeKey(params);
+        }
+
+        removeFromOtherParams(CURVE_MEMBER_NAME, X_MEMBER_NAME, Y_MEMBER_NAME, PRIVATE_KEY_MEMBER_NAME);
+    }
+
+    @Override
+    protected void makeKey(Map<String, Object> params) throws JoseException
+    {
+        super.makeKey(params);
+
         ECParameterSpec curve = EllipticCurves.getSpec(curveName);
 
         BigInteger x = getBigIntFromBase64UrlEncodedParam(params, X_MEMBER_NAME, true);
@@ -77,18 +102,16 @@ public class EllipticCurveJsonWebKey extends PublicJsonWebKey
             BigInteger d = getBigIntFromBase64UrlEncodedParam(params, PRIVATE_KEY_MEMBER_NAME, false);
             privateKey = keyUtil.privateKey(d, curve);
         }
-
-        removeFromOtherParams(CURVE_MEMBER_NAME, X_MEMBER_NAME, Y_MEMBER_NAME, PRIVATE_KEY_MEMBER_NAME);
     }
 
     public ECPublicKey getECPublicKey()
     {
-        return (ECPublicKey) key;
+        return (ECPublicKey) getKey();
     }
 
     public ECPrivateKey getEcPrivateKey()
     {
-        return (ECPrivateKey) privateKey;
+        return (ECPrivateKey) getPrivateKey();
     }
 
     public String getKeyType()
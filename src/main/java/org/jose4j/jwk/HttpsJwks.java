@@ -15,18 +15,29 @@
  */
 package org.jose4j.jwk;
 
+import org.jose4j.http.AsyncSimpleGet;
 import org.jose4j.http.Get;
+import org.jose4j.http.SimpleConditionalGet;
 import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
+import org.jose4j.lang.BoundedExpiringMap;
 import org.jose4j.lang.ExceptionHelp;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.SharedExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -35,6 +46,12 @@ import java.util.concurrent.locks.ReentrantLock;
  * headers and/or the {@link #setDefaultCacheDuration(long)}.
  * The keys are cached per {@code HttpsJwks} instance so your application will need to keep using
  * the same instance, however is appropriate for that application, to get the benefit of the caching.
+ * When the response has an {@code ETag} or {@code Last-Modified} header, subsequent refreshes are conditional GETs
+ * (if the {@link SimpleGet} is a {@link SimpleConditionalGet}, which the default is) so that unchanged
+ * content isn't downloaded and parsed again but just has its cache life extended.
+ * With {@link #setRefreshAhead(double)} and an {@link AsyncSimpleGet}, like {@link org.jose4j.http.AsyncGet},
+ * background refreshes don't hold a thread while waiting between retries (each attempt still
+ * takes a thread of the {@code AsyncGet} for the duration of the HTTP exchange).
  * This class, when used with {@code HttpsJwksVerificationKeyResolver}, can help facilitate the consuming side of
  * a key publication and rotation model like that which is described
  * in <a href="http://openid.net/specs/openid-connect-core-1_0.html#SigEnc">OpenID Connect, section 10</a>.
@@ -50,13 +67,23 @@ public class HttpsJwks
     private volatile SimpleGet simpleHttpGet = new Get();
     private volatile long retainCacheOnErrorDurationMills = 0;
 
-    private volatile Cache cache = new Cache(Collections.<JsonWebKey>emptyList(), 0);
+    private volatile Cache cache = new Cache(new JsonWebKeyIndex(Collections.<JsonWebKey>emptyList()), 0);
 
     // used to stop multiple threads from refreshing in parallel
     private final ReentrantLock refreshLock = new ReentrantLock();
     
     private long refreshReprieveThreshold = 300L;
 
+    private volatile long missRefreshMinimumInterval = 0;
+    private volatile UnknownKeyIds unknownKeyIds;
+
+    private volatile double refreshAheadFraction = 0;
+    private ScheduledFuture<?> refreshAheadTask;  // guarded by refreshLock
+
+    private volatile JwksSnapshotStore snapshotStore;
+
+    private volatile JsonWebKeySet.KeyMaterialization keyMaterialization = JsonWebKeySet.KeyMaterialization.EAGER;
+
     /**
      * Create a new HttpsJwks that cab be used to retrieve JWKs from the given location.
      * @param location the HTTPS URI of the JSON Web Key Set
@@ -107,6 +134,17 @@ public class HttpsJwks
         this.simpleHttpGet = simpleHttpGet;
     }
 
+    /**
+     * Sets when the keys of the JWKs are made from their parameters. With large key sets, where most keys
+     * won't be used, {@code LAZY} saves making them until they're needed. The default is {@code EAGER}.
+     * @param keyMaterialization when to make the keys
+     * @see JsonWebKeySet.KeyMaterialization
+     */
+    public void setKeyMaterialization(JsonWebKeySet.KeyMaterialization keyMaterialization)
+    {
+        this.keyMaterialization = keyMaterialization;
+    }
+
     /**
      * Gets the location of the JWKS endpoint/URL.
      * @return the location
@@ -128,6 +166,189 @@ public class HttpsJwks
         this.refreshReprieveThreshold = refreshReprieveThreshold;
     }
 
+    /**
+     * Sets the minimum time between refreshes done by {@link #refreshAfterMiss(JsonWebKeyIndex)}, which is how
+     * {@code HttpsJwksVerificationKeyResolver} refreshes when no key is found for a JWS. This limits how much a stream
+     * of JWSs with unknown key IDs can make it go back to the JWKS endpoint. It is never less than the
+     * {@link #setRefreshReprieveThreshold(long)}.
+     * @param missRefreshMinimumInterval the minimum interval in milliseconds, the default is 0.
+     */
+    public void setMissRefreshMinimumInterval(long missRefreshMinimumInterval)
+    {
+        this.missRefreshMinimumInterval = missRefreshMinimumInterval;
+    }
+
+    /**
+     * Turns on remembering, for a time, key IDs that weren't found even after refreshing
+     * so that JWSs with those key IDs can be rejected without another refresh. The remembered key IDs are
+     * forgotten whenever new JWKS content is retrieved.
+     * @param maxEntries the most key IDs to remember, zero or less turns this off (which is the default)
+     * @param timeToLiveSeconds how long to remember each key ID
+     */
+    public void setUnknownKeyIdCache(int maxEntries, long timeToLiveSeconds)
+    {
+        unknownKeyIds = (maxEntries > 0 && timeToLiveSeconds > 0) ? new UnknownKeyIds(maxEntries, timeToLiveSeconds * 1000L) : null;
+    }
+
+    /**
+     * @param keyId the key ID
+     * @return true if the key ID was recently found not to be in the JWKS
+     * @see #setUnknownKeyIdCache(int, long)
+     */
+    public boolean isUnknownKeyId(String keyId)
+    {
+        UnknownKeyIds u = unknownKeyIds;
+        return u != null && keyId != null && u.contains(keyId);
+    }
+
+    /**
+     * Remembers that there's no key with the given key ID (if that's been turned on).
+     * @param keyId the key ID
+     * @see #setUnknownKeyIdCache(int, long)
+     */
+    public void addUnknownKeyId(String keyId)
+    {
+        UnknownKeyIds u = unknownKeyIds;
+        if (u != null && keyId != null)
+        {
+            u.add(keyId);
+        }
+    }
+
+    /**
+     * Refreshes the keys because a suitable key wasn't found in the given keys (as obtained from {@link #getJsonWebKeyIndex()}).
+     * If other threads hit the same miss at the same time only one refresh is done and the others
+     * wait for and use its result. No refresh is done if the keys have already changed from the ones given or
+     * if the last refresh happened less than the {@link #setMissRefreshMinimumInterval(long)} ago.
+     * @param missed the keys in which a key wasn't found
+     * @throws JoseException if an problem is encountered parsing the JSON content into JSON Web Keys.
+     * @throws IOException if a problem is encountered making the HTTP request.
+     */
+    public void refreshAfterMiss(JsonWebKeyIndex missed) throws JoseException, IOException
+    {
+        refreshLock.lock();
+        try
+        {
+            Cache c = cache;
+            long last = System.currentTimeMillis() - c.created;
+            long minimumInterval = Math.max(missRefreshMinimumInterval, refreshReprieveThreshold);
+            if (c.index != missed)
+            {
+                log.debug("NOT refreshing JWKS from {} because it has been refreshed since the keys were checked", location);
+            }
+            else if (last < minimumInterval && c.index.size() != 0)
+            {
+                log.debug("NOT refreshing JWKS from {} because the last refresh was only {} mills ago", location, last);
+            }
+            else
+            {
+                load();
+            }
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Turns on (or off) refreshing the keys in the background ahead of their expiration so that, after the first load,
+     * callers of {@link #getJsonWebKeys()} get the cached keys without waiting on the HTTP request.
+     * Each time the keys are loaded a refresh is scheduled for the given fraction of their cache life later
+     * (so 0.75 with a cache life of an hour would refresh after 45 minutes). All HttpsJwks instances share
+     * a pool of daemon threads for this with the other parts of this library that wait on HTTP.
+     * If a background refresh fails, the cached keys are kept and it's tried again a bit later while they're still good.
+     * The default is 0, which means the keys are only refreshed when they're needed and have expired.
+     * @param fractionOfCacheLife greater than 0 and less than 1 to turn on refresh-ahead or 0 to turn it off
+     */
+    public void setRefreshAhead(double fractionOfCacheLife)
+    {
+        if (fractionOfCacheLife < 0 || fractionOfCacheLife >= 1)
+        {
+            throw new IllegalArgumentException("The refresh-ahead fraction of the cache life must be at least 0 and less than 1 but was " + fractionOfCacheLife);
+        }
+
+        refreshLock.lock();
+        try
+        {
+            refreshAheadFraction = fractionOfCacheLife;
+            Cache c = cache;
+            if (fractionOfCacheLife > 0 && c.index.size() != 0)
+            {
+                scheduleRefreshAhead((long) ((c.exp - c.created) * fractionOfCacheLife));
+            }
+            else
+            {
+                scheduleRefreshAhead(-1);
+            }
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Sets a store that the content is saved to each time it's loaded and, when this is called on a new
+     * HttpsJwks, starts the cache out with the content that was last saved for this location (typically
+     * before a restart). That way the keys can be used right away rather than waiting on the JWKS endpoint.
+     * If the saved content has expired, it's still used for a little while but is refreshed in the background right away,
+     * unless it expired longer ago than the store's {@link JwksSnapshotStore#setMaxStaleness(long) maximum staleness},
+     * in which case it's ignored.
+     * @param snapshotStore the store or null to not save snapshots
+     */
+    public void setSnapshotStore(JwksSnapshotStore snapshotStore)
+    {
+        refreshLock.lock();
+        try
+        {
+            this.snapshotStore = snapshotStore;
+            JwksSnapshotStore.Snapshot snapshot = (snapshotStore == null) ? null : snapshotStore.get(location);
+            if (snapshot == null || cache.index.size() != 0)
+            {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - snapshot.getExp() > snapshotStore.getMaxStalenessMillis())
+            {
+                log.debug("Not using the snapshot of JWKS content from {} in {} that expired at {}", location, snapshotStore.getFile(), new Date(snapshot.getExp()));
+                return;
+            }
+
+            Map<Map<String, Object>, JsonWebKey> keysByParams = new HashMap<>();
+            List<JsonWebKey> keys;
+            try
+            {
+                keys = new JsonWebKeySet(snapshot.getBody(), keyMaterialization, null, keysByParams).getJsonWebKeys();
+            }
+            catch (JoseException e)
+            {
+                log.warn("Unable to use the snapshot of JWKS content from {} in {}: {}", location, snapshotStore.getFile(), ExceptionHelp.toStringWithCauses(e));
+                return;
+            }
+
+            boolean stale = snapshot.getExp() <= now;
+            long exp = stale ? now + STALE_SNAPSHOT_GRACE_MILLIS : snapshot.getExp();
+            cache = new Cache(new JsonWebKeyIndex(keys), keysByParams, exp, snapshot.getEtag(), snapshot.getLastModified(), snapshot.getCreated());
+            log.debug("Starting with{} JWKS content from {} saved in {} until about {} -> {}", stale ? " stale" : "", location, snapshotStore.getFile(), new Date(exp), keys);
+
+            if (stale)
+            {
+                SharedExecutors.blocking().execute(new StaleSnapshotRefreshTask(this));
+            }
+            else if (refreshAheadFraction > 0)
+            {
+                long life = snapshot.getExp() - snapshot.getCreated();
+                scheduleRefreshAhead(Math.max(snapshot.getCreated() + (long) (life * refreshAheadFraction) - now, 0));
+            }
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
     /**
      * Gets the JSON Web Keys from the JWKS endpoint location or from local cache, if appropriate.
      * @return a list of JsonWebKeys
@@ -135,20 +356,49 @@ public class HttpsJwks
      * @throws IOException if a problem is encountered making the HTTP request.
      */
     public List<JsonWebKey> getJsonWebKeys() throws JoseException, IOException
+    {
+        return getCache().index.getJsonWebKeys();
+    }
+
+    /**
+     * Gets the JSON Web Keys from the JWKS endpoint location or from local cache, if appropriate,
+     * as an index that's built once each time the keys are retrieved and which can be used to select keys
+     * without going through every one of them.
+     * @return the keys as a JsonWebKeyIndex
+     * @throws JoseException if an problem is encountered parsing the JSON content into JSON Web Keys.
+     * @throws IOException if a problem is encountered making the HTTP request.
+     */
+    public JsonWebKeyIndex getJsonWebKeyIndex() throws JoseException, IOException
+    {
+        return getCache().index;
+    }
+
+    /**
+     * Gets the JSON Web Keys from local cache, if they're there and haven't expired, without ever
+     * making an HTTP request or waiting on one that's in progress.
+     * @return the keys as a JsonWebKeyIndex or null if they'd need to be retrieved
+     */
+    public JsonWebKeyIndex getCachedJsonWebKeyIndex()
+    {
+        Cache c = cache;
+        return c.exp > System.currentTimeMillis() ? c.index : null;
+    }
+
+    private Cache getCache() throws JoseException, IOException
     {
         final long now = System.currentTimeMillis();
         Cache c = cache;
         if (c.exp > now)
         {
             // common case: keys are still good
-            return c.keys;
+            return c;
         }
         if (!refreshLock.tryLock())
         {
             // another thread is already refreshing, use cached keys for now (if not null)
-            if (!c.keys.isEmpty())
+            if (c.index.size() != 0)
             {
-                return c.keys;
+                return c;
             }
             else
             {
@@ -163,10 +413,10 @@ public class HttpsJwks
         }
         catch (Exception e)
         {
-            if (retainCacheOnErrorDurationMills > 0 && !c.keys.isEmpty())
+            if (retainCacheOnErrorDurationMills > 0 && c.index.size() != 0)
             {
-                cache = c = new Cache(c.keys, now + retainCacheOnErrorDurationMills);
-                log.info("Because of {} unable to refresh JWKS content from {} so will continue to use cached keys for more {} seconds until about {} -> {}", ExceptionHelp.toStringWithCauses(e), location, retainCacheOnErrorDurationMills/1000L, new Date(c.exp), c.keys);
+                cache = c = new Cache(c.index, c.keysByParams, now + retainCacheOnErrorDurationMills, c.etag, c.lastModified, now);
+                log.info("Because of {} unable to refresh JWKS content from {} so will continue to use cached keys for more {} seconds until about {} -> {}", ExceptionHelp.toStringWithCauses(e), location, retainCacheOnErrorDurationMills/1000L, new Date(c.exp), c.index.getJsonWebKeys());
             }
             else
             {
@@ -177,7 +427,7 @@ public class HttpsJwks
         {
             refreshLock.unlock();
         }
-        return c.keys;
+        return c;
     }
 
 
@@ -194,33 +444,268 @@ public class HttpsJwks
         {
             long last = System.currentTimeMillis() - cache.created;
 
-            if (last < refreshReprieveThreshold && !cache.keys.isEmpty())
+            if (last < refreshReprieveThreshold && cache.index.size() != 0)
             {
                 log.debug("NOT refreshing/loading JWKS from {} because it just happened {} mills ago", location, last);
             }
             else
             {
-                log.debug("Refreshing/loading JWKS from {}", location);
-                SimpleResponse simpleResponse = simpleHttpGet.get(location);
-                JsonWebKeySet jwks = new JsonWebKeySet(simpleResponse.getBody());
-                List<JsonWebKey> keys = jwks.getJsonWebKeys();
-                long cacheLife = getCacheLife(simpleResponse);
-                if (cacheLife <= 0)
+                load();
+            }
+        } 
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    // must hold the refreshLock
+    private void load() throws JoseException, IOException
+    {
+        log.debug("Refreshing/loading JWKS from {}", location);
+        Cache c = cache;
+        SimpleGet get = simpleHttpGet;
+        Map<String, String> conditionalHeaders = conditionalRequestHeaders(c);
+        SimpleResponse simpleResponse = (get instanceof SimpleConditionalGet && !conditionalHeaders.isEmpty())
+                ? ((SimpleConditionalGet) get).get(location, conditionalHeaders)
+                : get.get(location);
+        update(c, simpleResponse);
+    }
+
+    // must hold the refreshLock, c is the cache at the time the request was made
+    private void update(Cache c, SimpleResponse simpleResponse) throws JoseException
+    {
+        long cacheLife = getCacheLife(simpleResponse);
+        if (cacheLife <= 0)
+        {
+            log.debug("Will use default cache duration of {} seconds for content from {}", defaultCacheDuration, location);
+            cacheLife = defaultCacheDuration;
+        }
+        long exp = System.currentTimeMillis() + (cacheLife * 1000L);
+
+        String etag = getFirstHeaderValue(simpleResponse, "etag");
+        String lastModified = getFirstHeaderValue(simpleResponse, "last-modified");
+        if (simpleResponse.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED)
+        {
+            log.debug("JWKS content from {} has not been modified and will be cached for {} more seconds until about {}", location, cacheLife, new Date(exp));
+            cache = new Cache(c.index, c.keysByParams, exp, etag == null ? c.etag : etag, lastModified == null ? c.lastModified : lastModified, System.currentTimeMillis());
+
+            JwksSnapshotStore store = snapshotStore;
+            if (store != null)
+            {
+                store.revalidated(location, cache.etag, cache.lastModified, exp);
+            }
+        }
+        else
+        {
+            // unchanged keys keep their existing JsonWebKey objects (and anything cached on them)
+            Map<Map<String, Object>, JsonWebKey> keysByParams = new HashMap<>();
+            JsonWebKeySet jwks = new JsonWebKeySet(simpleResponse.getBody(), keyMaterialization, c.keysByParams, keysByParams);
+            List<JsonWebKey> keys = jwks.getJsonWebKeys();
+            boolean unchanged = isSameKeys(c.index.getJsonWebKeys(), keys);
+            JsonWebKeyIndex index = unchanged ? c.index : new JsonWebKeyIndex(keys);
+            log.debug("{} JWKS content from {} will be cached for {} seconds until about {} -> {}", unchanged ? "Unchanged" : "Updated", location, cacheLife, new Date(exp), keys);
+            cache = new Cache(index, keysByParams, exp, etag, lastModified, System.currentTimeMillis());
+
+            JwksSnapshotStore store = snapshotStore;
+            if (store != null)
+            {
+                store.put(location, new JwksSnapshotStore.Snapshot(simpleResponse.getBody(), etag, lastModified, cache.created, exp));
+            }
+
+            UnknownKeyIds u = unknownKeyIds;
+            if (u != null && !unchanged)
+            {
+                u.clear();
+            }
+        }
+
+        double fraction = refreshAheadFraction;
+        if (fraction > 0)
+        {
+            scheduleRefreshAhead((long) (cacheLife * 1000L * fraction));
+        }
+    }
+
+    private static boolean isSameKeys(List<JsonWebKey> one, List<JsonWebKey> two)
+    {
+        if (one.size() != two.size())
+        {
+            return false;
+        }
+        for (int i = 0; i < one.size(); i++)
+        {
+            if (one.get(i) != two.get(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> conditionalRequestHeaders(Cache c)
+    {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (c.index.size() != 0)
+        {
+            if (c.etag != null)
+            {
+                headers.put("If-None-Match", c.etag);
+            }
+            if (c.lastModified != null)
+            {
+                headers.put("If-Modified-Since", c.lastModified);
+            }
+        }
+        return headers;
+    }
+
+    // for tests
+    boolean isRefreshAheadScheduled()
+    {
+        refreshLock.lock();
+        try
+        {
+            return refreshAheadTask != null && !refreshAheadTask.isDone();
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    private static String getFirstHeaderValue(SimpleResponse response, String headerName)
+    {
+        List<String> values = getHeaderValues(response, headerName);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    // must hold the refreshLock, a negative delay just cancels anything that's scheduled
+    private void scheduleRefreshAhead(long delay)
+    {
+        if (refreshAheadTask != null)
+        {
+            refreshAheadTask.cancel(false);
+            refreshAheadTask = null;
+        }
+
+        if (delay >= 0)
+        {
+            refreshAheadTask = SharedExecutors.blocking().schedule(new RefreshAheadTask(this), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refreshAhead()
+    {
+        SimpleGet get = simpleHttpGet;
+        if (get instanceof AsyncSimpleGet)
+        {
+            refreshAheadAsync((AsyncSimpleGet) get);
+            return;
+        }
+
+        refreshLock.lock();
+        try
+        {
+            if (refreshAheadFraction <= 0)
+            {
+                return;
+            }
+
+            try
+            {
+                load();
+            }
+            catch (Exception e)
+            {
+                refreshAheadFailed(e);
+            }
+        }
+        finally
+        {
+            refreshLock.unlock();
+        }
+    }
+
+    // the request is made without holding the lock or a thread, and the response only used if nothing else has refreshed in the meantime
+    private void refreshAheadAsync(AsyncSimpleGet get)
+    {
+        final Cache c = cache;
+        if (refreshAheadFraction <= 0)
+        {
+            return;
+        }
+
+        log.debug("Refreshing JWKS from {} in the background", location);
+        get.getAsync(location, conditionalRequestHeaders(c), new AsyncSimpleGet.Callback()
+        {
+            @Override
+            public void completed(SimpleResponse response)
+            {
+                refreshLock.lock();
+                try
+                {
+                    if (refreshAheadFraction > 0 && cache == c)
+                    {
+                        update(c, response);
+                    }
+                }
+                catch (Exception e)
+                {
+                    refreshAheadFailed(e);
+                }
+                finally
                 {
-                    log.debug("Will use default cache duration of {} seconds for content from {}", defaultCacheDuration, location);
-                    cacheLife = defaultCacheDuration;
+                    refreshLock.unlock();
                 }
-                long exp = System.currentTimeMillis() + (cacheLife * 1000L);
-                log.debug("Updated JWKS content from {} will be cached for {} seconds until about {} -> {}", location, cacheLife, new Date(exp), keys);
-                cache = new Cache(keys, exp);
             }
-        } 
+
+            @Override
+            public void failed(IOException e)
+            {
+                refreshLock.lock();
+                try
+                {
+                    if (refreshAheadFraction > 0 && cache == c)
+                    {
+                        refreshAheadFailed(e);
+                    }
+                }
+                finally
+                {
+                    refreshLock.unlock();
+                }
+            }
+        });
+    }
+
+    private void refreshStaleSnapshot()
+    {
+        refreshLock.lock();
+        try
+        {
+            load();
+        }
+        catch (Exception e)
+        {
+            log.info("Because of {} unable to refresh stale JWKS snapshot content from {} in the background", ExceptionHelp.toStringWithCauses(e), location);
+        }
         finally
         {
             refreshLock.unlock();
         }
     }
 
+    // must hold the refreshLock
+    private void refreshAheadFailed(Exception e)
+    {
+        // keep using what's cached but try again in a bit, if it's worth it
+        long remaining = cache.exp - System.currentTimeMillis();
+        long retry = Math.max(remaining / 2, MIN_REFRESH_AHEAD_RETRY_MILLIS);
+        log.info("Because of {} unable to refresh JWKS content from {} in the background, will try again in {} mills", ExceptionHelp.toStringWithCauses(e), location, retry);
+        scheduleRefreshAhead(retry < remaining ? retry : -1);
+    }
+
     static long getDateHeaderValue(SimpleResponse response, String headerName, long defaultValue)
     {
         List<String> values = getHeaderValues(response, headerName);
@@ -292,16 +777,99 @@ public class HttpsJwks
         return life;
     }
 
+    private static final long MIN_REFRESH_AHEAD_RETRY_MILLIS = 1000L;
+    private static final long STALE_SNAPSHOT_GRACE_MILLIS = 30000L;
+
+    // holds only a weak reference so that an HttpsJwks that's no longer used doesn't keep getting refreshed
+    private static class RefreshAheadTask implements Runnable
+    {
+        private final WeakReference<HttpsJwks> httpsJwksReference;
+
+        private RefreshAheadTask(HttpsJwks httpsJwks)
+        {
+            httpsJwksReference = new WeakReference<>(httpsJwks);
+        }
+
+        @Override
+        public void run()
+        {
+            HttpsJwks httpsJwks = httpsJwksReference.get();
+            if (httpsJwks != null)
+            {
+                httpsJwks.refreshAhead();
+            }
+        }
+    }
+
+    private static class StaleSnapshotRefreshTask implements Runnable
+    {
+        private final WeakReference<HttpsJwks> httpsJwksReference;
+
+        private StaleSnapshotRefreshTask(HttpsJwks httpsJwks)
+        {
+            httpsJwksReference = new WeakReference<>(httpsJwks);
+        }
+
+        @Override
+        public void run()
+        {
+            HttpsJwks httpsJwks = httpsJwksReference.get();
+            if (httpsJwks != null)
+            {
+                httpsJwks.refreshStaleSnapshot();
+            }
+        }
+    }
+
+    private static class UnknownKeyIds
+    {
+        private final long timeToLive;
+        private final BoundedExpiringMap<String, Boolean> keyIds;
+
+        private UnknownKeyIds(int maxEntries, long timeToLive)
+        {
+            this.timeToLive = timeToLive;
+            this.keyIds = new BoundedExpiringMap<>(maxEntries);
+        }
+
+        private boolean contains(String keyId)
+        {
+            return keyIds.get(keyId) != null;
+        }
+
+        private void add(String keyId)
+        {
+            keyIds.put(keyId, Boolean.TRUE, System.currentTimeMillis() + timeToLive);
+        }
+
+        private void clear()
+        {
+            keyIds.clear();
+        }
+    }
+
     private static class Cache
     {
-        private final List<JsonWebKey> keys;
+        private final JsonWebKeyIndex index;
+        private final Map<Map<String, Object>, JsonWebKey> keysByParams;
         private final long exp;
-        private final long created = System.currentTimeMillis();
+        private final long created;
+        private final String etag;
+        private final String lastModified;
+
+        private Cache(JsonWebKeyIndex index, long exp)
+        {
+            this(index, Collections.<Map<String, Object>, JsonWebKey>emptyMap(), exp, null, null, System.currentTimeMillis());
+        }
 
-        private Cache(List<JsonWebKey> keys, long exp)
+        private Cache(JsonWebKeyIndex index, Map<Map<String, Object>, JsonWebKey> keysByParams, long exp, String etag, String lastModified, long created)
         {
-            this.keys = keys;
+            this.index = index;
+            this.keysByParams = keysByParams;
+            this.created = created;
             this.exp = exp;
+            this.etag = etag;
+            this.lastModified = lastModified;
         }
     }
 }
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.http.SimpleGet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps issuers to the location of their JWKS and hands out a shared {@link HttpsJwks} for each location,
+ * which is created the first time it's needed. This lets one {@code JwtConsumer}
+ * (with {@code IssuerHttpsJwksVerificationKeyResolver}) accept tokens from many issuers,
+ * each with their own keys, without an {@code HttpsJwks} having to be set up ahead of time for each.
+ * <p>
+ * Issuers are mapped either exactly with {@link #addIssuer(String, String)} or by a regular expression
+ * with {@link #addIssuerPattern(Pattern, String)}. Only mapped issuers get a JWKS, so the
+ * mappings also act as the list of trusted issuers.
+ * <p>
+ * The number of {@code HttpsJwks} held is bounded by {@link #setMaxEntries(int)} with the least recently
+ * used being dropped when there are too many, and ones that haven't been used for
+ * {@link #setMaxIdleTime(long)} are dropped too. A dropped one is simply created again (and its keys fetched again)
+ * if it's needed later.
+ *
+ * @see org.jose4j.keys.resolvers.IssuerHttpsJwksVerificationKeyResolver
+ */
+public class HttpsJwksRegistry
+{
+    private static final Logger log = LoggerFactory.getLogger(HttpsJwksRegistry.class);
+
+    private final Map<String, String> issuers = new ConcurrentHashMap<>();
+    private final List<IssuerPattern> issuerPatterns = new CopyOnWriteArrayList<>();
+
+    private volatile int maxEntries = 1000;
+    private volatile long maxIdleTime = 0;
+    private volatile SimpleGet simpleHttpGet;
+    private volatile JwksSnapshotStore snapshotStore;
+
+    // access ordered, so the least recently used is first; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Maps an issuer to the location of its JWKS.
+     * @param issuer the exact "iss" value
+     * @param jwksLocation the HTTPS URI of the issuer's JSON Web Key Set
+     */
+    public void addIssuer(String issuer, String jwksLocation)
+    {
+        issuers.put(issuer, jwksLocation);
+    }
+
+    /**
+     * Maps issuers that match a regular expression to the location of their JWKS.
+     * The whole issuer has to match and the location can refer to groups
+     * of the match the same way as {@link Matcher#replaceAll(String)}. For example,
+     * {@code Pattern.compile("https://login\\.example\\.com/([a-z0-9-]+)")} with
+     * {@code "https://login.example.com/$1/keys"}.
+     * Patterns are tried in the order they were added, after the exact issuers.
+     * @param issuerPattern the pattern to match against the "iss" value
+     * @param jwksLocationReplacement the HTTPS URI of the JSON Web Key Set, possibly with group references
+     */
+    public void addIssuerPattern(Pattern issuerPattern, String jwksLocationReplacement)
+    {
+        issuerPatterns.add(new IssuerPattern(issuerPattern, jwksLocationReplacement));
+    }
+
+    /**
+     * Sets the maximum number of HttpsJwks held, after which the least recently used is dropped. The default is 1000.
+     * @param maxEntries the maximum number of HttpsJwks
+     */
+    public void setMaxEntries(int maxEntries)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("The maximum number of entries must be at least 1 but was " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Sets how long an HttpsJwks can go unused before it's dropped. The default is 0, which means they're
+     * only dropped when there are more than the maximum number.
+     * @param maxIdleTime the time in seconds, or 0 to not drop idle ones
+     */
+    public void setMaxIdleTime(long maxIdleTime)
+    {
+        this.maxIdleTime = maxIdleTime * 1000L;
+    }
+
+    /**
+     * Sets the SimpleGet instance that the HttpsJwks created by this registry will use.
+     * When not set, each gets its own default {@link org.jose4j.http.Get}.
+     * @param simpleHttpGet the instance of the implementation of SimpleGet to use
+     */
+    public void setSimpleHttpGet(SimpleGet simpleHttpGet)
+    {
+        this.simpleHttpGet = simpleHttpGet;
+    }
+
+    /**
+     * Sets the store that the HttpsJwks created by this registry will save their content to and start out from.
+     * The snapshot for a location is removed from the store when its HttpsJwks is dropped from the registry.
+     * @param snapshotStore the store to use
+     * @see HttpsJwks#setSnapshotStore(JwksSnapshotStore)
+     */
+    public void setSnapshotStore(JwksSnapshotStore snapshotStore)
+    {
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Gets the location of the JWKS for an issuer.
+     * @param issuer the "iss" value
+     * @return the JWKS location or null if the issuer isn't mapped
+     */
+    public String getJwksLocation(String issuer)
+    {
+        if (issuer == null)
+        {
+            return null;
+        }
+
+        String location = issuers.get(issuer);
+        if (location == null)
+        {
+            for (IssuerPattern issuerPattern : issuerPatterns)
+            {
+                Matcher matcher = issuerPattern.pattern.matcher(issuer);
+                if (matcher.matches())
+                {
+                    location = matcher.replaceAll(issuerPattern.replacement);
+                    break;
+                }
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Gets the shared HttpsJwks for an issuer, creating it if needed.
+     * @param issuer the "iss" value
+     * @return the HttpsJwks or null if the issuer isn't mapped
+     */
+    public HttpsJwks getHttpsJwks(String issuer)
+    {
+        String location = getJwksLocation(issuer);
+        if (location == null)
+        {
+            return null;
+        }
+
+        HttpsJwks httpsJwks = getEntry(location, null);
+        if (httpsJwks == null)
+        {
+            // made without holding the lock, as it can mean reading a snapshot and parsing keys
+            HttpsJwks created = newHttpsJwks(location);
+            httpsJwks = getEntry(location, created);
+            if (httpsJwks != created)
+            {
+                // another thread got there first
+                created.setRefreshAhead(0);
+            }
+        }
+
+        return httpsJwks;
+    }
+
+    // gets the entry for the location, adding the created one if there isn't one already and one was given,
+    // and does the bookkeeping for the least recently used and idle ones
+    private HttpsJwks getEntry(String location, HttpsJwks created)
+    {
+        long now = now();
+        List<HttpsJwks> dropped = new ArrayList<>();
+        HttpsJwks httpsJwks = null;
+        synchronized (entries)
+        {
+            Entry entry = entries.get(location);
+            if (entry == null && created != null)
+            {
+                entry = new Entry(created);
+                entries.put(location, entry);
+            }
+
+            if (entry != null)
+            {
+                entry.lastUsed = now;
+                httpsJwks = entry.httpsJwks;
+            }
+
+            long idle = maxIdleTime;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext())
+            {
+                Entry eldest = iterator.next();
+                if (entries.size() > maxEntries || (idle > 0 && now - eldest.lastUsed > idle))
+                {
+                    iterator.remove();
+                    dropped.add(eldest.httpsJwks);
+                }
+                else
+                {
+                    break;
+                }
+            }
+        }
+
+        JwksSnapshotStore store = snapshotStore;
+        for (HttpsJwks d : dropped)
+        {
+            log.debug("Dropping HttpsJwks for {} from the registry", d.getLocation());
+            d.setRefreshAhead(0);
+            if (store != null)
+            {
+                store.remove(d.getLocation());
+            }
+        }
+        return httpsJwks;
+    }
+
+    /**
+     * @return the number of HttpsJwks currently held
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    long now()
+    {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Creates the HttpsJwks for a location. Override to configure them differently (cache durations, refresh-ahead and so on).
+     * @param location the HTTPS URI of the JSON Web Key Set
+     * @return a new HttpsJwks
+     */
+    protected HttpsJwks newHttpsJwks(String location)
+    {
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        SimpleGet get = simpleHttpGet;
+        if (get != null)
+        {
+            httpsJwks.setSimpleHttpGet(get);
+        }
+        JwksSnapshotStore store = snapshotStore;
+        if (store != null)
+        {
+            httpsJwks.setSnapshotStore(store);
+        }
+        return httpsJwks;
+    }
+
+    private static class IssuerPattern
+    {
+        private final Pattern pattern;
+        private final String replacement;
+
+        private IssuerPattern(Pattern pattern, String replacement)
+        {
+            this.pattern = pattern;
+            this.replacement = replacement;
+        }
+    }
+
+    private static class Entry
+    {
+        private final HttpsJwks httpsJwks;
+        private long lastUsed;
+
+        private Entry(HttpsJwks httpsJwks)
+        {
+            this.httpsJwks = httpsJwks;
+        }
+    }
+}
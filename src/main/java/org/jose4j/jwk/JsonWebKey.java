@@ -22,6 +22,7 @@ import org.jose4j.lang.HashUtil;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.JsonHelp;
 import org.jose4j.lang.StringUtil;
+import org.jose4j.lang.UncheckedJoseException;
 
 import java.io.Serializable;
 import java.security.Key;
@@ -32,6 +33,8 @@ import java.security.interfaces.RSAPublicKey;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  */
@@ -55,6 +58,11 @@ public abstract class JsonWebKey implements Serializable
 
     protected Key key;
 
+    // the parameters the key has yet to be made from, when that's put off until it's first needed
+    private volatile Map<String, Object> deferredKeyParams;
+
+    private transient volatile Thumbprints thumbprints;
+
     protected JsonWebKey(Key key)
     {
         this.key = key;
@@ -83,7 +91,7 @@ public abstract class JsonWebKey implements Serializable
     {
         try
         {
-            return (PublicKey) key;
+            return (PublicKey) getKey();
         }
         catch (Exception e)
         {
@@ -93,9 +101,61 @@ public abstract class JsonWebKey implements Serializable
 
     public Key getKey()
     {
+        materializeKey();
         return key;
     }
 
+    /**
+     * Makes the key from the JWK parameters. This is called by the constructor or, when the key is made lazily,
+     * the first time the key is needed. Subclasses that can make their key lazily override it.
+     * @param params the JWK parameters
+     * @throws JoseException if there's a problem making the key
+     */
+    protected void makeKey(Map<String, Object> params) throws JoseException
+    {
+    }
+
+    /**
+     * Puts off making the key with {@link #makeKey(Map)} until it's first needed.
+     * @param params the JWK parameters
+     */
+    protected void deferKey(Map<String, Object> params)
+    {
+        deferredKeyParams = params;
+    }
+
+    /**
+     * Makes the key, if that was put off, so that it's safe to use the key related fields.
+     * Problems making the key are thrown as an {@link UncheckedJoseException} (each time, as it isn't made).
+     */
+    protected void materializeKey()
+    {
+        if (deferredKeyParams != null)
+        {
+            synchronized (this)
+            {
+                Map<String, Object> params = deferredKeyParams;
+                if (params != null)
+                {
+                    try
+                    {
+                        makeKey(params);
+                    }
+                    catch (JoseException e)
+                    {
+                        throw new UncheckedJoseException("Unable to make the key from the JWK parameters: " + e, e);
+                    }
+                    deferredKeyParams = null;
+                }
+            }
+        }
+    }
+
+    Map<String, Object> getDeferredKeyParams()
+    {
+        return deferredKeyParams;
+    }
+
     public String getUse()
     {
         return use;
@@ -187,16 +247,46 @@ public abstract class JsonWebKey implements Serializable
 
     public String calculateBase64urlEncodedThumbprint(String hashAlgorithm)
     {
-        byte[] thumbprint = calculateThumbprint(hashAlgorithm);
-        return Base64Url.encode(thumbprint);
+        Thumbprints thumbs = getThumbprints();
+        String thumbprint = thumbs.encoded.get(hashAlgorithm);
+        if (thumbprint == null)
+        {
+            thumbprint = Base64Url.encode(calculateThumbprint(thumbs, hashAlgorithm));
+            thumbs.encoded.put(hashAlgorithm, thumbprint);
+        }
+        return thumbprint;
     }
 
     public byte[] calculateThumbprint(String hashAlgorithm)
     {
-        MessageDigest digest = HashUtil.getMessageDigest(hashAlgorithm);
-        String hashInputString = produceThumbprintHashInput();
-        byte[] hashInputBytes = StringUtil.getBytesUtf8(hashInputString);
-        return digest.digest(hashInputBytes);
+        return calculateThumbprint(getThumbprints(), hashAlgorithm).clone();
+    }
+
+    private byte[] calculateThumbprint(Thumbprints thumbs, String hashAlgorithm)
+    {
+        byte[] thumbprint = thumbs.raw.get(hashAlgorithm);
+        if (thumbprint == null)
+        {
+            MessageDigest digest = HashUtil.getMessageDigest(hashAlgorithm);
+            String hashInputString = produceThumbprintHashInput();
+            byte[] hashInputBytes = StringUtil.getBytesUtf8(hashInputString);
+            thumbprint = digest.digest(hashInputBytes);
+            thumbs.raw.put(hashAlgorithm, thumbprint);
+        }
+        return thumbprint;
+    }
+
+    // the thumbprint input is made only from the key so they're good for as long as it's the same key
+    private Thumbprints getThumbprints()
+    {
+        Key k = getKey();
+        Thumbprints thumbs = thumbprints;
+        if (thumbs == null || thumbs.key != k)
+        {
+            thumbs = new Thumbprints(k);
+            thumbprints = thumbs;
+        }
+        return thumbs;
     }
 
     protected abstract String produceThumbprintHashInput();
@@ -230,18 +320,36 @@ public abstract class JsonWebKey implements Serializable
         return value;
     }
 
+    private static class Thumbprints
+    {
+        private final Key key;
+        private final ConcurrentMap<String, byte[]> raw = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, String> encoded = new ConcurrentHashMap<>();
+
+        private Thumbprints(Key key)
+        {
+            this.key = key;
+        }
+    }
+
     public static class Factory
     {
         public static JsonWebKey newJwk(Map<String,Object> params) throws JoseException
+        {
+            return newJwk(params, false);
+        }
+
+        // with deferKey the (relatively expensive) making of public/private keys and parsing of certificates waits until they're used
+        static JsonWebKey newJwk(Map<String,Object> params, boolean deferKey) throws JoseException
         {
             String kty = getStringRequired(params, KEY_TYPE_PARAMETER);
 
             switch (kty)
             {
                 case RsaJsonWebKey.KEY_TYPE:
-                    return new RsaJsonWebKey(params);
+                    return new RsaJsonWebKey(params, null, deferKey);
                 case EllipticCurveJsonWebKey.KEY_TYPE:
-                    return new EllipticCurveJsonWebKey(params);
+                    return new EllipticCurveJsonWebKey(params, null, deferKey);
                 case OctetSequenceJsonWebKey.KEY_TYPE:
                     return new OctetSequenceJsonWebKey(params);
                 default:
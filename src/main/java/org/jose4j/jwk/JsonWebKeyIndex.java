@@ -0,0 +1,225 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of a list of JSON Web Keys that's indexed by "kid", "x5t", "x5t#S256" and ("kty", "use")
+ * so that {@link VerificationJwkSelector} and {@link DecryptionJwkSelector} can pick the key(s) for a JWS or JWE
+ * by looking at only the few keys that could possibly match rather than checking every key in the set.
+ * The selection results are the same (including their order) as selecting from the list of keys.
+ * <p>
+ * Build one when the set of keys is obtained and reuse it for as long as the keys are used. The values of the
+ * indexed parameters are taken when the index is built so changes to the JsonWebKey objects after that won't be reflected.
+ */
+public class JsonWebKeyIndex
+{
+    private final List<JsonWebKey> jsonWebKeys;
+    private final List<Entry> entries;
+
+    private final Map<String, List<Entry>> byKid = new HashMap<>();
+    private final Map<String, List<Entry>> byX5t = new HashMap<>();
+    private final Map<String, List<Entry>> byX5tS256 = new HashMap<>();
+    private final Map<String, List<Entry>> byKty = new HashMap<>();
+    private final Map<String, List<Entry>> byKtyAndUse = new HashMap<>();
+    private final List<Entry> withoutX5t = new ArrayList<>();
+    private final List<Entry> withoutX5tS256 = new ArrayList<>();
+
+    public JsonWebKeyIndex(Collection<? extends JsonWebKey> jsonWebKeys)
+    {
+        List<JsonWebKey> keys = new ArrayList<>(jsonWebKeys.size());
+        List<Entry> entries = new ArrayList<>(jsonWebKeys.size());
+        for (JsonWebKey jwk : jsonWebKeys)
+        {
+            Entry entry = new Entry(entries.size(), jwk);
+            keys.add(jwk);
+            entries.add(entry);
+
+            add(byKid, entry.kid, entry);
+            add(byKty, entry.kty, entry);
+            add(byKtyAndUse, ktyAndUse(entry.kty, entry.use), entry);
+            if (entry.x5t == null)
+            {
+                withoutX5t.add(entry);
+            }
+            else
+            {
+                add(byX5t, entry.x5t, entry);
+            }
+
+            if (entry.x5tS256 == null)
+            {
+                withoutX5tS256.add(entry);
+            }
+            else
+            {
+                add(byX5tS256, entry.x5tS256, entry);
+            }
+        }
+        this.jsonWebKeys = Collections.unmodifiableList(keys);
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return the keys in the index, in their original order
+     */
+    public List<JsonWebKey> getJsonWebKeys()
+    {
+        return jsonWebKeys;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    List<Entry> all()
+    {
+        return entries;
+    }
+
+    List<Entry> withKid(String kid)
+    {
+        return get(byKid, kid);
+    }
+
+    List<Entry> withKty(String kty)
+    {
+        return get(byKty, kty);
+    }
+
+    List<Entry> withKtyAndUse(String kty, String use, boolean orNoUse)
+    {
+        if (kty == null || (use == null && !orNoUse))
+        {
+            return Collections.emptyList();
+        }
+        else if (use == null)
+        {
+            return get(byKtyAndUse, ktyAndUse(kty, null));
+        }
+
+        List<Entry> withUse = get(byKtyAndUse, ktyAndUse(kty, use));
+        return orNoUse ? merge(withUse, get(byKtyAndUse, ktyAndUse(kty, null))) : withUse;
+    }
+
+    List<Entry> withX5t(String x5t, boolean orNoX5t)
+    {
+        List<Entry> withX5t = get(byX5t, x5t);
+        return orNoX5t ? merge(withX5t, withoutX5t) : withX5t;
+    }
+
+    List<Entry> withX5tS256(String x5tS256, boolean orNoX5tS256)
+    {
+        List<Entry> withX5tS256 = get(byX5tS256, x5tS256);
+        return orNoX5tS256 ? merge(withX5tS256, withoutX5tS256) : withX5tS256;
+    }
+
+    private static String ktyAndUse(String kty, String use)
+    {
+        return kty + "\n" + (use == null ? "" : use);
+    }
+
+    private static void add(Map<String, List<Entry>> index, String value, Entry entry)
+    {
+        if (value != null)
+        {
+            List<Entry> list = index.get(value);
+            if (list == null)
+            {
+                list = new ArrayList<>(1);
+                index.put(value, list);
+            }
+            list.add(entry);
+        }
+    }
+
+    private static List<Entry> get(Map<String, List<Entry>> index, String value)
+    {
+        List<Entry> list = (value == null) ? null : index.get(value);
+        return (list == null) ? Collections.<Entry>emptyList() : list;
+    }
+
+    // both lists are in key order, so keep it that way
+    private static List<Entry> merge(List<Entry> one, List<Entry> two)
+    {
+        if (one.isEmpty())
+        {
+            return two;
+        }
+        if (two.isEmpty())
+        {
+            return one;
+        }
+
+        List<Entry> merged = new ArrayList<>(one.size() + two.size());
+        int i = 0;
+        int j = 0;
+        while (i < one.size() && j < two.size())
+        {
+            merged.add(one.get(i).position < two.get(j).position ? one.get(i++) : two.get(j++));
+        }
+        merged.addAll(one.subList(i, one.size()));
+        merged.addAll(two.subList(j, two.size()));
+        return merged;
+    }
+
+    static class Entry
+    {
+        final int position;
+        final JsonWebKey jwk;
+        final String kid;
+        final String kty;
+        final String use;
+        final String alg;
+        final List<String> keyOps;
+        final String x5t;
+        final String x5tS256;
+        final String crv;
+
+        private Entry(int position, JsonWebKey jwk)
+        {
+            this.position = position;
+            this.jwk = jwk;
+            kid = jwk.getKeyId();
+            kty = jwk.getKeyType();
+            use = jwk.getUse();
+            alg = jwk.getAlgorithm();
+            keyOps = jwk.getKeyOps();
+
+            if (jwk instanceof PublicJsonWebKey)
+            {
+                PublicJsonWebKey publicJwk = (PublicJsonWebKey) jwk;
+                x5t = publicJwk.getX509CertificateSha1Thumbprint(true);
+                x5tS256 = publicJwk.getX509CertificateSha256Thumbprint(true);
+            }
+            else
+            {
+                x5t = null;
+                x5tS256 = null;
+            }
+
+            crv = (jwk instanceof EllipticCurveJsonWebKey) ? ((EllipticCurveJsonWebKey) jwk).getCurveName() : null;
+        }
+    }
+}
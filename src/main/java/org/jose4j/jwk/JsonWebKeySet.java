@@ -18,10 +18,12 @@ package org.jose4j.jwk;
 
 import org.jose4j.json.JsonUtil;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.SharedExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.RecursiveAction;
 
 /**
  */
@@ -31,10 +33,43 @@ public class JsonWebKeySet
 
     public static final String JWK_SET_MEMBER_NAME = "keys";
 
+    /**
+     * When the public and private keys (and certificates) of the JWKs are made from their parameters.
+     * <ul>
+     *     <li>EAGER - as each JWK is parsed, which is the default</li>
+     *     <li>LAZY - the first time a JWK's key or certificates are needed, which saves the work for keys that
+     *     are never used. Problems with the key parameters (other than missing ones) then show up as an
+     *     {@link org.jose4j.lang.UncheckedJoseException} at that point rather than the JWK being left out of the set.</li>
+     *     <li>PARALLEL - like EAGER, and with the same results, but the keys are made in parallel on a shared ForkJoinPool</li>
+     * </ul>
+     */
+    public enum KeyMaterialization {EAGER, LAZY, PARALLEL}
+
     private List<JsonWebKey> keys;
 
     public JsonWebKeySet(String json) throws JoseException
     {
+        this(json, KeyMaterialization.EAGER);
+    }
+
+    public JsonWebKeySet(String json, KeyMaterialization keyMaterialization) throws JoseException
+    {
+        this(json, keyMaterialization, null, null);
+    }
+
+    /**
+     * Parses the JWKS but, for each JWK with exactly the same parameters as one that's in {@code previous}, uses the
+     * existing JsonWebKey object rather than creating a new one. Creating a JsonWebKey can be relatively expensive (decoding
+     * big integers, generating the Key, parsing certificates) and keeping the same object means anything derived from it stays
+     * the same, so this makes reloading mostly unchanged JWKS content cheap.
+     * @param json the JWKS content
+     * @param keyMaterialization when the keys of new JsonWebKeys are made
+     * @param previous the JsonWebKeys from the last time, keyed by the parameters they were created from, or null
+     * @param current gets the JsonWebKeys from this time, keyed by the parameters they were created from, or null
+     */
+    JsonWebKeySet(String json, KeyMaterialization keyMaterialization, Map<Map<String,Object>, JsonWebKey> previous, Map<Map<String,Object>, JsonWebKey> current) throws JoseException
+    {
+        boolean deferKey = keyMaterialization != KeyMaterialization.EAGER;
         Map<String,Object> parsed = JsonUtil.parseJson(json);
         List<Map<String,Object>> jwkParamMapList = (List<Map<String,Object>>) parsed.get(JWK_SET_MEMBER_NAME);
 
@@ -48,14 +83,35 @@ public class JsonWebKeySet
         {
             try
             {
-                JsonWebKey jwk = JsonWebKey.Factory.newJwk(jwkParamsMap);
+                JsonWebKey jwk = (previous == null) ? null : previous.get(jwkParamsMap);
+                if (jwk == null)
+                {
+                    jwk = JsonWebKey.Factory.newJwk(jwkParamsMap, deferKey);
+                }
                 keys.add(jwk);
+                if (current != null)
+                {
+                    current.put(jwkParamsMap, jwk);
+                }
             }
             catch (Exception e)
             {
                 log.debug("Ignoring an individual JWK in a JWKS due to a problem processing it. JWK params: {} and the full JWKS content: {}. {}", jwkParamsMap, json, e);
             }
         }
+
+        if (keyMaterialization == KeyMaterialization.PARALLEL)
+        {
+            Materializer materializer = new Materializer(keys, 0, keys.size());
+            SharedExecutors.computation().invoke(materializer);
+            keys.removeAll(Collections.singleton(null));
+            if (current != null)
+            {
+                Set<JsonWebKey> kept = Collections.newSetFromMap(new IdentityHashMap<JsonWebKey, Boolean>());
+                kept.addAll(keys);
+                current.values().retainAll(kept);
+            }
+        }
     }
 
     public JsonWebKeySet(JsonWebKey... keys)
@@ -142,4 +198,47 @@ public class JsonWebKeySet
         jwks.put(JWK_SET_MEMBER_NAME, keyList);
         return JsonUtil.toJson(jwks);
     }
+
+    // makes the keys of a range of the list, leaving null in place of any that can't be made
+    private static class Materializer extends RecursiveAction
+    {
+        private static final int THRESHOLD = 16;
+
+        private final List<JsonWebKey> keys;
+        private final int from;
+        private final int to;
+
+        private Materializer(List<JsonWebKey> keys, int from, int to)
+        {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= THRESHOLD)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    JsonWebKey jwk = keys.get(i);
+                    try
+                    {
+                        jwk.materializeKey();
+                    }
+                    catch (Exception e)
+                    {
+                        log.debug("Ignoring an individual JWK in a JWKS due to a problem processing it. JWK: {}. {}", jwk.getKeyId(), e);
+                        keys.set(i, null);
+                    }
+                }
+            }
+            else
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Materializer(keys, from, middle), new Materializer(keys, middle, to));
+            }
+        }
+    }
 }
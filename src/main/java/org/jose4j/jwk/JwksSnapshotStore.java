@@ -0,0 +1,336 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.json.JsonUtil;
+import org.jose4j.lang.DaemonThreadFactory;
+import org.jose4j.lang.ExceptionHelp;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the last good JWKS content of any number of {@link HttpsJwks} in a single local file so that,
+ * after a restart, they can start out with the keys they had rather than all having to fetch them before
+ * the first JWT can be verified. See {@link HttpsJwks#setSnapshotStore(JwksSnapshotStore)}.
+ * <p>
+ * The file is read once, the first time a snapshot is asked for, and is rewritten (to a temporary file that's
+ * then moved into place, so readers never see a partial file) after an HttpsJwks using it loads new content
+ * or has unchanged content revalidated. Writing is done on a background thread, shared by all stores, so that
+ * refreshing keys doesn't wait on the disk, and changes made while a write is pending all go out in that one write.
+ * Use {@link #flush()} to wait for pending changes to be written. Snapshots of locations that are no longer
+ * needed can be dropped with {@link #remove(String)}, which {@link HttpsJwksRegistry} does when it drops an HttpsJwks.
+ * The file only holds public information (the JWKS content and its
+ * cache validators and expiration) but should still be somewhere that only the application can write to,
+ * because keys put in it would be trusted until they expire.
+ * A snapshot that expired more than {@link #setMaxStaleness(long) the maximum staleness} ago isn't used at all.
+ * One JwksSnapshotStore should be used per file.
+ */
+public class JwksSnapshotStore
+{
+    private static final Logger log = LoggerFactory.getLogger(JwksSnapshotStore.class);
+
+    private static final String BODY = "body";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+    private static final String CREATED = "created";
+    private static final String EXP = "exp";
+
+    private final File file;
+
+    private Map<String, Snapshot> snapshots;  // guarded by this
+
+    private final AtomicBoolean writePending = new AtomicBoolean();
+
+    private volatile long maxStaleness = 86400000L;  // milliseconds
+
+    public JwksSnapshotStore(File file)
+    {
+        this.file = file;
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Sets how long after it has expired a snapshot can still be used to start out with, while fresh content
+     * is retrieved in the background. An HttpsJwks ignores a snapshot older than that and retrieves the content
+     * before using any keys, because the keys in it might well have been pulled by then. The default is one day.
+     * @param maxStaleness the time in seconds
+     */
+    public void setMaxStaleness(long maxStaleness)
+    {
+        this.maxStaleness = maxStaleness * 1000L;
+    }
+
+    long getMaxStalenessMillis()
+    {
+        return maxStaleness;
+    }
+
+    /**
+     * Gets the snapshot of the content from a JWKS location.
+     * @param location the JWKS location
+     * @return the snapshot or null if there isn't one
+     */
+    public synchronized Snapshot get(String location)
+    {
+        return getSnapshots().get(location);
+    }
+
+    void put(String location, Snapshot snapshot)
+    {
+        synchronized (this)
+        {
+            getSnapshots().put(location, snapshot);
+        }
+        scheduleWrite();
+    }
+
+    // the same content but still good for longer
+    void revalidated(String location, String etag, String lastModified, long exp)
+    {
+        synchronized (this)
+        {
+            Snapshot snapshot = getSnapshots().get(location);
+            if (snapshot == null)
+            {
+                return;
+            }
+            getSnapshots().put(location, new Snapshot(snapshot.body, etag, lastModified, System.currentTimeMillis(), exp));
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Drops the snapshot of the content from a JWKS location, if there is one.
+     * @param location the JWKS location
+     */
+    public void remove(String location)
+    {
+        synchronized (this)
+        {
+            if (getSnapshots().remove(location) == null)
+            {
+                return;
+            }
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Waits for any changes that are pending to be written to the file.
+     */
+    public void flush()
+    {
+        try
+        {
+            Writer.EXECUTOR.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    // the writer does one thing at a time, in order, so anything pending has been written by now
+                }
+            }).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e)
+        {
+            log.warn("Unexpected problem waiting on JWKS snapshots to be written to {}: {}", file, ExceptionHelp.toStringWithCauses(e));
+        }
+    }
+
+    private void scheduleWrite()
+    {
+        if (writePending.compareAndSet(false, true))
+        {
+            Writer.EXECUTOR.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    writePending.set(false);
+                    Map<String, Snapshot> toWrite;
+                    synchronized (JwksSnapshotStore.this)
+                    {
+                        toWrite = new LinkedHashMap<>(snapshots);
+                    }
+                    write(toWrite);
+                }
+            });
+        }
+    }
+
+    private Map<String, Snapshot> getSnapshots()
+    {
+        if (snapshots == null)
+        {
+            snapshots = read();
+        }
+        return snapshots;
+    }
+
+    private Map<String, Snapshot> read()
+    {
+        Map<String, Snapshot> read = new LinkedHashMap<>();
+        if (!file.exists())
+        {
+            return read;
+        }
+
+        try
+        {
+            long start = System.currentTimeMillis();
+            Map<String, Object> json = JsonUtil.parseJson(StringUtil.newStringUtf8(Files.readAllBytes(file.toPath())));
+            for (Map.Entry<String, Object> entry : json.entrySet())
+            {
+                Map<?, ?> s = (Map<?, ?>) entry.getValue();
+                Snapshot snapshot = new Snapshot((String) s.get(BODY), (String) s.get(ETAG), (String) s.get(LAST_MODIFIED),
+                        ((Number) s.get(CREATED)).longValue(), ((Number) s.get(EXP)).longValue());
+                if (snapshot.body != null)
+                {
+                    read.put(entry.getKey(), snapshot);
+                }
+            }
+            log.debug("Read {} JWKS snapshots from {} in {} mills", read.size(), file, System.currentTimeMillis() - start);
+        }
+        catch (IOException | JoseException | RuntimeException e)
+        {
+            log.warn("Unable to read JWKS snapshots from {} so starting without them: {}", file, ExceptionHelp.toStringWithCauses(e));
+            read.clear();
+        }
+        return read;
+    }
+
+    private void write(Map<String, Snapshot> snapshots)
+    {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<String, Snapshot> entry : snapshots.entrySet())
+        {
+            Snapshot snapshot = entry.getValue();
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put(BODY, snapshot.body);
+            s.put(ETAG, snapshot.etag);
+            s.put(LAST_MODIFIED, snapshot.lastModified);
+            s.put(CREATED, snapshot.created);
+            s.put(EXP, snapshot.exp);
+            json.put(entry.getKey(), s);
+        }
+
+        Path target = file.toPath();
+        Path temp = null;
+        try
+        {
+            File dir = file.getAbsoluteFile().getParentFile();
+            temp = Files.createTempFile(dir.toPath(), file.getName(), ".tmp");
+            Files.write(temp, StringUtil.getBytesUtf8(JsonUtil.toJson(json)));
+            try
+            {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            log.warn("Unable to write JWKS snapshots to {}: {}", file, ExceptionHelp.toStringWithCauses(e));
+            if (temp != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(temp);
+                }
+                catch (IOException ioe)
+                {
+                    // ignore it
+                }
+            }
+        }
+    }
+
+    private static class Writer
+    {
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new DaemonThreadFactory("jose4j-jwks-snapshot-"));
+    }
+
+    /**
+     * The content of a JWKS along with its cache validators, when it was fetched and when it expires.
+     */
+    public static class Snapshot
+    {
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final long created;
+        private final long exp;
+
+        Snapshot(String body, String etag, String lastModified, long created, long exp)
+        {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.created = created;
+            this.exp = exp;
+        }
+
+        public String getBody()
+        {
+            return body;
+        }
+
+        public String getEtag()
+        {
+            return etag;
+        }
+
+        public String getLastModified()
+        {
+            return lastModified;
+        }
+
+        public long getCreated()
+        {
+            return created;
+        }
+
+        public long getExp()
+        {
+            return exp;
+        }
+    }
+}
@@ -16,9 +16,12 @@
 
 package org.jose4j.jwk;
 
+import org.jose4j.base64url.Base64;
+import org.jose4j.base64url.Base64Url;
 import org.jose4j.json.JsonUtil;
 import org.jose4j.keys.BigEndianBigInteger;
 import org.jose4j.keys.X509Util;
+import org.jose4j.lang.HashUtil;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.JsonHelp;
 
@@ -52,6 +55,8 @@ public abstract class PublicJsonWebKey extends JsonWebKey
     private String x5tS256;
     private String x5u;
 
+    private transient volatile DerivedX509Thumbprints derivedX509Thumbprints;
+
     protected PublicJsonWebKey(PublicKey publicKey)
     {
         super(publicKey);
@@ -63,22 +68,23 @@ public abstract class PublicJsonWebKey extends JsonWebKey
     }
 
     protected PublicJsonWebKey(Map<String,Object> params, String jcaProvider) throws JoseException
+    {
+        this(params, jcaProvider, false);
+    }
+
+    /**
+     * @param params the JWK parameters
+     * @param jcaProvider the JCA provider to use or null for the default
+     * @param deferKey true if the subclass will make its key (and so this parsing of the certificate chain) lazily
+     */
+    protected PublicJsonWebKey(Map<String,Object> params, String jcaProvider, boolean deferKey) throws JoseException
     {
         super(params);
         this.jcaProvider = jcaProvider;
 
-        if (params.containsKey(X509_CERTIFICATE_CHAIN_PARAMETER))
+        if (!deferKey)
         {
-            List<String> x5cStrings = JsonHelp.getStringArray(params, X509_CERTIFICATE_CHAIN_PARAMETER);
-            certificateChain = new ArrayList<X509Certificate>(x5cStrings.size());
-
-            X509Util x509Util = X509Util.getX509Util(jcaProvider);
-
-            for (String b64EncodedDer : x5cStrings)
-            {
-                X509Certificate x509Certificate = x509Util.fromBase64Der(b64EncodedDer);
-                certificateChain.add(x509Certificate);
-            }
+            parseCertificateChain(params);
         }
 
         x5t = getString(params, X509_THUMBPRINT_PARAMETER);
@@ -92,11 +98,39 @@ public abstract class PublicJsonWebKey extends JsonWebKey
                 X509_URL_PARAMETER);
     }
 
+    @Override
+    protected void makeKey(Map<String, Object> params) throws JoseException
+    {
+        if (certificateChain == null)
+        {
+            parseCertificateChain(params);
+        }
+    }
+
+    private void parseCertificateChain(Map<String, Object> params) throws JoseException
+    {
+        if (params.containsKey(X509_CERTIFICATE_CHAIN_PARAMETER))
+        {
+            List<String> x5cStrings = JsonHelp.getStringArray(params, X509_CERTIFICATE_CHAIN_PARAMETER);
+            List<X509Certificate> chain = new ArrayList<X509Certificate>(x5cStrings.size());
+
+            X509Util x509Util = X509Util.getX509Util(jcaProvider);
+
+            for (String b64EncodedDer : x5cStrings)
+            {
+                X509Certificate x509Certificate = x509Util.fromBase64Der(b64EncodedDer);
+                chain.add(x509Certificate);
+            }
+            certificateChain = chain;
+        }
+    }
+
     protected abstract void fillPublicTypeSpecificParams(Map<String,Object> params);
     protected abstract void fillPrivateTypeSpecificParams(Map<String,Object> params);
 
     protected void fillTypeSpecificParams(Map<String,Object> params, OutputControlLevel outputLevel)
     {
+        materializeKey();
         fillPublicTypeSpecificParams(params);
 
         if (certificateChain != null)
@@ -125,7 +159,7 @@ public abstract class PublicJsonWebKey extends JsonWebKey
 
     public PublicKey getPublicKey()
     {
-        return (PublicKey) key;
+        return (PublicKey) getKey();
     }
 
     /**
@@ -138,20 +172,29 @@ public abstract class PublicJsonWebKey extends JsonWebKey
 
     public PrivateKey getPrivateKey()
     {
+        materializeKey();
         return privateKey;
     }
 
     public void setPrivateKey(PrivateKey privateKey)
     {
+        materializeKey();
         this.privateKey = privateKey;
     }
 
     public List<X509Certificate> getCertificateChain()
     {
+        materializeKey();
         return certificateChain;
     }
 
     public X509Certificate getLeafCertificate()
+    {
+        materializeKey();
+        return leafCertificate();
+    }
+
+    private X509Certificate leafCertificate()
     {
         return (certificateChain != null && !certificateChain.isEmpty()) ? certificateChain.get(0) : null;
     }
@@ -166,10 +209,10 @@ public abstract class PublicJsonWebKey extends JsonWebKey
         String result = x5t;
         if (result == null && allowFallbackDeriveFromX5c)
         {
-            X509Certificate leafCertificate = getLeafCertificate();
-            if (leafCertificate != null)
+            DerivedX509Thumbprints derived = getDerivedX509Thumbprints();
+            if (derived != null)
             {
-                result = X509Util.x5t(leafCertificate);
+                result = derived.x5t;
             }
         }
 
@@ -186,16 +229,47 @@ public abstract class PublicJsonWebKey extends JsonWebKey
         String result = x5tS256;
         if (result == null && allowFallbackDeriveFromX5c)
         {
-            X509Certificate leafCertificate = getLeafCertificate();
-            if (leafCertificate != null)
+            DerivedX509Thumbprints derived = getDerivedX509Thumbprints();
+            if (derived != null)
             {
-                result = X509Util.x5tS256(leafCertificate);
+                result = derived.x5tS256;
             }
         }
 
         return result;
     }
 
+    // hashing the certificate is only done once for the same leaf certificate
+    private DerivedX509Thumbprints getDerivedX509Thumbprints()
+    {
+        Map<String, Object> deferredKeyParams = getDeferredKeyParams();
+        if (deferredKeyParams != null)
+        {
+            // the hashes are of the DER encoded certificate so there's no need to parse it just for them
+            DerivedX509Thumbprints derived = derivedX509Thumbprints;
+            if (derived == null)
+            {
+                derived = DerivedX509Thumbprints.fromX5c(deferredKeyParams);
+                derivedX509Thumbprints = derived;
+            }
+            return derived;
+        }
+
+        X509Certificate leafCertificate = getLeafCertificate();
+        if (leafCertificate == null)
+        {
+            return null;
+        }
+
+        DerivedX509Thumbprints derived = derivedX509Thumbprints;
+        if (derived == null || derived.leafCertificate != leafCertificate)
+        {
+            derived = new DerivedX509Thumbprints(leafCertificate);
+            derivedX509Thumbprints = derived;
+        }
+        return derived;
+    }
+
     public String getX509Url()
     {
         return x5u;
@@ -203,9 +277,11 @@ public abstract class PublicJsonWebKey extends JsonWebKey
 
     public void setCertificateChain(List<X509Certificate> certificateChain)
     {
+        materializeKey();
         checkForBareKeyCertMismatch();
 
         this.certificateChain = certificateChain;
+        derivedX509Thumbprints = null;
     }
 
     public void setX509CertificateSha1Thumbprint(String x5t)
@@ -223,14 +299,15 @@ public abstract class PublicJsonWebKey extends JsonWebKey
         this.x5u = x5u;
     }
 
+    // uses the fields directly because it's called while the key is being made
     void checkForBareKeyCertMismatch()
     {
-        X509Certificate leafCertificate = getLeafCertificate();
-        boolean certAndBareKeyMismatch = leafCertificate != null && !leafCertificate.getPublicKey().equals(getPublicKey());
+        X509Certificate leafCertificate = leafCertificate();
+        boolean certAndBareKeyMismatch = leafCertificate != null && !leafCertificate.getPublicKey().equals(key);
         if (certAndBareKeyMismatch)
         {
             throw new IllegalArgumentException( "The key in the first certificate MUST match the bare public key " +
-                "represented by other members of the JWK. Public key = " + getPublicKey() + " cert = " + leafCertificate);
+                "represented by other members of the JWK. Public key = " + key + " cert = " + leafCertificate);
         }
     }
 
@@ -296,4 +373,42 @@ public abstract class PublicJsonWebKey extends JsonWebKey
             return newPublicJwk(parsed, jcaProvider);
         }
     }
-}
\ No newline at end of file
+
+    private static class DerivedX509Thumbprints
+    {
+        private final X509Certificate leafCertificate;
+        private final String x5t;
+        private final String x5tS256;
+
+        private DerivedX509Thumbprints(X509Certificate leafCertificate)
+        {
+            this.leafCertificate = leafCertificate;
+            x5t = X509Util.x5t(leafCertificate);
+            x5tS256 = X509Util.x5tS256(leafCertificate);
+        }
+
+        private DerivedX509Thumbprints(String x5t, String x5tS256)
+        {
+            this.leafCertificate = null;
+            this.x5t = x5t;
+            this.x5tS256 = x5tS256;
+        }
+
+        private static DerivedX509Thumbprints fromX5c(Map<String, Object> params)
+        {
+            List<String> x5cStrings = JsonHelp.getStringArray(params, X509_CERTIFICATE_CHAIN_PARAMETER);
+            if (x5cStrings == null || x5cStrings.isEmpty())
+            {
+                return null;
+            }
+
+            byte[] der = Base64.decode(x5cStrings.get(0));
+            return new DerivedX509Thumbprints(thumbprint(der, "SHA-1"), thumbprint(der, "SHA-256"));
+        }
+
+        private static String thumbprint(byte[] der, String hashAlg)
+        {
+            return Base64Url.encode(HashUtil.getMessageDigest(hashAlg).digest(der));
+        }
+    }
+}
@@ -61,7 +61,38 @@ public class RsaJsonWebKey extends PublicJsonWebKey
 
     public RsaJsonWebKey(Map<String, Object> params, String jcaProvider) throws JoseException
     {
-        super(params, jcaProvider);
+        this(params, jcaProvider, false);
+    }
+
+    RsaJsonWebKey(Map<String, Object> params, String jcaProvider, boolean deferKey) throws JoseException
+    {
+        super(params, jcaProvider, deferKey);
+
+        if (deferKey)
+        {
+            getString(params, MODULUS_MEMBER_NAME, true);
+            getString(params, EXPONENT_MEMBER_NAME, true);
+            deferKey(params);
+        }
+        else
+        {
+            makeKey(params);
+        }
+
+        removeFromOtherParams(MODULUS_MEMBER_NAME,
+                EXPONENT_MEMBER_NAME,
+                PRIVATE_EXPONENT_MEMBER_NAME,
+                FIRST_PRIME_FACTOR_MEMBER_NAME,
+                SECOND_PRIME_FACTOR_MEMBER_NAME,
+                FIRST_FACTOR_CRT_EXPONENT_MEMBER_NAME,
+                SECOND_FACTOR_CRT_EXPONENT_MEMBER_NAME,
+                FIRST_CRT_COEFFICIENT_MEMBER_NAME);
+    }
+
+    @Override
+    protected void makeKey(Map<String, Object> params) throws JoseException
+    {
+        super.makeKey(params);
 
         BigInteger modulus = getBigIntFromBase64UrlEncodedParam(params, MODULUS_MEMBER_NAME, true);
 
@@ -89,15 +120,6 @@ public class RsaJsonWebKey extends PublicJsonWebKey
                 privateKey = rsaKeyUtil.privateKey(modulus, d);
             }
         }
-
-        removeFromOtherParams(MODULUS_MEMBER_NAME,
-                EXPONENT_MEMBER_NAME,
-                PRIVATE_EXPONENT_MEMBER_NAME,
-                FIRST_PRIME_FACTOR_MEMBER_NAME,
-                SECOND_PRIME_FACTOR_MEMBER_NAME,
-                FIRST_FACTOR_CRT_EXPONENT_MEMBER_NAME,
-                SECOND_FACTOR_CRT_EXPONENT_MEMBER_NAME,
-                FIRST_CRT_COEFFICIENT_MEMBER_NAME);
     }
 
     public String getKeyType()
@@ -107,7 +129,7 @@ public class RsaJsonWebKey extends PublicJsonWebKey
 
     public RSAPublicKey getRsaPublicKey()
     {
-        return (RSAPublicKey) key;
+        return (RSAPublicKey) getKey();
     }
 
     /**
@@ -120,7 +142,7 @@ public class RsaJsonWebKey extends PublicJsonWebKey
 
     public RSAPrivateKey getRsaPrivateKey()
     {
-        return (RSAPrivateKey) privateKey;
+        return (RSAPrivateKey) getPrivateKey();
     }
 
     protected void fillPublicTypeSpecificParams(Map<String,Object> params)
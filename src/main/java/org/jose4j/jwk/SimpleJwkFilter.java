@@ -15,6 +15,7 @@
 */
 package org.jose4j.jwk;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -107,6 +108,74 @@ public class SimpleJwkFilter
         return filtered;
     }
 
+    /**
+     * Filters the keys in the index with the same results as {@link #filter(Collection)} would on
+     * {@link JsonWebKeyIndex#getJsonWebKeys()} but only checks those keys that the index says could match.
+     * @param index the indexed keys
+     * @return the keys that meet the criteria
+     */
+    public List<JsonWebKey> filter(JsonWebKeyIndex index)
+    {
+        List<JsonWebKey> filtered = new ArrayList<>(1);
+        for (JsonWebKeyIndex.Entry entry : candidates(index))
+        {
+            boolean match = isMatch(kid, entry.kid);
+            match &= isMatch(kty, entry.kty);
+            match &= isMatch(use, entry.use);
+            match &= isMatch(alg, entry.alg);
+            if (match && (x5t != null || x5tS256 != null))
+            {
+                String[] thumbs = allowThumbsFallbackDeriveFromX5c
+                        ? new String[] {entry.x5t, entry.x5tS256}
+                        : getThumbs(entry.jwk, false);
+                match = isMatch(x5t, thumbs[0]) && isMatch(x5tS256, thumbs[1]);
+            }
+            match &= isMatch(crv, entry.crv);
+            match &= keyOps == null || keyOps.meetsCriteria(entry.keyOps);
+
+            if (match)
+            {
+                filtered.add(entry.jwk);
+            }
+        }
+        return filtered;
+    }
+
+    private List<JsonWebKeyIndex.Entry> candidates(JsonWebKeyIndex index)
+    {
+        if (kid != null && !kid.noValueOk)
+        {
+            return index.withKid(kid.value);
+        }
+
+        List<JsonWebKeyIndex.Entry> candidates = index.all();
+        if (kty != null)
+        {
+            candidates = (use != null)
+                    ? index.withKtyAndUse(kty.value, use.value, use.noValueOk)
+                    : index.withKty(kty.value);
+        }
+
+        // the thumbprints in the index were derived from x5c if need be
+        if (allowThumbsFallbackDeriveFromX5c)
+        {
+            if (x5t != null)
+            {
+                candidates = smaller(candidates, index.withX5t(x5t.value, x5t.noValueOk));
+            }
+            if (x5tS256 != null)
+            {
+                candidates = smaller(candidates, index.withX5tS256(x5tS256.value, x5tS256.noValueOk));
+            }
+        }
+        return candidates;
+    }
+
+    private static List<JsonWebKeyIndex.Entry> smaller(List<JsonWebKeyIndex.Entry> one, List<JsonWebKeyIndex.Entry> two)
+    {
+        return one.size() <= two.size() ? one : two;
+    }
+
     boolean isMatch(Criteria criteria, String value)
     {
         return (criteria == null) || criteria.meetsCriteria(value);
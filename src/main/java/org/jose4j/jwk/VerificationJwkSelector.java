@@ -34,11 +34,26 @@ public class VerificationJwkSelector
         return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
     }
 
+    public JsonWebKey select(JsonWebSignature jws, JsonWebKeyIndex keys) throws JoseException
+    {
+        List<JsonWebKey> jsonWebKeys = selectList(jws, keys);
+        return jsonWebKeys.isEmpty() ? null : jsonWebKeys.get(0);
+    }
+
     public List<JsonWebKey> selectList(JsonWebSignature jws, Collection<JsonWebKey> keys) throws JoseException
     {
         SimpleJwkFilter filter = SelectorSupport.filterForInboundSigned(jws);
-        List<JsonWebKey> filtered = filter.filter(keys);
+        return narrow(jws, filter, filter.filter(keys));
+    }
+
+    public List<JsonWebKey> selectList(JsonWebSignature jws, JsonWebKeyIndex keys) throws JoseException
+    {
+        SimpleJwkFilter filter = SelectorSupport.filterForInboundSigned(jws);
+        return narrow(jws, filter, filter.filter(keys));
+    }
 
+    private List<JsonWebKey> narrow(JsonWebSignature jws, SimpleJwkFilter filter, List<JsonWebKey> filtered) throws JoseException
+    {
         if (hasMoreThanOne(filtered))
         {
             filter.setAlg(jws.getAlgorithmHeaderValue(), SimpleJwkFilter.OMITTED_OKAY);
@@ -60,7 +75,16 @@ public class VerificationJwkSelector
 
     public JsonWebKey selectWithVerifySignatureDisambiguate(JsonWebSignature jws, Collection<JsonWebKey> keys) throws JoseException
     {
-        List<JsonWebKey> jsonWebKeys = selectList(jws, keys);
+        return disambiguateWithVerifySignature(jws, selectList(jws, keys));
+    }
+
+    public JsonWebKey selectWithVerifySignatureDisambiguate(JsonWebSignature jws, JsonWebKeyIndex keys) throws JoseException
+    {
+        return disambiguateWithVerifySignature(jws, selectList(jws, keys));
+    }
+
+    private JsonWebKey disambiguateWithVerifySignature(JsonWebSignature jws, List<JsonWebKey> jsonWebKeys) throws JoseException
+    {
         if (jsonWebKeys.isEmpty())
         {
             return null;
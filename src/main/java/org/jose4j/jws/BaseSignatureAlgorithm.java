@@ -16,6 +16,7 @@
 
 package org.jose4j.jws;
 
+import org.jose4j.jca.JcaProviders;
 import org.jose4j.jca.ProviderContext;
 import org.jose4j.jwa.AlgorithmInfo;
 import org.jose4j.keys.KeyPersuasion;
@@ -34,8 +35,13 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
 {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    private static final int MAX_POOLED_VERIFICATION_KEYS = 128;
+    private static final int MAX_IDLE_SIGNATURES_PER_KEY = 16;
+
     private AlgorithmParameterSpec algorithmParameterSpec;
 
+    private final SignaturePool verificationSignaturePool = new SignaturePool(MAX_POOLED_VERIFICATION_KEYS, MAX_IDLE_SIGNATURES_PER_KEY);
+
     public BaseSignatureAlgorithm(String id, String javaAlgo, String keyAlgo)
     {
         setAlgorithmIdentifier(id);
@@ -52,18 +58,34 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
     @Override
     public boolean verifySignature(byte[] signatureBytes, Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
-        Signature signature = getSignature(providerContext);
-        initForVerify(signature, key);
+        String sigProvider = providerContext.getSuppliedKeyProviderContext().getSignatureProvider();
+        PublicKey publicKey = (key instanceof PublicKey) ? (PublicKey) key : null;
+        Signature signature = (publicKey == null) ? null : verificationSignaturePool.take(publicKey, sigProvider);
+        if (signature == null)
+        {
+            signature = getSignature(providerContext);
+            initForVerify(signature, key);
+        }
+
+        boolean verified;
         try
         {
             signature.update(securedInputBytes);
-            return signature.verify(signatureBytes);
+            verified = signature.verify(signatureBytes);
         }
         catch (SignatureException e)
         {
+            // the state of the Signature isn't well defined after an exception so it doesn't go back in the pool
             if (log.isDebugEnabled()) {log.debug("Problem verifying signature: " + e);}
             return false;
         }
+
+        // verify() leaves it as it was right after initVerify so it can be used for this key again
+        if (publicKey != null)
+        {
+            verificationSignaturePool.give(publicKey, sigProvider, signature);
+        }
+        return verified;
     }
 
     @Override
@@ -129,7 +151,7 @@ public abstract class BaseSignatureAlgorithm extends AlgorithmInfo implements Js
         try
         {
 
-            Signature signature = sigProvider == null ? Signature.getInstance(javaAlg) : Signature.getInstance(javaAlg, sigProvider);
+            Signature signature = sigProvider == null ? Signature.getInstance(javaAlg) : Signature.getInstance(javaAlg, JcaProviders.getProvider(sigProvider));
             if (algorithmParameterSpec != null)
             {
                 try
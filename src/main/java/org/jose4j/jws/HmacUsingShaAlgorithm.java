@@ -24,9 +24,9 @@ import org.jose4j.keys.KeyPersuasion;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.InvalidKeyException;
 import org.jose4j.lang.JoseException;
+import org.jose4j.mac.MacPool;
 import org.jose4j.mac.MacUtil;
 
-import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import java.security.Key;
 
@@ -52,22 +52,20 @@ public class HmacUsingShaAlgorithm extends AlgorithmInfo implements JsonWebSigna
             throw new InvalidKeyException(key.getClass() + " cannot be used for HMAC verification.");
         }
 
-        Mac mac = getMacInstance(key, providerContext);
-        byte[] calculatedSigature = mac.doFinal(securedInputBytes);
+        byte[] calculatedSigature = doFinal(key, securedInputBytes, providerContext);
 
         return ByteUtil.secureEquals(signatureBytes, calculatedSigature);
     }
 
     public byte[] sign(Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
-        Mac mac = getMacInstance(key, providerContext);
-        return mac.doFinal(securedInputBytes);
+        return doFinal(key, securedInputBytes, providerContext);
     }
 
-    private Mac getMacInstance(Key key, ProviderContext providerContext) throws JoseException
+    private byte[] doFinal(Key key, byte[] securedInputBytes, ProviderContext providerContext) throws JoseException
     {
         String macProvider = providerContext.getSuppliedKeyProviderContext().getMacProvider();
-        return MacUtil.getInitializedMac(getJavaAlgorithm(), key, macProvider);
+        return MacPool.getInstance().doFinal(getJavaAlgorithm(), key, macProvider, securedInputBytes);
     }
 
     void validateKey(Key key) throws InvalidKeyException
@@ -19,6 +19,7 @@ package org.jose4j.jws;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwa.AlgorithmFactory;
 import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.jose4j.jwx.CompactSerializationParts;
 import org.jose4j.jwx.CompactSerializer;
 import org.jose4j.jwx.HeaderParameterNames;
 import org.jose4j.jwx.JsonWebStructure;
@@ -43,6 +44,7 @@ public class JsonWebSignature extends JsonWebStructure
     private byte[] payloadBytes;
     private String payloadCharEncoding = StringUtil.UTF_8;
     private String encodedPayload;
+    private CompactSerializationParts encodedPayloadParts;
 
     private Boolean validSignature;
 
@@ -112,6 +114,21 @@ public class JsonWebSignature extends JsonWebStructure
         setSignature(base64url.base64UrlDecode(parts[2]));
     }
 
+    @Override
+    protected void setCompactSerializationParts(CompactSerializationParts parts) throws JoseException
+    {
+        if (parts.size() != COMPACT_SERIALIZATION_PARTS)
+        {
+            throw new JoseException("A JWS Compact Serialization must have exactly "+COMPACT_SERIALIZATION_PARTS+" parts separated by period ('.') characters");
+        }
+
+        setEncodedHeader(parts);
+        this.payloadBytes = parts.decode(1);
+        this.encodedPayload = null;
+        this.encodedPayloadParts = parts;
+        setSignature(parts.decode(2));
+    }
+
     /**
      * <p>
      * Sign and produce the JWS Compact Serialization.
@@ -221,14 +238,9 @@ public class JsonWebSignature extends JsonWebStructure
             throw new InvalidAlgorithmException("Signature algorithm header ("+HeaderParameterNames.ALGORITHM+") not set.");
         }
 
-        if (checkConstraints)
-        {
-            getAlgorithmConstraints().checkConstraint(algo);
-        }
-
         AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
         AlgorithmFactory<JsonWebSignatureAlgorithm> jwsAlgorithmFactory = factoryFactory.getJwsAlgorithmFactory();
-        return jwsAlgorithmFactory.getAlgorithm(algo);
+        return checkConstraints ? jwsAlgorithmFactory.getAlgorithm(algo, getAlgorithmConstraints()) : jwsAlgorithmFactory.getAlgorithm(algo);
     }
 
 
@@ -249,6 +261,13 @@ public class JsonWebSignature extends JsonWebStructure
 
         if (!isRfc7797UnencodedPayload())
         {
+            CompactSerializationParts parts = getCompactSerializationPartsWithCurrentHeader();
+            if (parts != null && parts == encodedPayloadParts)
+            {
+                // the encoded header and payload are unchanged so the signing input is right there in the original
+                return parts.getAsciiBytes(0, 1);
+            }
+
             String signingInputString = CompactSerializer.serialize(getEncodedHeader(), getEncodedPayload());
             return StringUtil.getBytesAscii(signingInputString);
         }
@@ -342,6 +361,7 @@ public class JsonWebSignature extends JsonWebStructure
     public void setEncodedPayload(String encodedPayload)
     {
         this.encodedPayload = encodedPayload;
+        this.encodedPayloadParts = null;
         this.payloadBytes = base64url.base64UrlDecode(encodedPayload);
     }
 
@@ -351,6 +371,10 @@ public class JsonWebSignature extends JsonWebStructure
      */
     public String getEncodedPayload()
     {
+        if (encodedPayload == null && encodedPayloadParts != null)
+        {
+            encodedPayload = encodedPayloadParts.get(1);
+        }
         return (encodedPayload != null) ? encodedPayload : base64url.base64UrlEncode(payloadBytes);
     }
 
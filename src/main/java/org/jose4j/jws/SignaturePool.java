@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jws;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds Signature instances that have already been through initVerify with a particular public key so that
+ * verifying with the same key again skips the provider lookup, the parameter setup and the key import.
+ * After verify() a Signature is back in the state it was in right after initVerify so it can be used again as is.
+ *
+ * There's one pool per signature algorithm instance (so the algorithm and any parameter spec are implied)
+ * and instances are found by the identity of the key object and the provider name. Keys are only weakly
+ * referenced so when a key is no longer used anywhere else, like after a JWKS refresh drops it, its entry goes away.
+ * The number of keys is also bounded, with the oldest entries dropped first.
+ */
+class SignaturePool
+{
+    private final int maxKeys;
+    private final int maxIdlePerKey;
+
+    private final ConcurrentMap<KeyRef, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<KeyRef> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final ReferenceQueue<PublicKey> collectedKeys = new ReferenceQueue<>();
+
+    SignaturePool(int maxKeys, int maxIdlePerKey)
+    {
+        this.maxKeys = maxKeys;
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    /**
+     * @return a Signature already initialized to verify with the key or null if there isn't one available
+     */
+    Signature take(PublicKey key, String provider)
+    {
+        expungeCollectedKeys();
+        Entry entry = entries.get(new KeyRef(key, provider, null));
+        if (entry == null)
+        {
+            return null;
+        }
+
+        Signature signature = entry.idle.poll();
+        if (signature != null)
+        {
+            entry.idleCount.decrementAndGet();
+        }
+        return signature;
+    }
+
+    /**
+     * Puts back a Signature that was initialized to verify with the key and has since been used to verify
+     * (successfully or not, as long as it didn't throw).
+     */
+    void give(PublicKey key, String provider, Signature signature)
+    {
+        KeyRef keyRef = new KeyRef(key, provider, collectedKeys);
+        Entry entry = entries.get(keyRef);
+        if (entry == null)
+        {
+            entry = new Entry();
+            Entry existing = entries.putIfAbsent(keyRef, entry);
+            if (existing == null)
+            {
+                insertionOrder.add(keyRef);
+                evictIfNeeded();
+            }
+            else
+            {
+                entry = existing;
+            }
+        }
+
+        if (entry.idleCount.incrementAndGet() <= maxIdlePerKey)
+        {
+            entry.idle.offer(signature);
+        }
+        else
+        {
+            entry.idleCount.decrementAndGet();
+        }
+    }
+
+    int size()
+    {
+        expungeCollectedKeys();
+        return entries.size();
+    }
+
+    void clear()
+    {
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    private void evictIfNeeded()
+    {
+        while (entries.size() > maxKeys)
+        {
+            KeyRef oldest = insertionOrder.poll();
+            if (oldest == null)
+            {
+                break;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    private void expungeCollectedKeys()
+    {
+        Reference<? extends PublicKey> collected;
+        while ((collected = collectedKeys.poll()) != null)
+        {
+            entries.remove(collected);
+            insertionOrder.remove(collected);
+        }
+    }
+
+    private static class Entry
+    {
+        private final Queue<Signature> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+    }
+
+    private static class KeyRef extends WeakReference<PublicKey>
+    {
+        private final String provider;
+        private final int hashCode;
+
+        private KeyRef(PublicKey key, String provider, ReferenceQueue<PublicKey> queue)
+        {
+            super(key, queue);
+            this.provider = provider;
+            this.hashCode = System.identityHashCode(key) * 31 + (provider == null ? 0 : provider.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof KeyRef))
+            {
+                return false;
+            }
+            KeyRef other = (KeyRef) o;
+            PublicKey key = get();
+            return key != null
+                    && key == other.get()
+                    && (provider == null ? other.provider == null : provider.equals(other.provider));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
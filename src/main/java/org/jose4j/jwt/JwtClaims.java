@@ -24,6 +24,7 @@ import org.jose4j.jwt.consumer.InvalidJwtException;
 import org.jose4j.jwt.consumer.JwtContext;
 import org.jose4j.lang.ByteUtil;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
 
 import java.util.*;
 
@@ -34,6 +35,7 @@ public class JwtClaims
 {
     private Map<String, Object> claimsMap;
     private String rawJson;
+    private byte[] rawJsonBytes;
 
     public JwtClaims()
     {
@@ -56,6 +58,35 @@ public class JwtClaims
         }
     }
 
+    private JwtClaims(byte[] utf8JsonClaims, JwtContext jwtContext) throws InvalidJwtException
+    {
+        rawJsonBytes = utf8JsonClaims;
+        try
+        {
+            Map<String, Object> parsed = JsonUtil.parseJson(utf8JsonClaims, 0, utf8JsonClaims.length);
+            claimsMap = new LinkedHashMap<>(parsed);
+        }
+        catch (JoseException e)
+        {
+            String msg = "Unable to parse what was expected to be the JWT Claim Set JSON: \"" + getRawJson() + "\"";
+            ErrorCodeValidator.Error error = new ErrorCodeValidator.Error(ErrorCodes.JSON_INVALID, "Invalid JSON.");
+            throw new InvalidJwtException(msg, error, e, jwtContext);
+        }
+    }
+
+    /**
+     * Parses the claims directly from the UTF-8 bytes of the JSON, such as a JWS payload or JWE plaintext,
+     * without first decoding them into a String.
+     * @param utf8JsonClaims the UTF-8 encoded JSON of the JWT Claims Set
+     * @param jwtContext the context, if any, for use in the exception on failure
+     * @return the claims
+     * @throws InvalidJwtException if the bytes aren't a valid JSON object
+     */
+    public static JwtClaims parse(byte[] utf8JsonClaims, JwtContext jwtContext) throws InvalidJwtException
+    {
+        return new JwtClaims(utf8JsonClaims, jwtContext);
+    }
+
     public static JwtClaims parse(String jsonClaims, JwtContext jwtContext) throws InvalidJwtException
     {
         return new JwtClaims(jsonClaims, jwtContext);
@@ -457,6 +488,10 @@ public class JwtClaims
 
     public String getRawJson()
     {
+        if (rawJson == null && rawJsonBytes != null)
+        {
+            rawJson = StringUtil.newStringUtf8(rawJsonBytes);
+        }
         return rawJson;
     }
 
@@ -25,7 +25,7 @@ import java.util.Set;
 /**
  * Validate the "aud" (Audience) Claim per http://tools.ietf.org/html/rfc7519#section-4.1.3
  */
-public class AudValidator implements ErrorCodeValidator
+public class AudValidator implements EarlyRejectionValidator
 {
     private static final Error MISSING_AUD = new Error(ErrorCodes.AUDIENCE_MISSING, "No Audience (aud) claim present.");
 
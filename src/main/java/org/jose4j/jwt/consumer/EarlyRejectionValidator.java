@@ -0,0 +1,27 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+/**
+ * Marks an {@link ErrorCodeValidator} that can be run on the claims of a JWT before its signature has been verified,
+ * when early rejection is enabled with {@link JwtConsumerBuilder#setEnableEarlyRejection()}.
+ * An implementation must not have side effects (like remembering a jti to detect replay) and
+ * must not trust anything about the claims other than to reject them, because they may well have been forged.
+ * The built-in validators for the standard claims are all early rejection validators.
+ */
+public interface EarlyRejectionValidator extends ErrorCodeValidator
+{
+}
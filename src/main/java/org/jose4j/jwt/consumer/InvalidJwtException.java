@@ -42,6 +42,13 @@ public class InvalidJwtException extends Exception
         details = Collections.singletonList(detail);
     }
 
+    InvalidJwtException(String message, List<ErrorCodeValidator.Error> details, Throwable cause, JwtContext jwtContext)
+    {
+        super(message, cause);
+        this.details = details;
+        this.jwtContext = jwtContext;
+    }
+
     /**
      * <p>
      * Provides programmatic access to (some) specific reasons for JWT invalidity
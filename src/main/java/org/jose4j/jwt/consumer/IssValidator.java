@@ -25,7 +25,7 @@ import java.util.Set;
 /**
  *
  */
-public class IssValidator implements ErrorCodeValidator
+public class IssValidator implements EarlyRejectionValidator
 {
     private Set<String> expectedIssuers;
     private boolean requireIssuer;
@@ -21,7 +21,7 @@ import org.jose4j.jwt.MalformedClaimException;
 /**
  *
  */
-public class JtiValidator implements ErrorCodeValidator
+public class JtiValidator implements EarlyRejectionValidator
 {
     private static final Error MISSING_JTI = new Error(ErrorCodes.JWT_ID_MISSING, "The JWT ID (jti) claim is not present.");
 
@@ -24,16 +24,34 @@ import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwx.JsonWebStructure;
 import org.jose4j.keys.KeyPersuasion;
+import org.jose4j.keys.resolvers.AsyncDecryptionKeyResolver;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
 import org.jose4j.keys.resolvers.DecryptionKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
 import org.jose4j.keys.resolvers.VerificationKeyResolver;
 import org.jose4j.lang.ExceptionHelp;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.SharedExecutors;
+import org.jose4j.lang.StringUtil;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.security.Key;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
 
 import static org.jose4j.jws.AlgorithmIdentifiers.NONE;
 import static org.jose4j.jwt.consumer.ErrorCodes.*;
@@ -43,10 +61,13 @@ import static org.jose4j.jwt.consumer.ErrorCodes.*;
  */
 public class JwtConsumer
 {
+    private static final Logger log = LoggerFactory.getLogger(JwtConsumer.class);
+
     private VerificationKeyResolver verificationKeyResolver;
     private DecryptionKeyResolver decryptionKeyResolver;
 
     private List<ErrorCodeValidator> validators;
+    private List<ErrorCodeValidator> earlyRejectionValidators;
 
     private AlgorithmConstraints jwsAlgorithmConstraints;
     private AlgorithmConstraints jweAlgorithmConstraints;
@@ -72,6 +93,12 @@ public class JwtConsumer
     private JwsCustomizer jwsCustomizer;
     private JweCustomizer jweCustomizer;
 
+    private VerifiedJwtCache verifiedJwtCache;
+    private RejectedJwtCache rejectedJwtCache;
+
+    private ForkJoinPool batchPool;
+    private Executor asyncExecutor;
+
     JwtConsumer()
     {
     }
@@ -106,6 +133,11 @@ public class JwtConsumer
         this.validators = validators;
     }
 
+    void setEarlyRejectionValidators(List<ErrorCodeValidator> earlyRejectionValidators)
+    {
+        this.earlyRejectionValidators = earlyRejectionValidators;
+    }
+
     void setRequireSignature(boolean requireSignature)
     {
         this.requireSignature = requireSignature;
@@ -166,12 +198,58 @@ public class JwtConsumer
         this.jweCustomizer = jweCustomizer;
     }
 
+    void setVerifiedJwtCache(VerifiedJwtCache verifiedJwtCache)
+    {
+        this.verifiedJwtCache = verifiedJwtCache;
+    }
+
+    /**
+     * Gets the cache of successfully processed JWTs, which has hit and miss counts.
+     * @return the cache or null, if this JwtConsumer wasn't built with one
+     * @see JwtConsumerBuilder#setVerifiedJwtCache(int, int)
+     */
+    public VerifiedJwtCache getVerifiedJwtCache()
+    {
+        return verifiedJwtCache;
+    }
+
+    void setRejectedJwtCache(RejectedJwtCache rejectedJwtCache)
+    {
+        this.rejectedJwtCache = rejectedJwtCache;
+    }
+
+    /**
+     * Gets the cache of recently rejected JWTs, which has hit and miss counts.
+     * @return the cache or null, if this JwtConsumer wasn't built with one
+     * @see JwtConsumerBuilder#setRejectedJwtCache(int, int)
+     */
+    public RejectedJwtCache getRejectedJwtCache()
+    {
+        return rejectedJwtCache;
+    }
+
+    void setBatchPool(ForkJoinPool batchPool)
+    {
+        this.batchPool = batchPool;
+    }
+
+    void setAsyncExecutor(Executor asyncExecutor)
+    {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     public JwtClaims processToClaims(String jwt) throws InvalidJwtException
     {
         return process(jwt).getJwtClaims();
     }
 
     public void processContext(JwtContext jwtContext) throws InvalidJwtException
+    {
+        verify(jwtContext, verificationKeyResolver, decryptionKeyResolver);
+        validate(jwtContext);
+    }
+
+    private void verify(JwtContext jwtContext, VerificationKeyResolver verificationKeyResolver, DecryptionKeyResolver decryptionKeyResolver) throws InvalidJwtException
     {
         boolean hasSignature = false;
         boolean hasEncryption = false;
@@ -307,11 +385,328 @@ public class JwtConsumer
             throw new InvalidJwtException("The JWT has no integrity protection (signature/MAC or symmetric AEAD encryption) " +
                     "but the JWT Consumer is configured to require it: " + jwtContext.getJwt(), errors, jwtContext);
         }
+    }
+
+    public JwtContext process(String jwt) throws InvalidJwtException
+    {
+        return process(jwt, verificationKeyResolver, decryptionKeyResolver, true);
+    }
+
+    private JwtContext process(String jwt, VerificationKeyResolver verificationKeyResolver, DecryptionKeyResolver decryptionKeyResolver,
+                               boolean checkCaches) throws InvalidJwtException
+    {
+        if (checkCaches)
+        {
+            JwtContext cachedJwtContext = fromCaches(jwt);
+            if (cachedJwtContext != null)
+            {
+                return cachedJwtContext;
+            }
+        }
+
+        // processAsync has already done it before resolving the key for the outermost JWS
+        // (and it's not done in the try below because the rejected JWT cache isn't for claims rejections)
+        JwtContext unverifiedContext = null;
+        if (earlyRejectionValidators != null && !(verificationKeyResolver instanceof PreResolvedKey))
+        {
+            unverifiedContext = rejectEarly(jwt);
+        }
+
+        JwtContext jwtContext;
+        if (rejectedJwtCache != null)
+        {
+            try
+            {
+                jwtContext = parseAndVerify(jwt, unverifiedContext, verificationKeyResolver, decryptionKeyResolver);
+            }
+            catch (InvalidJwtException e)
+            {
+                rejectedJwtCache.put(jwt, e);
+                throw e;
+            }
+        }
+        else
+        {
+            jwtContext = parseAndVerify(jwt, unverifiedContext, verificationKeyResolver, decryptionKeyResolver);
+        }
 
         validate(jwtContext);
+
+        if (verifiedJwtCache != null)
+        {
+            verifiedJwtCache.put(jwtContext);
+        }
+        return jwtContext;
     }
 
-    public JwtContext process(String jwt) throws InvalidJwtException
+    // the context of an already verified JWT (with the claims checked again) or null if it's not cached,
+    // or an exception if the JWT was already rejected
+    private JwtContext fromCaches(String jwt) throws InvalidJwtException
+    {
+        if (verifiedJwtCache != null)
+        {
+            JwtContext cachedJwtContext = verifiedJwtCache.get(jwt);
+            if (cachedJwtContext != null)
+            {
+                // everything but the claims checks was already done the first time around
+                JwtContext jwtContext = new JwtContext(jwt, cachedJwtContext.getJwtClaims(), cachedJwtContext.getJoseObjects());
+                validate(jwtContext);
+                return jwtContext;
+            }
+        }
+
+        if (rejectedJwtCache != null)
+        {
+            rejectedJwtCache.check(jwt);
+        }
+        return null;
+    }
+
+    /**
+     * Processes a batch of JWTs, spread over the ForkJoinPool set with {@link JwtConsumerBuilder#setBatchPool(ForkJoinPool)}
+     * (or a shared default one), with each processed just as {@link #process(String)} would.
+     * JWTs with the same JOSE header, which will usually resolve to the same key, are processed together so that
+     * whatever the key resolver and JCA provider keep around for that key gets reused while it's still hot.
+     * One JWT failing doesn't affect the others.
+     * @param jwts the JWTs to process
+     * @return a result for each JWT, in the same order as the JWTs were given
+     */
+    public List<JwtProcessingResult> processAll(Collection<String> jwts)
+    {
+        String[] batch = jwts.toArray(new String[jwts.size()]);
+        final String[] headers = new String[batch.length];
+        Integer[] order = new Integer[batch.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            headers[i] = header(batch[i]);
+            order[i] = i;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer i1, Integer i2)
+            {
+                return headers[i1].compareTo(headers[i2]);
+            }
+        });
+
+        JwtProcessingResult[] results = new JwtProcessingResult[batch.length];
+        ForkJoinPool pool = (batchPool == null) ? SharedExecutors.computation() : batchPool;
+        pool.invoke(new BatchTask(batch, order, results, 0, order.length));
+        return Arrays.asList(results);
+    }
+
+    private JwtProcessingResult processToResult(String jwt, VerificationKeyResolver verificationKeyResolver, DecryptionKeyResolver decryptionKeyResolver,
+                                                boolean checkCaches)
+    {
+        try
+        {
+            return new JwtProcessingResult(jwt, process(jwt, verificationKeyResolver, decryptionKeyResolver, checkCaches), null);
+        }
+        catch (InvalidJwtException e)
+        {
+            return new JwtProcessingResult(jwt, null, e);
+        }
+        catch (RuntimeException e)
+        {
+            // process(String) would have thrown it but it needs to be part of the result here
+            return new JwtProcessingResult(jwt, null, unexpected(jwt, e));
+        }
+    }
+
+    private static InvalidJwtException unexpected(String jwt, Throwable e)
+    {
+        ErrorCodeValidator.Error error = new ErrorCodeValidator.Error(MISCELLANEOUS, e.toString());
+        return new InvalidJwtException("Unexpected problem processing " + jwt + ": " + ExceptionHelp.toStringWithCauses(e), error, e, null);
+    }
+
+    /**
+     * Same as {@link #processAsync(String, Callback)} without a callback.
+     * @param jwt the JWT to process
+     * @return a Future for the context of the processed JWT
+     */
+    public Future<JwtContext> processAsync(String jwt)
+    {
+        return processAsync(jwt, null);
+    }
+
+    /**
+     * Processes the JWT, just as {@link #process(String)} would, without the calling thread waiting on key resolution
+     * or doing the cryptographic work. When the resolver for the outermost JWS or JWE is an
+     * {@link AsyncVerificationKeyResolver} or {@link AsyncDecryptionKeyResolver}, the key is resolved asynchronously
+     * (which, for {@link org.jose4j.keys.resolvers.HttpsJwksVerificationKeyResolver}, means it's immediate when the
+     * cached keys are good and otherwise they're retrieved on its own executor). The rest of the processing, including
+     * resolving keys for any nested JOSE objects with the regular resolvers, is done on the executor set with
+     * {@link JwtConsumerBuilder#setAsyncExecutor(Executor)}. A JWT found in the verified or rejected JWT cache
+     * is done straight away without resolving any key.
+     * @param jwt the JWT to process
+     * @param callback told the outcome when processing is done, may be null
+     * @return a Future for the context of the processed JWT, which fails with an InvalidJwtException as the cause if processing does
+     */
+    public Future<JwtContext> processAsync(final String jwt, Callback callback)
+    {
+        final ContextFuture future = new ContextFuture(callback);
+
+        // a JWT that's already been verified or rejected doesn't need its key resolved
+        try
+        {
+            JwtContext cachedJwtContext = fromCaches(jwt);
+            if (cachedJwtContext != null)
+            {
+                future.complete(new JwtProcessingResult(jwt, cachedJwtContext, null));
+                return future;
+            }
+        }
+        catch (InvalidJwtException e)
+        {
+            future.complete(new JwtProcessingResult(jwt, null, e));
+            return future;
+        }
+
+        JsonWebStructure joseObject = null;
+        try
+        {
+            joseObject = JsonWebStructure.fromCompactSerialization(jwt);
+        }
+        catch (JoseException | RuntimeException e)
+        {
+            // leave it to the regular processing to fail in the regular way
+        }
+
+        KeyResolutionCallback keyCallback = new KeyResolutionCallback()
+        {
+            @Override
+            public void resolved(Key key)
+            {
+                finishAsync(jwt, new PreResolvedKey(key, null), future);
+            }
+
+            @Override
+            public void failed(UnresolvableKeyException e)
+            {
+                finishAsync(jwt, new PreResolvedKey(null, e), future);
+            }
+        };
+
+        try
+        {
+            List<JsonWebStructure> nestingContext = Collections.emptyList();
+            if (joseObject instanceof JsonWebSignature && verificationKeyResolver instanceof AsyncVerificationKeyResolver)
+            {
+                JsonWebSignature jws = (JsonWebSignature) joseObject;
+                boolean isNoneAlg = NONE.equals(jws.getAlgorithmHeaderValue());
+                if (!skipSignatureVerification && (!isNoneAlg || !skipVerificationKeyResolutionOnNone))
+                {
+                    if (earlyRejectionValidators != null)
+                    {
+                        try
+                        {
+                            rejectEarly(jwt, jws);
+                        }
+                        catch (InvalidJwtException e)
+                        {
+                            future.complete(new JwtProcessingResult(jwt, null, e));
+                            return future;
+                        }
+                    }
+
+                    // set up as it would be for key resolution when processing synchronously
+                    if (jwsProviderContext != null)
+                    {
+                        jws.setProviderContext(jwsProviderContext);
+                    }
+                    if (relaxVerificationKeyValidation)
+                    {
+                        jws.setDoKeyValidation(false);
+                    }
+                    if (jwsAlgorithmConstraints != null)
+                    {
+                        jws.setAlgorithmConstraints(jwsAlgorithmConstraints);
+                    }
+                    ((AsyncVerificationKeyResolver) verificationKeyResolver).resolveKeyAsync(jws, nestingContext, keyCallback);
+                    return future;
+                }
+            }
+            else if (joseObject instanceof JsonWebEncryption && decryptionKeyResolver instanceof AsyncDecryptionKeyResolver)
+            {
+                JsonWebEncryption jwe = (JsonWebEncryption) joseObject;
+                if (jweProviderContext != null)
+                {
+                    jwe.setProviderContext(jweProviderContext);
+                }
+                if (relaxDecryptionKeyValidation)
+                {
+                    jwe.setDoKeyValidation(false);
+                }
+                if (jweContentEncryptionAlgorithmConstraints != null)
+                {
+                    jwe.setContentEncryptionAlgorithmConstraints(jweContentEncryptionAlgorithmConstraints);
+                }
+                ((AsyncDecryptionKeyResolver) decryptionKeyResolver).resolveKeyAsync(jwe, nestingContext, keyCallback);
+                return future;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            log.debug("Problem resolving the key asynchronously for {} so it'll be resolved when processing: {}", jwt, ExceptionHelp.toStringWithCauses(e));
+        }
+
+        finishAsync(jwt, null, future);
+        return future;
+    }
+
+    private void finishAsync(final String jwt, PreResolvedKey preResolvedKey, final ContextFuture future)
+    {
+        if (future.isCancelled())
+        {
+            return;
+        }
+
+        final VerificationKeyResolver vkr = (preResolvedKey == null) ? verificationKeyResolver : preResolvedKey;
+        final DecryptionKeyResolver dkr = (preResolvedKey == null) ? decryptionKeyResolver : preResolvedKey;
+        Executor executor = (asyncExecutor != null) ? asyncExecutor : (batchPool != null) ? batchPool : SharedExecutors.computation();
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    JwtProcessingResult result;
+                    try
+                    {
+                        // processAsync already looked in the caches
+                        result = processToResult(jwt, vkr, dkr, false);
+                    }
+                    catch (RuntimeException | Error e)
+                    {
+                        // processToResult shouldn't throw but the future has to be completed regardless
+                        result = new JwtProcessingResult(jwt, null, unexpected(jwt, e));
+                    }
+                    future.complete(result);
+                }
+            });
+        }
+        catch (RuntimeException e)
+        {
+            future.complete(new JwtProcessingResult(jwt, null, unexpected(jwt, e)));
+        }
+    }
+
+    private static String header(String jwt)
+    {
+        if (jwt == null)
+        {
+            return "";
+        }
+        int dot = jwt.indexOf('.');
+        return dot == -1 ? jwt : jwt.substring(0, dot);
+    }
+
+    // what was parsed for the early rejection, if anything, is used again rather than parsing it all over
+    private JwtContext parseAndVerify(String jwt, JwtContext unverifiedContext, VerificationKeyResolver verificationKeyResolver,
+                                      DecryptionKeyResolver decryptionKeyResolver) throws InvalidJwtException
     {
         String workingJwt = jwt;
         JwtClaims jwtClaims = null;
@@ -324,12 +719,25 @@ public class JwtConsumer
             JsonWebStructure joseObject;
             try
             {
-                joseObject = JsonWebStructure.fromCompactSerialization(workingJwt);
-                String payload;
+                JwtClaims unverifiedClaims = null;
+                if (unverifiedContext != null)
+                {
+                    joseObject = unverifiedContext.getJoseObjects().get(0);
+                    unverifiedClaims = unverifiedContext.getJwtClaims();
+                    unverifiedContext = null;
+                }
+                else
+                {
+                    joseObject = JsonWebStructure.fromCompactSerialization(workingJwt);
+                }
+
+                byte[] payloadBytes;
+                String payloadCharEncoding;
                 if (joseObject instanceof JsonWebSignature)
                 {
                     JsonWebSignature jws = (JsonWebSignature) joseObject;
-                    payload = jws.getUnverifiedPayload();
+                    payloadBytes = jws.getUnverifiedPayloadBytes();
+                    payloadCharEncoding = jws.getPayloadCharEncoding();
                 }
                 else
                 {
@@ -363,18 +771,29 @@ public class JwtConsumer
                         jweCustomizer.customize(jwe, nestingContext);
                     }
 
-                    payload = jwe.getPayload();
+                    payloadBytes = jwe.getPlaintextBytes();
+                    payloadCharEncoding = jwe.getPlainTextCharEncoding();
                 }
 
                 if (isNestedJwt(joseObject))
                 {
-                    workingJwt = payload;
+                    workingJwt = StringUtil.newString(payloadBytes, payloadCharEncoding);
                 }
                 else
                 {
                     try
                     {
-                        jwtClaims = JwtClaims.parse(payload, jwtContext);
+                        // the claims JSON can be parsed straight from the bytes rather than decoding to a String first
+                        if (unverifiedClaims != null)
+                        {
+                            jwtClaims = unverifiedClaims;
+                        }
+                        else
+                        {
+                            jwtClaims = StringUtil.UTF_8.equalsIgnoreCase(payloadCharEncoding)
+                                    ? JwtClaims.parse(payloadBytes, jwtContext)
+                                    : JwtClaims.parse(StringUtil.newString(payloadBytes, payloadCharEncoding), jwtContext);
+                        }
                         jwtContext.setJwtClaims(jwtClaims);
                     }
                     catch (InvalidJwtException ije)
@@ -384,7 +803,7 @@ public class JwtConsumer
                             try
                             {
                                 JsonWebStructure.fromCompactSerialization(jwt);
-                                workingJwt = payload;
+                                workingJwt = StringUtil.newString(payloadBytes, payloadCharEncoding);
                             }
                             catch (JoseException je)
                             {
@@ -430,11 +849,66 @@ public class JwtConsumer
             }
         }
 
-        processContext(jwtContext);
+        verify(jwtContext, verificationKeyResolver, decryptionKeyResolver);
         return jwtContext;
     }
 
     void validate(JwtContext jwtCtx) throws InvalidJwtException
+    {
+        List<ErrorCodeValidator.Error> issues = findIssues(jwtCtx, validators);
+        if (!issues.isEmpty())
+        {
+            String msg = "JWT (claims->" + jwtCtx.getJwtClaims().getRawJson() + ") rejected due to invalid claims.";
+            throw new InvalidJwtException(msg, issues, jwtCtx);
+        }
+    }
+
+    private JwtContext rejectEarly(String jwt) throws InvalidJwtException
+    {
+        JsonWebStructure joseObject;
+        try
+        {
+            joseObject = JsonWebStructure.fromCompactSerialization(jwt);
+        }
+        catch (JoseException | RuntimeException e)
+        {
+            // leave it to the regular processing to fail in the regular way
+            return null;
+        }
+        return rejectEarly(jwt, joseObject);
+    }
+
+    // runs the early rejection validators on the claims of an outermost JWS before its signature is verified,
+    // returning a context with the outermost JOSE object and, if they could be parsed, its unverified claims
+    private JwtContext rejectEarly(String jwt, JsonWebStructure joseObject) throws InvalidJwtException
+    {
+        JwtContext jwtContext = new JwtContext(jwt, null, Collections.singletonList(joseObject));
+        if (!(joseObject instanceof JsonWebSignature) || isNestedJwt(joseObject))
+        {
+            // the claims of a JWE or a nested JWT aren't there to see yet
+            return jwtContext;
+        }
+
+        JsonWebSignature jws = (JsonWebSignature) joseObject;
+        try
+        {
+            jwtContext.setJwtClaims(JwtClaims.parse(jws.getUnverifiedPayload(), jwtContext));
+        }
+        catch (InvalidJwtException | RuntimeException e)
+        {
+            return jwtContext;
+        }
+
+        List<ErrorCodeValidator.Error> issues = findIssues(jwtContext, earlyRejectionValidators);
+        if (!issues.isEmpty())
+        {
+            String msg = "JWT (unverified claims->" + jwtContext.getJwtClaims().getRawJson() + ") rejected due to invalid claims before its signature was verified.";
+            throw new InvalidJwtException(msg, issues, jwtContext);
+        }
+        return jwtContext;
+    }
+
+    private List<ErrorCodeValidator.Error> findIssues(JwtContext jwtCtx, List<ErrorCodeValidator> validators)
     {
         List<ErrorCodeValidator.Error> issues = new ArrayList<>();
         for (ErrorCodeValidator validator : validators)
@@ -459,12 +933,7 @@ public class JwtConsumer
                 issues.add(error);
             }
         }
-
-        if (!issues.isEmpty())
-        {
-            String msg = "JWT (claims->" + jwtCtx.getJwtClaims().getRawJson() + ") rejected due to invalid claims.";
-            throw new InvalidJwtException(msg, issues, jwtCtx);
-        }
+        return issues;
     }
 
     private boolean isNestedJwt(JsonWebStructure joseObject)
@@ -473,4 +942,140 @@ public class JwtConsumer
         return cty != null && (cty.equalsIgnoreCase("jwt") || cty.equalsIgnoreCase("application/jwt"));
     }
 
+    private class BatchTask extends RecursiveAction
+    {
+        private static final int THRESHOLD = 8;
+
+        private final String[] batch;
+        private final Integer[] order;
+        private final JwtProcessingResult[] results;
+        private final int from;
+        private final int to;
+
+        private BatchTask(String[] batch, Integer[] order, JwtProcessingResult[] results, int from, int to)
+        {
+            this.batch = batch;
+            this.order = order;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= THRESHOLD)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    int index = order[i];
+                    results[index] = processToResult(batch[index], verificationKeyResolver, decryptionKeyResolver, true);
+                }
+            }
+            else
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(batch, order, results, from, middle), new BatchTask(batch, order, results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Receives the outcome of {@link #processAsync(String, Callback)}. It's called on a thread of the
+     * executor so should not do anything that takes long.
+     */
+    public interface Callback
+    {
+        void completed(JwtContext jwtContext);
+
+        void failed(InvalidJwtException e);
+    }
+
+    // a resolver for the outermost JOSE object that's already been resolved, asynchronously, and regular resolution for nested ones
+    private class PreResolvedKey implements VerificationKeyResolver, DecryptionKeyResolver
+    {
+        private final Key key;
+        private final UnresolvableKeyException exception;
+
+        private PreResolvedKey(Key key, UnresolvableKeyException exception)
+        {
+            this.key = key;
+            this.exception = exception;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            return nestingContext.isEmpty() ? outermost() : verificationKeyResolver.resolveKey(jws, nestingContext);
+        }
+
+        @Override
+        public Key resolveKey(JsonWebEncryption jwe, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            return nestingContext.isEmpty() ? outermost() : decryptionKeyResolver.resolveKey(jwe, nestingContext);
+        }
+
+        private Key outermost() throws UnresolvableKeyException
+        {
+            if (exception != null)
+            {
+                throw exception;
+            }
+            return key;
+        }
+    }
+
+    private static class ContextFuture extends FutureTask<JwtContext>
+    {
+        private static final Callable<JwtContext> NOTHING = new Callable<JwtContext>()
+        {
+            @Override
+            public JwtContext call()
+            {
+                throw new IllegalStateException("only completed by the JwtConsumer");
+            }
+        };
+
+        private final Callback callback;
+
+        private ContextFuture(Callback callback)
+        {
+            super(NOTHING);
+            this.callback = callback;
+        }
+
+        private void complete(JwtProcessingResult result)
+        {
+            if (result.isValid())
+            {
+                set(result.getJwtContext());
+            }
+            else
+            {
+                setException(result.getException());
+            }
+        }
+
+        @Override
+        protected void done()
+        {
+            if (callback == null || isCancelled())
+            {
+                return;
+            }
+
+            try
+            {
+                callback.completed(get());
+            }
+            catch (ExecutionException e)
+            {
+                callback.failed((InvalidJwtException) e.getCause());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();  // can't happen as it's done
+            }
+        }
+    }
 }
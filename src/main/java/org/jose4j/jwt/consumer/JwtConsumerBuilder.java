@@ -24,6 +24,8 @@ import org.jose4j.keys.resolvers.VerificationKeyResolver;
 
 import java.security.Key;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <p>
@@ -97,6 +99,8 @@ public class JwtConsumerBuilder
 
     private boolean relaxDecryptionKeyValidation;
 
+    private boolean earlyRejection;
+
     private boolean skipAllValidators = false;
     private boolean skipAllDefaultValidators = false;
 
@@ -108,6 +112,15 @@ public class JwtConsumerBuilder
     private JwsCustomizer jwsCustomizer;
     private JweCustomizer jweCustomizer;
 
+    private int verifiedJwtCacheMaxEntries;
+    private int verifiedJwtCacheMaxTimeToLiveSeconds;
+
+    private int rejectedJwtCacheMaxEntries;
+    private int rejectedJwtCacheTimeToLiveSeconds;
+
+    private ForkJoinPool batchPool;
+    private Executor asyncExecutor;
+
     /**
      * Creates a new JwtConsumerBuilder, which is set up by default to build a JwtConsumer
      * that requires a signature and will validate the core JWT claims when they
@@ -670,6 +683,85 @@ public class JwtConsumerBuilder
         return this;
     }
 
+    /**
+     * Have the JwtConsumer remember JWTs that it has successfully processed so that, when the exact same JWT
+     * is processed again, only the claims validators (including the expiration time and other date checks) are run and
+     * the parsing, key resolution, decryption and signature verification are skipped.
+     * A JWT is remembered until its expiration time or the given maximum time to live, whichever comes first.
+     * Hit and miss counts are available from {@link JwtConsumer#getVerifiedJwtCache()}.
+     * @param maxEntries the most JWTs to remember at once
+     * @param maxTimeToLiveSeconds the longest to remember any JWT
+     * @return the same JwtConsumerBuilder
+     * @see VerifiedJwtCache
+     */
+    public JwtConsumerBuilder setVerifiedJwtCache(int maxEntries, int maxTimeToLiveSeconds)
+    {
+        this.verifiedJwtCacheMaxEntries = maxEntries;
+        this.verifiedJwtCacheMaxTimeToLiveSeconds = maxTimeToLiveSeconds;
+        return this;
+    }
+
+    /**
+     * Have the JwtConsumer briefly remember JWTs that failed parsing, key resolution, decryption or signature verification
+     * so that, when the exact same JWT is processed again within the time to live, it's rejected straight away
+     * with the same error codes. Keep the time to live short, a minute or so, because a JWT rejected for
+     * an unknown key might be fine once the issuer's new key is available.
+     * Hit and miss counts are available from {@link JwtConsumer#getRejectedJwtCache()}.
+     * @param maxEntries the most rejected JWTs to remember at once
+     * @param timeToLiveSeconds how long to remember each rejected JWT
+     * @return the same JwtConsumerBuilder
+     * @see RejectedJwtCache
+     */
+    public JwtConsumerBuilder setRejectedJwtCache(int maxEntries, int timeToLiveSeconds)
+    {
+        this.rejectedJwtCacheMaxEntries = maxEntries;
+        this.rejectedJwtCacheTimeToLiveSeconds = timeToLiveSeconds;
+        return this;
+    }
+
+    /**
+     * Have the JwtConsumer check the claims of a signed JWT with the {@link EarlyRejectionValidator}s
+     * (the expiration time, audience, issuer and other standard claims checks, plus any custom validators that are
+     * early rejection validators) before the verification key is resolved and the signature is verified,
+     * so that JWTs that would be rejected for their claims anyway are turned away without the cost of doing so.
+     * JWTs that pass are still fully verified and validated with all the validators, as they would be otherwise,
+     * so the same JWTs are accepted. A JWT that's rejected early, however, gets the claims error codes even if its
+     * signature wouldn't have verified and the JwtContext of the InvalidJwtException has claims that weren't verified.
+     * Encrypted and nested JWTs aren't checked early, because their claims can't be seen without decrypting.
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setEnableEarlyRejection()
+    {
+        earlyRejection = true;
+        return this;
+    }
+
+    /**
+     * Sets the pool that {@link JwtConsumer#processAll(Collection)} spreads the work of processing a batch of JWTs over.
+     * When not set, a pool shared by all JwtConsumers (and other CPU bound work of this library) with parallelism
+     * equal to the number of processors is used.
+     * @param batchPool the ForkJoinPool to use for batches
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setBatchPool(ForkJoinPool batchPool)
+    {
+        this.batchPool = batchPool;
+        return this;
+    }
+
+    /**
+     * Sets the executor that {@link JwtConsumer#processAsync(String, JwtConsumer.Callback)} does the processing
+     * of JWTs (decryption, signature verification and validation) on.
+     * When not set, the batch pool is used (see {@link #setBatchPool(ForkJoinPool)}).
+     * @param asyncExecutor the Executor to use for asynchronous processing
+     * @return the same JwtConsumerBuilder
+     */
+    public JwtConsumerBuilder setAsyncExecutor(Executor asyncExecutor)
+    {
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
     /**
      * Create the JwtConsumer with the options provided to the builder.
      * @return the JwtConsumer
@@ -708,6 +800,18 @@ public class JwtConsumerBuilder
 
         JwtConsumer jwtConsumer = new JwtConsumer();
         jwtConsumer.setValidators(validators);
+        if (earlyRejection)
+        {
+            List<ErrorCodeValidator> earlyRejectionValidators = new ArrayList<>();
+            for (ErrorCodeValidator validator : validators)
+            {
+                if (validator instanceof EarlyRejectionValidator)
+                {
+                    earlyRejectionValidators.add(validator);
+                }
+            }
+            jwtConsumer.setEarlyRejectionValidators(earlyRejectionValidators);
+        }
         jwtConsumer.setVerificationKeyResolver(verificationKeyResolver);
         jwtConsumer.setDecryptionKeyResolver(decryptionKeyResolver);
 
@@ -734,6 +838,19 @@ public class JwtConsumerBuilder
         jwtConsumer.setJwsProviderContext(jwsProviderContext);
         jwtConsumer.setJweProviderContext(jweProviderContext);
 
+        if (verifiedJwtCacheMaxEntries > 0 && verifiedJwtCacheMaxTimeToLiveSeconds > 0)
+        {
+            jwtConsumer.setVerifiedJwtCache(new VerifiedJwtCache(verifiedJwtCacheMaxEntries, verifiedJwtCacheMaxTimeToLiveSeconds));
+        }
+
+        if (rejectedJwtCacheMaxEntries > 0 && rejectedJwtCacheTimeToLiveSeconds > 0)
+        {
+            jwtConsumer.setRejectedJwtCache(new RejectedJwtCache(rejectedJwtCacheMaxEntries, rejectedJwtCacheTimeToLiveSeconds));
+        }
+
+        jwtConsumer.setBatchPool(batchPool);
+        jwtConsumer.setAsyncExecutor(asyncExecutor);
+
         return jwtConsumer;
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.lang.BoundedExpiringMap;
+import org.jose4j.lang.HashUtil;
+import org.jose4j.lang.StringUtil;
+
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, expiring cache of something about a JWT, keyed by the SHA-256 hash of the whole JWT
+ * (so the tokens themselves aren't kept around and a match means it's the exact same token).
+ * Expired entries are dropped when they're looked up and, when full, the oldest entries are dropped first.
+ */
+class JwtHashCache<V>
+{
+    private final BoundedExpiringMap<HashKey, V> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    JwtHashCache(int maxEntries)
+    {
+        this(new BoundedExpiringMap<HashKey, V>(maxEntries));
+    }
+
+    JwtHashCache(BoundedExpiringMap<HashKey, V> entries)
+    {
+        this.entries = entries;
+    }
+
+    V get(String jwt)
+    {
+        V value = entries.get(new HashKey(jwt));
+        if (value == null)
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return value;
+    }
+
+    void put(String jwt, V value, long expiresAt)
+    {
+        entries.put(new HashKey(jwt), value, expiresAt);
+    }
+
+    void remove(String jwt)
+    {
+        entries.remove(new HashKey(jwt));
+    }
+
+    long getHitCount()
+    {
+        return hits.get();
+    }
+
+    long getMissCount()
+    {
+        return misses.get();
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+
+    void clear()
+    {
+        entries.clear();
+    }
+
+    static class HashKey
+    {
+        private final byte[] hash;
+        private final int hashCode;
+
+        HashKey(String jwt)
+        {
+            MessageDigest messageDigest = HashUtil.getMessageDigest(HashUtil.SHA_256);
+            hash = messageDigest.digest(StringUtil.getBytesUtf8(jwt));
+            hashCode = (hash[0] & 0xff) << 24 | (hash[1] & 0xff) << 16 | (hash[2] & 0xff) << 8 | (hash[3] & 0xff);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof HashKey && MessageDigest.isEqual(hash, ((HashKey) o).hash);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+/**
+ * The outcome of processing one JWT of a batch with {@link JwtConsumer#processAll(java.util.Collection)},
+ * which is either the JwtContext of a valid JWT or the InvalidJwtException saying why it isn't.
+ */
+public class JwtProcessingResult
+{
+    private final String jwt;
+    private final JwtContext jwtContext;
+    private final InvalidJwtException exception;
+
+    JwtProcessingResult(String jwt, JwtContext jwtContext, InvalidJwtException exception)
+    {
+        this.jwt = jwt;
+        this.jwtContext = jwtContext;
+        this.exception = exception;
+    }
+
+    public String getJwt()
+    {
+        return jwt;
+    }
+
+    public boolean isValid()
+    {
+        return exception == null;
+    }
+
+    /**
+     * @return the context of the processed JWT or null if it wasn't valid
+     */
+    public JwtContext getJwtContext()
+    {
+        return jwtContext;
+    }
+
+    /**
+     * @return the reason the JWT wasn't valid or null if it was
+     */
+    public InvalidJwtException getException()
+    {
+        return exception;
+    }
+
+    /**
+     * Gets the context, like {@link JwtConsumer#process(String)} would have returned it, or throws the
+     * exception that it would have thrown.
+     * @return the context of the processed JWT
+     * @throws InvalidJwtException if the JWT wasn't valid
+     */
+    public JwtContext getJwtContextOrThrow() throws InvalidJwtException
+    {
+        if (exception != null)
+        {
+            throw exception;
+        }
+        return jwtContext;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "JwtProcessingResult{" + (isValid() ? "valid" : exception.toString()) + "}";
+    }
+}
@@ -23,7 +23,7 @@ import org.jose4j.jwt.NumericDate;
 /**
  *
  */
-public class NumericDateValidator implements ErrorCodeValidator
+public class NumericDateValidator implements EarlyRejectionValidator
 {
     private static final Error MISSING_EXP = new Error(ErrorCodes.EXPIRATION_MISSING, "No Expiration Time (exp) claim present.");
     private static final Error MISSING_IAT = new Error(ErrorCodes.ISSUED_AT_MISSING, "No Issued At (iat) claim present.");
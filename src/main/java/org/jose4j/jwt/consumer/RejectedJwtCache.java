@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import java.io.IOException;
+
+/**
+ * Remembers, for a short time, JWTs that a {@link JwtConsumer} rejected while parsing them, resolving keys, decrypting
+ * or verifying the signature, so that when the exact same JWT is presented again it can be rejected right away
+ * without going back through the crypto or anything that might hit the network (like refreshing a JWKS
+ * because no key matched the "kid").
+ * <p>
+ * A JWT rejected from the cache gets an {@link InvalidJwtException} with the same error codes
+ * (and the original exception as its cause).
+ * Rejections by the claims validators aren't remembered because they can depend on the time or other state.
+ * Neither are rejections caused by an {@link IOException} (like not being able to get a JWKS) because
+ * they're likely transient and the same JWT might be fine moments later.
+ * The time to live should be kept short as a rejection because of, say, an unknown key might not be a rejection
+ * after the issuer has published its new key.
+ * <p>
+ * Set one up with {@link JwtConsumerBuilder#setRejectedJwtCache(int, int)} and get at it for
+ * the hit/miss counts with {@link JwtConsumer#getRejectedJwtCache()}.
+ */
+public class RejectedJwtCache
+{
+    private final JwtHashCache<InvalidJwtException> cache;
+    private final long timeToLiveMillis;
+
+    RejectedJwtCache(int maxEntries, int timeToLiveSeconds)
+    {
+        cache = new JwtHashCache<>(maxEntries);
+        timeToLiveMillis = timeToLiveSeconds * 1000L;
+    }
+
+    void check(String jwt) throws InvalidJwtException
+    {
+        InvalidJwtException rejection = cache.get(jwt);
+        if (rejection != null)
+        {
+            throw new InvalidJwtException("The same JWT was recently rejected.", rejection.getErrorDetails(), rejection, rejection.getJwtContext());
+        }
+    }
+
+    void put(String jwt, InvalidJwtException rejection)
+    {
+        if (isTransient(rejection))
+        {
+            return;
+        }
+        cache.put(jwt, rejection, System.currentTimeMillis() + timeToLiveMillis);
+    }
+
+    private static boolean isTransient(Throwable rejection)
+    {
+        for (Throwable t = rejection; t != null; t = t.getCause())
+        {
+            if (t instanceof IOException)
+            {
+                return true;
+            }
+            if (t.getCause() == t)
+            {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of times a JWT was rejected because it was in the cache
+     */
+    public long getHitCount()
+    {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return the number of times a JWT wasn't found in the cache
+     */
+    public long getMissCount()
+    {
+        return cache.getMissCount();
+    }
+
+    /**
+     * @return the number of JWTs currently in the cache (some of which might have expired but not been dropped yet)
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    public void clear()
+    {
+        cache.clear();
+    }
+}
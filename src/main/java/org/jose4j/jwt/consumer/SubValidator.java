@@ -22,7 +22,7 @@ import org.jose4j.jwt.MalformedClaimException;
 /**
  *
  */
-public class SubValidator implements ErrorCodeValidator
+public class SubValidator implements EarlyRejectionValidator
 {
     private static final Error MISSING_SUB = new Error(ErrorCodes.SUBJECT_MISSING, "No Subject (sub) claim is present.");
 
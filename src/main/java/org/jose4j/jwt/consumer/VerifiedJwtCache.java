@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+
+/**
+ * Remembers JWTs that a {@link JwtConsumer} has successfully processed so that when the exact same JWT
+ * is presented again (as bearer tokens are, over and over, for their lifetime) the parsing, key resolution,
+ * decryption and signature verification can be skipped. The claims validators are still run on every hit, which
+ * is what keeps the expiration time and the like being enforced, but they are just checks on the already parsed claims.
+ * <p>
+ * An entry is kept until the JWT's expiration time or the maximum time to live, whichever comes first.
+ * The same {@link JwtClaims} instance is used for each hit so it shouldn't be modified.
+ * <p>
+ * Set one up with {@link JwtConsumerBuilder#setVerifiedJwtCache(int, int)} and get at it for
+ * the hit/miss counts with {@link JwtConsumer#getVerifiedJwtCache()}.
+ */
+public class VerifiedJwtCache
+{
+    private final JwtHashCache<JwtContext> cache;
+    private final long maxTimeToLiveMillis;
+
+    VerifiedJwtCache(int maxEntries, int maxTimeToLiveSeconds)
+    {
+        cache = new JwtHashCache<>(maxEntries);
+        maxTimeToLiveMillis = maxTimeToLiveSeconds * 1000L;
+    }
+
+    JwtContext get(String jwt)
+    {
+        return cache.get(jwt);
+    }
+
+    void put(JwtContext jwtContext)
+    {
+        long expiresAt = System.currentTimeMillis() + maxTimeToLiveMillis;
+        try
+        {
+            NumericDate expirationTime = jwtContext.getJwtClaims().getExpirationTime();
+            if (expirationTime != null)
+            {
+                expiresAt = Math.min(expiresAt, expirationTime.getValueInMillis());
+            }
+        }
+        catch (MalformedClaimException e)
+        {
+            return;
+        }
+        cache.put(jwtContext.getJwt(), jwtContext, expiresAt);
+    }
+
+    /**
+     * @return the number of times a JWT was found in the cache
+     */
+    public long getHitCount()
+    {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return the number of times a JWT wasn't found in the cache
+     */
+    public long getMissCount()
+    {
+        return cache.getMissCount();
+    }
+
+    /**
+     * @return the number of JWTs currently in the cache (some of which might have expired but not been dropped yet)
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    public void clear()
+    {
+        cache.clear();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwx;
+
+import org.jose4j.base64url.Base64Url;
+
+/**
+ * An index over the period separated parts of a JOSE compact serialization that just holds the
+ * positions of the periods in the original string. Parts can be base64url decoded, or their ASCII bytes taken,
+ * directly from the original string without first splitting it up into substrings.
+ */
+public class CompactSerializationParts
+{
+    private static final char PERIOD_SEPARATOR = '.';
+
+    private final String compactSerialization;
+    private final int[] periods;
+
+    private CompactSerializationParts(String compactSerialization, int[] periods)
+    {
+        this.compactSerialization = compactSerialization;
+        this.periods = periods;
+    }
+
+    /**
+     * Finds the parts of a compact serialization.
+     * Unlike splitting with a regular expression, empty parts are always kept so
+     * "a.." has three parts (the last two being empty).
+     * @param compactSerialization the compact serialization
+     * @return the parts
+     */
+    public static CompactSerializationParts parse(String compactSerialization)
+    {
+        int count = 0;
+        for (int i = compactSerialization.indexOf(PERIOD_SEPARATOR); i != -1; i = compactSerialization.indexOf(PERIOD_SEPARATOR, i + 1))
+        {
+            count++;
+        }
+
+        int[] periods = new int[count];
+        int i = -1;
+        for (int p = 0; p < count; p++)
+        {
+            i = compactSerialization.indexOf(PERIOD_SEPARATOR, i + 1);
+            periods[p] = i;
+        }
+
+        return new CompactSerializationParts(compactSerialization, periods);
+    }
+
+    public String getCompactSerialization()
+    {
+        return compactSerialization;
+    }
+
+    public int size()
+    {
+        return periods.length + 1;
+    }
+
+    public int start(int part)
+    {
+        checkIndex(part);
+        return part == 0 ? 0 : periods[part - 1] + 1;
+    }
+
+    public int end(int part)
+    {
+        checkIndex(part);
+        return part == periods.length ? compactSerialization.length() : periods[part];
+    }
+
+    public int length(int part)
+    {
+        return end(part) - start(part);
+    }
+
+    public boolean isEmpty(int part)
+    {
+        return length(part) == 0;
+    }
+
+    /**
+     * @param part the index of the part
+     * @return the part as a new String
+     */
+    public String get(int part)
+    {
+        return compactSerialization.substring(start(part), end(part));
+    }
+
+    public String[] toArray()
+    {
+        String[] parts = new String[size()];
+        for (int i = 0; i < parts.length; i++)
+        {
+            parts[i] = get(i);
+        }
+        return parts;
+    }
+
+    /**
+     * @param part the index of the part
+     * @return the bytes resulting from base64url decoding the part
+     */
+    public byte[] decode(int part)
+    {
+        int start = start(part);
+        return Base64Url.decode(compactSerialization, start, end(part) - start);
+    }
+
+    /**
+     * Gets the ASCII bytes of a run of consecutive parts, including the periods between them, which is what
+     * goes into the JWS Signing Input and the JWE Additional Authenticated Data.
+     * @param firstPart the index of the first part
+     * @param lastPart the index of the last part (inclusive)
+     * @return the ASCII bytes
+     */
+    public byte[] getAsciiBytes(int firstPart, int lastPart)
+    {
+        int start = start(firstPart);
+        int end = end(lastPart);
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++)
+        {
+            char c = compactSerialization.charAt(i);
+            // non-ASCII can't legitimately be in a compact serialization but substitute like the US-ASCII encoder would
+            bytes[i - start] = (c < 0x80) ? (byte) c : (byte) '?';
+        }
+        return bytes;
+    }
+
+    private void checkIndex(int part)
+    {
+        if (part < 0 || part > periods.length)
+        {
+            throw new IndexOutOfBoundsException("part " + part + " of " + size());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return compactSerialization;
+    }
+}
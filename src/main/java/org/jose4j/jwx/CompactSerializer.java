@@ -21,23 +21,12 @@ package org.jose4j.jwx;
 public class CompactSerializer
 {
     private static final String PERIOD_SEPARATOR = ".";
-    private static final String PERIOD_SEPARATOR_REGEX = "\\.";
 
     private static final String EMPTY_STRING = "";
 
     public static String[] deserialize(String compactSerialization)
     {
-        String[] parts = compactSerialization.split(PERIOD_SEPARATOR_REGEX);
-
-        if (compactSerialization.endsWith(PERIOD_SEPARATOR))
-        {
-            String[] tempParts = new String[parts.length + 1];
-            System.arraycopy(parts, 0, tempParts, 0, parts.length);
-            tempParts[parts.length] = EMPTY_STRING;
-            parts = tempParts;
-        }
-
-        return parts;
+        return CompactSerializationParts.parse(compactSerialization).toArray();
     }
 
     public static String serialize(String... parts)
@@ -22,6 +22,7 @@ import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.PublicJsonWebKey;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.JsonHelp;
+import org.jose4j.lang.StringUtil;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -34,13 +35,15 @@ public class Headers
 
     private Map<String, Object> headerMap = new LinkedHashMap<String, Object>();
     private String header;
+    private byte[] headerBytes;
     private String encodedHeader;
+    private CompactSerializationParts encodedHeaderParts;
 
     public String getFullHeaderAsJsonString()
     {
         if (header == null)
         {
-            header = JsonUtil.toJson(headerMap);
+            header = (headerBytes != null) ? StringUtil.newStringUtf8(headerBytes) : JsonUtil.toJson(headerMap);
         }
         return header;
     }
@@ -49,8 +52,15 @@ public class Headers
     {
         if (encodedHeader == null)
         {
-            String headerAsString = getFullHeaderAsJsonString();
-            encodedHeader = base64url.base64UrlEncodeUtf8ByteRepresentation(headerAsString);
+            if (encodedHeaderParts != null)
+            {
+                encodedHeader = encodedHeaderParts.get(0);
+            }
+            else
+            {
+                String headerAsString = getFullHeaderAsJsonString();
+                encodedHeader = base64url.base64UrlEncodeUtf8ByteRepresentation(headerAsString);
+            }
         }
         return encodedHeader;
     }
@@ -64,7 +74,9 @@ public class Headers
     {
         headerMap.put(name, value);
         this.header = null;
+        this.headerBytes = null;
         this.encodedHeader = null;
+        this.encodedHeaderParts = null;
     }
 
     public void setJwkHeaderValue(String name, JsonWebKey jwk)
@@ -106,6 +118,8 @@ public class Headers
     public void setFullHeaderAsJsonString(String header) throws JoseException
     {
         this.encodedHeader = null;
+        this.encodedHeaderParts = null;
+        this.headerBytes = null;
         this.header = header;
         headerMap = JsonUtil.parseJson(header);
     }
@@ -113,7 +127,25 @@ public class Headers
     void setEncodedHeader(String encodedHeader) throws JoseException
     {
         this.encodedHeader = encodedHeader;
-        this.header = base64url.base64UrlDecodeToUtf8String(this.encodedHeader);
-        this.headerMap = JsonUtil.parseJson(header);
+        this.encodedHeaderParts = null;
+        byte[] decoded = base64url.base64UrlDecode(this.encodedHeader);
+        this.headerMap = JsonUtil.parseJson(decoded, 0, decoded.length);
+        this.headerBytes = decoded;
+        this.header = null; // the JSON string is only made from the bytes if someone asks for it
+    }
+
+    void setEncodedHeader(CompactSerializationParts parts) throws JoseException
+    {
+        byte[] decoded = parts.decode(0);
+        this.headerMap = JsonUtil.parseJson(decoded, 0, decoded.length);
+        this.headerBytes = decoded;
+        this.header = null;
+        this.encodedHeader = null; // only made into a substring if someone asks for it
+        this.encodedHeaderParts = parts;
+    }
+
+    boolean isEncodedHeaderFrom(CompactSerializationParts parts)
+    {
+        return encodedHeaderParts == parts;
     }
 }
@@ -57,6 +57,8 @@ public abstract class JsonWebStructure
 
     protected String rawCompactSerialization;
 
+    private CompactSerializationParts compactSerializationParts;
+
     private AlgorithmConstraints algorithmConstraints = AlgorithmConstraints.NO_CONSTRAINTS;
 
     private Set<String> knownCriticalHeaders = Collections.emptySet();
@@ -76,12 +78,12 @@ public abstract class JsonWebStructure
     public static JsonWebStructure fromCompactSerialization(String cs) throws JoseException
     {
         JsonWebStructure jsonWebObject;
-        String[] parts = CompactSerializer.deserialize(cs);
-        if (parts.length == JsonWebEncryption.COMPACT_SERIALIZATION_PARTS)
+        CompactSerializationParts parts = CompactSerializationParts.parse(cs);
+        if (parts.size() == JsonWebEncryption.COMPACT_SERIALIZATION_PARTS)
         {
             jsonWebObject = new JsonWebEncryption();
         }
-        else if (parts.length == JsonWebSignature.COMPACT_SERIALIZATION_PARTS)
+        else if (parts.size() == JsonWebSignature.COMPACT_SERIALIZATION_PARTS)
         {
             jsonWebObject = new JsonWebSignature();
         }
@@ -90,7 +92,7 @@ public abstract class JsonWebStructure
             throw new JoseException("Invalid JOSE Compact Serialization. Expecting either "
                     + JsonWebSignature.COMPACT_SERIALIZATION_PARTS + " or "
                     + JsonWebEncryption.COMPACT_SERIALIZATION_PARTS
-                    + " parts for JWS or JWE respectively but was " + parts.length + ".");
+                    + " parts for JWS or JWE respectively but was " + parts.size() + ".");
         }
 
         jsonWebObject.setCompactSerializationParts(parts);
@@ -100,11 +102,22 @@ public abstract class JsonWebStructure
 
     public void setCompactSerialization(String compactSerialization) throws JoseException
     {
-    	String[] parts = CompactSerializer.deserialize(compactSerialization);
+        CompactSerializationParts parts = CompactSerializationParts.parse(compactSerialization);
         setCompactSerializationParts(parts);
         rawCompactSerialization = compactSerialization;
     }
 
+    /**
+     * Sets the content from the parts of a compact serialization. By default this just splits the parts
+     * into separate strings but JWS and JWE override it to decode the parts in place.
+     * @param parts the parts of the compact serialization
+     * @throws JoseException if the parts aren't acceptable
+     */
+    protected void setCompactSerializationParts(CompactSerializationParts parts) throws JoseException
+    {
+        setCompactSerializationParts(parts.toArray());
+    }
+
     /**
      * @deprecated replaced by {@link #getHeaders()} and {@link org.jose4j.jwx.Headers#getFullHeaderAsJsonString()}
      */
@@ -129,6 +142,30 @@ public abstract class JsonWebStructure
         headers.setEncodedHeader(encodedHeader);
     }
 
+    /**
+     * Sets the header from the first part of a compact serialization.
+     * @param parts the parts of the compact serialization
+     * @throws JoseException if the header is empty or can't be parsed
+     */
+    protected void setEncodedHeader(CompactSerializationParts parts) throws JoseException
+    {
+        checkNotEmptyPart(parts, 0, "Encoded Header");
+        headers.setEncodedHeader(parts);
+        compactSerializationParts = parts;
+    }
+
+    /**
+     * Gets the parts of the compact serialization that this was created from, but only as long as the
+     * header is still the one from the compact serialization, so that the original encoded header can be used
+     * as is rather than re-encoding it.
+     * @return the parts of the compact serialization or null
+     */
+    protected CompactSerializationParts getCompactSerializationPartsWithCurrentHeader()
+    {
+        return (compactSerializationParts != null && headers.isEncodedHeaderFrom(compactSerializationParts))
+                ? compactSerializationParts : null;
+    }
+
     public Headers getHeaders()
     {
         return headers;
@@ -142,6 +179,14 @@ public abstract class JsonWebStructure
         }
     }
 
+    protected void checkNotEmptyPart(CompactSerializationParts parts, int part, String partName) throws JoseException
+    {
+        if (parts.isEmpty(part))
+        {
+            throw new JoseException("The "+ partName +" cannot be empty.");
+        }
+    }
+
     public String getHeader(String name)
     {
         return headers.getStringHeaderValue(name);
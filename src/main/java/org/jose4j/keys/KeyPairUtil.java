@@ -17,6 +17,7 @@
 package org.jose4j.keys;
 
 import org.jose4j.base64url.SimplePEMEncoder;
+import org.jose4j.jca.JcaProviders;
 import org.jose4j.lang.JoseException;
 
 import java.security.KeyFactory;
@@ -53,7 +54,7 @@ abstract class KeyPairUtil
         String agl = getAlgorithm();
         try
         {
-            return provider == null ? KeyFactory.getInstance(agl) : KeyFactory.getInstance(agl, provider);
+            return provider == null ? KeyFactory.getInstance(agl) : KeyFactory.getInstance(agl, JcaProviders.getProvider(provider));
         }
         catch (NoSuchAlgorithmException e)
         {
@@ -70,7 +71,7 @@ abstract class KeyPairUtil
         String alg = getAlgorithm();
         try
         {
-            return provider == null ? KeyPairGenerator.getInstance(alg) : KeyPairGenerator.getInstance(alg, provider);
+            return provider == null ? KeyPairGenerator.getInstance(alg) : KeyPairGenerator.getInstance(alg, JcaProviders.getProvider(provider));
         }
         catch (NoSuchAlgorithmException e)
         {
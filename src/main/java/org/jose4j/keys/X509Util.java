@@ -19,6 +19,7 @@ package org.jose4j.keys;
 import org.jose4j.base64url.Base64;
 import org.jose4j.base64url.Base64Url;
 import org.jose4j.base64url.SimplePEMEncoder;
+import org.jose4j.jca.JcaProviders;
 import org.jose4j.lang.HashUtil;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.UncheckedJoseException;
@@ -52,7 +53,7 @@ public class X509Util
     {
         try
         {
-            certFactory = CertificateFactory.getInstance(FACTORY_TYPE, provider);
+            certFactory = CertificateFactory.getInstance(FACTORY_TYPE, JcaProviders.getProvider(provider));
         }
         catch (CertificateException e)
         {
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwx.JsonWebStructure;
+
+import java.util.List;
+
+/**
+ * A {@link DecryptionKeyResolver} that can also resolve the key without the calling thread waiting.
+ * {@link org.jose4j.jwt.consumer.JwtConsumer#processAsync(String)} uses it, when it's available, for the outermost JWE.
+ */
+public interface AsyncDecryptionKeyResolver extends DecryptionKeyResolver
+{
+    /**
+     * Choose the key to be used for decryption on the given JWE without blocking. When the key
+     * is at hand the callback can be called right away, otherwise it's called once the key has been obtained.
+     * @param jwe the JsonWebEncryption that's about to be decrypted
+     * @param nestingContext a list of JOSE objects, if any, in which the JWE was nested.
+     *                       The last item in the list is the outer most JOSE object (not including the current JWE).
+     * @param callback told the key or why there isn't one
+     */
+    void resolveKeyAsync(JsonWebEncryption jwe, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback);
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+
+import java.util.List;
+
+/**
+ * A {@link VerificationKeyResolver} that can also resolve the key without the calling thread waiting,
+ * on a fetch of keys from somewhere for example. {@link org.jose4j.jwt.consumer.JwtConsumer#processAsync(String)}
+ * uses it, when it's available, for the outermost JWS.
+ */
+public interface AsyncVerificationKeyResolver extends VerificationKeyResolver
+{
+    /**
+     * Choose the key to be used for signature verification on the given JWS without blocking. When the key
+     * is at hand the callback can be called right away, otherwise it's called once the key has been obtained.
+     * @param jws the JsonWebSignature that's about to be verified
+     * @param nestingContext a list of JOSE objects, if any, in which the JWS was nested.
+     *                       The last item in the list is the outer most JOSE object (not including the current JWS).
+     * @param callback told the key or why there isn't one
+     */
+    void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback);
+}
@@ -17,10 +17,13 @@ package org.jose4j.keys.resolvers;
 
 import org.jose4j.jwk.HttpsJwks;
 import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeyIndex;
 import org.jose4j.jwk.VerificationJwkSelector;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.ExceptionHelp;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.SharedExecutors;
 import org.jose4j.lang.UnresolvableKeyException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,11 +31,12 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.security.Key;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  *
  */
-public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
+public class HttpsJwksVerificationKeyResolver implements AsyncVerificationKeyResolver
 {
     private static final Logger log = LoggerFactory.getLogger(HttpsJwksVerificationKeyResolver.class);
 
@@ -42,6 +46,10 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
 
     private boolean disambiguateWithVerifySignature;
 
+    private Executor executor;
+
+    private final boolean listSelectOverridden = isListSelectOverridden();
+
     public HttpsJwksVerificationKeyResolver(HttpsJwks httpsJkws)
     {
         this.httpsJkws = httpsJkws;
@@ -55,16 +63,27 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
 
         try
         {
-            jsonWebKeys = httpsJkws.getJsonWebKeys();
+            JsonWebKeyIndex jsonWebKeyIndex = httpsJkws.getJsonWebKeyIndex();
+            jsonWebKeys = jsonWebKeyIndex.getJsonWebKeys();
 
-            theChosenOne = select(jws, jsonWebKeys);
-            if (theChosenOne == null)
+            theChosenOne = select(jws, jsonWebKeyIndex);
+            String keyId = jws.getKeyIdHeaderValue();
+            if (theChosenOne == null && httpsJkws.isUnknownKeyId(keyId))
+            {
+                log.debug("Not refreshing JWKs from {} for JWS w/ header {} because its kid was recently not found", httpsJkws.getLocation(), jws.getHeaders().getFullHeaderAsJsonString());
+            }
+            else if (theChosenOne == null)
             {
                 log.debug("Refreshing JWKs from {} as no suitable verification key for JWS w/ header {} was found in {}", httpsJkws.getLocation(), jws.getHeaders().getFullHeaderAsJsonString(), jsonWebKeys);
 
-                httpsJkws.refresh();
-                jsonWebKeys = httpsJkws.getJsonWebKeys();
-                theChosenOne = select(jws, jsonWebKeys);
+                httpsJkws.refreshAfterMiss(jsonWebKeyIndex);
+                jsonWebKeyIndex = httpsJkws.getJsonWebKeyIndex();
+                jsonWebKeys = jsonWebKeyIndex.getJsonWebKeys();
+                theChosenOne = select(jws, jsonWebKeyIndex);
+                if (theChosenOne == null)
+                {
+                    httpsJkws.addUnknownKeyId(keyId);
+                }
             }
         }
         catch (JoseException | IOException e)
@@ -86,6 +105,71 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
         return theChosenOne.getKey();
     }
 
+    /**
+     * Resolves the key straight away, on the calling thread, when the cached keys are good and have a suitable one.
+     * Otherwise the keys need to be retrieved, which is done with {@link #resolveKey(JsonWebSignature, List)} on
+     * the executor.
+     */
+    @Override
+    public void resolveKeyAsync(final JsonWebSignature jws, final List<JsonWebStructure> nestingContext, final KeyResolutionCallback callback)
+    {
+        JsonWebKeyIndex jsonWebKeyIndex = httpsJkws.getCachedJsonWebKeyIndex();
+        if (jsonWebKeyIndex != null)
+        {
+            Key key = null;
+            try
+            {
+                JsonWebKey theChosenOne = select(jws, jsonWebKeyIndex);
+                key = (theChosenOne == null) ? null : theChosenOne.getKey();
+            }
+            catch (JoseException | RuntimeException e)
+            {
+                log.debug("Problem selecting from cached JWKs from {} so resolving the long way: {}", httpsJkws.getLocation(), e.toString());
+            }
+
+            if (key != null)
+            {
+                callback.resolved(key);
+                return;
+            }
+        }
+
+        Executor exec = (executor == null) ? SharedExecutors.blocking() : executor;
+        exec.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Key key;
+                try
+                {
+                    key = resolveKey(jws, nestingContext);
+                }
+                catch (UnresolvableKeyException e)
+                {
+                    callback.failed(e);
+                    return;
+                }
+                catch (RuntimeException | Error e)
+                {
+                    // otherwise whoever's waiting on the callback would never hear back
+                    String msg = "Unexpected problem resolving the key from JWKs obtained from " + httpsJkws.getLocation();
+                    callback.failed(new UnresolvableKeyException(msg + ": " + ExceptionHelp.toStringWithCauses(e), e));
+                    return;
+                }
+                callback.resolved(key);
+            }
+        });
+    }
+
+    /**
+     * Selects the key to verify the JWS from a list of keys. Subclasses that override this still have it used,
+     * but in place of the faster selection from the index that's done otherwise.
+     * @param jws the JWS
+     * @param jsonWebKeys the keys
+     * @return the selected key or null
+     * @throws JoseException if there's a problem selecting
+     */
     protected JsonWebKey select(JsonWebSignature jws, List<JsonWebKey> jsonWebKeys) throws JoseException
     {
         if (disambiguateWithVerifySignature)
@@ -98,6 +182,48 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
         }
     }
 
+    /**
+     * Selects the key to verify the JWS from the index of the JWKS.
+     * This is what's used by the resolver unless {@link #select(JsonWebSignature, List)} has been overridden.
+     * @param jws the JWS
+     * @param jsonWebKeyIndex the index of the keys
+     * @return the selected key or null
+     * @throws JoseException if there's a problem selecting
+     */
+    protected JsonWebKey select(JsonWebSignature jws, JsonWebKeyIndex jsonWebKeyIndex) throws JoseException
+    {
+        if (listSelectOverridden)
+        {
+            return select(jws, jsonWebKeyIndex.getJsonWebKeys());
+        }
+
+        if (disambiguateWithVerifySignature)
+        {
+            return verificationJwkSelector.selectWithVerifySignatureDisambiguate(jws, jsonWebKeyIndex);
+        }
+        else
+        {
+            return verificationJwkSelector.select(jws, jsonWebKeyIndex);
+        }
+    }
+
+    private boolean isListSelectOverridden()
+    {
+        for (Class<?> c = getClass(); c != HttpsJwksVerificationKeyResolver.class; c = c.getSuperclass())
+        {
+            try
+            {
+                c.getDeclaredMethod("select", JsonWebSignature.class, List.class);
+                return true;
+            }
+            catch (NoSuchMethodException e)
+            {
+                // keep looking up the hierarchy
+            }
+        }
+        return false;
+    }
+
     /**
      * Indicates whether or not to use signature verification to try and disambiguate when the normal key selection based on the JWS headers results in more than one key. Default is false.
      * @param disambiguateWithVerifySignature boolean indicating whether or not to use signature verification to disambiguate
@@ -106,4 +232,15 @@ public class HttpsJwksVerificationKeyResolver implements VerificationKeyResolver
     {
         this.disambiguateWithVerifySignature = disambiguateWithVerifySignature;
     }
+
+    /**
+     * Sets the executor that {@link #resolveKeyAsync(JsonWebSignature, List, KeyResolutionCallback)} uses when it has
+     * to retrieve keys, which blocks on HTTP. The default is the pool shared by all instances and by
+     * {@link HttpsJwks} for refreshing ahead.
+     * @param executor the executor to use
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.jwk.HttpsJwks;
+import org.jose4j.jwk.HttpsJwksRegistry;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Resolves the verification key from the JWKS of the issuer of the JWT, as given by the (not yet verified) "iss" claim
+ * and mapped to a JWKS location by an {@link HttpsJwksRegistry}. Key selection from that JWKS works
+ * the same as with {@link HttpsJwksVerificationKeyResolver}.
+ * <p>
+ * The issuer is only used to pick which keys to check the signature with. A forged "iss" will only
+ * get keys from a JWKS that was mapped to it, which won't verify a signature that issuer didn't make.
+ * The JwtConsumer should still check the issuer, like with {@code setExpectedIssuers}, if only some of the
+ * registry's issuers are acceptable.
+ */
+public class IssuerHttpsJwksVerificationKeyResolver implements AsyncVerificationKeyResolver
+{
+    private final HttpsJwksRegistry registry;
+
+    private boolean disambiguateWithVerifySignature;
+
+    private Executor executor;
+
+    public IssuerHttpsJwksVerificationKeyResolver(HttpsJwksRegistry registry)
+    {
+        this.registry = registry;
+    }
+
+    @Override
+    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+    {
+        return resolver(jws).resolveKey(jws, nestingContext);
+    }
+
+    @Override
+    public void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback)
+    {
+        HttpsJwksVerificationKeyResolver resolver;
+        try
+        {
+            resolver = resolver(jws);
+        }
+        catch (UnresolvableKeyException e)
+        {
+            callback.failed(e);
+            return;
+        }
+        resolver.resolveKeyAsync(jws, nestingContext, callback);
+    }
+
+    private HttpsJwksVerificationKeyResolver resolver(JsonWebSignature jws) throws UnresolvableKeyException
+    {
+        String issuer;
+        try
+        {
+            issuer = JwtClaims.parse(jws.getUnverifiedPayload()).getIssuer();
+        }
+        catch (InvalidJwtException | MalformedClaimException e)
+        {
+            throw new UnresolvableKeyException("Unable to get the issuer from the payload of JWS w/ header " + jws.getHeaders().getFullHeaderAsJsonString() + " due to " + e, e);
+        }
+
+        HttpsJwks httpsJwks = registry.getHttpsJwks(issuer);
+        if (httpsJwks == null)
+        {
+            throw new UnresolvableKeyException("Unable to find a suitable verification key for JWS w/ header " + jws.getHeaders().getFullHeaderAsJsonString() + " because there's no JWKS for the issuer " + issuer);
+        }
+
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks);
+        resolver.setDisambiguateWithVerifySignature(disambiguateWithVerifySignature);
+        resolver.setExecutor(executor);
+        return resolver;
+    }
+
+    /**
+     * Indicates whether or not to use signature verification to try and disambiguate when the normal key selection based on the JWS headers results in more than one key. Default is false.
+     * @param disambiguateWithVerifySignature boolean indicating whether or not to use signature verification to disambiguate
+     */
+    public void setDisambiguateWithVerifySignature(boolean disambiguateWithVerifySignature)
+    {
+        this.disambiguateWithVerifySignature = disambiguateWithVerifySignature;
+    }
+
+    /**
+     * Sets the executor used to retrieve keys when they're resolved asynchronously.
+     * @param executor the executor to use
+     * @see HttpsJwksVerificationKeyResolver#setExecutor(Executor)
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+}
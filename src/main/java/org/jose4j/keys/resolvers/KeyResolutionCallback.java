@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+
+/**
+ * Receives the outcome of an asynchronous key resolution. It might be called on the thread that asked for the key,
+ * before the resolveKeyAsync call returns, or later on some other thread, so it should not do anything that takes long.
+ * Exactly one of the methods is called, once.
+ */
+public interface KeyResolutionCallback
+{
+    void resolved(Key key);
+
+    void failed(UnresolvableKeyException e);
+}
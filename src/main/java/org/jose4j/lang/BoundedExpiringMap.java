@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.lang;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread safe map with a bounded number of entries, each of which expires at a given time.
+ * Expired entries are dropped when they're looked up and, when full, the oldest entries (by when they were
+ * last put) are dropped first. It's meant for small, short lived values like those of the various caches in this
+ * library and does its work under a single lock.
+ */
+public class BoundedExpiringMap<K, V>
+{
+    private final int maxEntries;
+
+    // insertion ordered, so the oldest is first; guarded by itself
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public BoundedExpiringMap(final int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<K, Entry<V>>()
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the value for a key, if there is one and it hasn't expired.
+     * @param key the key
+     * @return the value or null
+     */
+    public V get(K key)
+    {
+        long now = now();
+        synchronized (entries)
+        {
+            Entry<V> entry = entries.get(key);
+            if (entry == null)
+            {
+                return null;
+            }
+            if (entry.expiresAt <= now)
+            {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * Puts a value that expires at the given time, replacing any value already there for the key.
+     * A value that has already expired isn't put.
+     * @param key the key
+     * @param value the value
+     * @param expiresAt when the value expires, in milliseconds since the epoch
+     */
+    public void put(K key, V value, long expiresAt)
+    {
+        if (expiresAt <= now())
+        {
+            return;
+        }
+
+        synchronized (entries)
+        {
+            // removed first so that it's the newest
+            entries.remove(key);
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void remove(K key)
+    {
+        synchronized (entries)
+        {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Drops all the entries that have expired.
+     */
+    public void removeExpired()
+    {
+        long now = now();
+        synchronized (entries)
+        {
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next().expiresAt <= now)
+                {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries, which may include some that have expired but haven't been dropped yet
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the current time in milliseconds since the epoch
+     */
+    protected long now()
+    {
+        return System.currentTimeMillis();
+    }
+
+    private static class Entry<V>
+    {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
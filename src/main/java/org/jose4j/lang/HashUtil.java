@@ -15,6 +15,8 @@
  */
 package org.jose4j.lang;
 
+import org.jose4j.jca.JcaProviders;
+
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -35,7 +37,7 @@ public class HashUtil
     {
         try
         {
-            return provider == null ? MessageDigest.getInstance(alg) : MessageDigest.getInstance(alg, provider);
+            return provider == null ? MessageDigest.getInstance(alg) : MessageDigest.getInstance(alg, JcaProviders.getProvider(provider));
         }
         catch (NoSuchAlgorithmException e)
         {
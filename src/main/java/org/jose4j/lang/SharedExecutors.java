@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.lang;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thread pools that are shared by the parts of this library that do work in the background, one for each
+ * kind of work. Each is only started the first time it's used.
+ */
+public final class SharedExecutors
+{
+    private SharedExecutors()
+    {
+    }
+
+    /**
+     * The pool for work that mostly waits on I/O, like getting JWKS content over HTTP for async key resolution,
+     * {@link org.jose4j.http.AsyncGet} or refreshing ahead. It can also run things later (retries and refreshes are
+     * scheduled on it). The threads are daemon threads that go away after a minute of being idle.
+     * @return the shared executor
+     */
+    public static ScheduledExecutorService blocking()
+    {
+        return Blocking.EXECUTOR;
+    }
+
+    /**
+     * The pool for CPU bound work, like processing batches of JWTs, making the keys of a JWKS in parallel or checking
+     * the availability of algorithms. It's sized to the number of processors.
+     * @return the shared pool
+     */
+    public static ForkJoinPool computation()
+    {
+        return Computation.POOL;
+    }
+
+    private static class Blocking
+    {
+        private static final ScheduledExecutorService EXECUTOR = newExecutor();
+
+        private static ScheduledExecutorService newExecutor()
+        {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(8, new DaemonThreadFactory("jose4j-io-"));
+            executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+            executor.allowCoreThreadTimeOut(true);
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+
+    private static class Computation
+    {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+}
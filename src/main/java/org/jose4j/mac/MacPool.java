@@ -0,0 +1,294 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.mac;
+
+import org.jose4j.lang.JoseException;
+
+import javax.crypto.Mac;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of Mac instances that are already initialized with a particular key.
+ *
+ * Getting a Mac means a provider lookup and initializing it with a key means computing the
+ * HMAC inner and outer pads, which can cost more than actually MACing a small JWS signing input.
+ * When the same few keys are used over and over, this keeps initialized instances around, keyed by
+ * (algorithm, provider, key bytes), and hands them out one caller at a time. A new instance for a key is made
+ * by cloning an initialized prototype when the provider supports it and otherwise by getting and initializing
+ * a new Mac.
+ *
+ * Entries are matched on the actual key bytes so a rotated key never gets a Mac for the old one. The
+ * number of keys is bounded and the oldest entries are dropped first, so keys that are no longer in use just age out.
+ * Keys that don't expose their encoded form (like some HSM keys) aren't pooled at all.
+ * It's meant for long lived keys, like JWS HMAC keys, and shouldn't be used for one-off secrets like
+ * content encryption keys or passwords, which would be kept reachable and push the long lived keys out.
+ */
+public class MacPool
+{
+    public static final int DEFAULT_MAX_KEYS = 64;
+    public static final int DEFAULT_MAX_IDLE_PER_KEY = 16;
+
+    private static final MacPool pool = new MacPool(DEFAULT_MAX_KEYS, DEFAULT_MAX_IDLE_PER_KEY);
+
+    private final int maxKeys;
+    private final int maxIdlePerKey;
+
+    private final ConcurrentMap<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<CacheKey> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public MacPool(int maxKeys, int maxIdlePerKey)
+    {
+        this.maxKeys = maxKeys;
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    public static MacPool getInstance()
+    {
+        return pool;
+    }
+
+    /**
+     * Gets an initialized Mac for exclusive use until {@link PooledMac#release()} is called.
+     * @param algorithm the Java Mac algorithm name
+     * @param key the key
+     * @param provider the provider name or null for the default
+     * @return the pooled Mac
+     * @throws JoseException if the algorithm or provider isn't available or the key is invalid
+     */
+    public PooledMac borrow(String algorithm, Key key, String provider) throws JoseException
+    {
+        byte[] encoded = key == null ? null : key.getEncoded();
+        if (encoded == null)
+        {
+            return new PooledMac(MacUtil.getInitializedMac(algorithm, key, provider), null);
+        }
+
+        CacheKey cacheKey = new CacheKey(algorithm, provider, key.getAlgorithm(), encoded);
+        Entry entry = entries.get(cacheKey);
+        if (entry == null)
+        {
+            Mac prototype = MacUtil.getInitializedMac(algorithm, key, provider);
+            entry = new Entry(prototype);
+            Entry existing = entries.putIfAbsent(cacheKey, entry);
+            if (existing == null)
+            {
+                insertionOrder.add(cacheKey);
+                evictIfNeeded();
+            }
+            else
+            {
+                entry = existing;
+            }
+        }
+
+        Mac mac = entry.idle.poll();
+        if (mac != null)
+        {
+            entry.idleCount.decrementAndGet();
+        }
+        else
+        {
+            mac = entry.newInstance(algorithm, key, provider);
+        }
+        return new PooledMac(mac, entry);
+    }
+
+    /**
+     * Computes the MAC over the concatenation of the given inputs using a pooled Mac.
+     * @param algorithm the Java Mac algorithm name
+     * @param key the key
+     * @param provider the provider name or null for the default
+     * @param inputs the inputs
+     * @return the MAC
+     * @throws JoseException if the algorithm or provider isn't available or the key is invalid
+     */
+    public byte[] doFinal(String algorithm, Key key, String provider, byte[]... inputs) throws JoseException
+    {
+        PooledMac pooledMac = borrow(algorithm, key, provider);
+        try
+        {
+            Mac mac = pooledMac.getMac();
+            for (byte[] input : inputs)
+            {
+                mac.update(input);
+            }
+            return mac.doFinal();
+        }
+        finally
+        {
+            pooledMac.release();
+        }
+    }
+
+    /**
+     * @return the number of keys currently in the pool
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public void clear()
+    {
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    private void evictIfNeeded()
+    {
+        while (entries.size() > maxKeys)
+        {
+            CacheKey oldest = insertionOrder.poll();
+            if (oldest == null)
+            {
+                break;
+            }
+            entries.remove(oldest);
+        }
+    }
+
+    private class Entry
+    {
+        private final Mac prototype;
+        private volatile boolean cloneable = true;
+        private final Queue<Mac> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        private Entry(Mac prototype)
+        {
+            this.prototype = prototype;
+        }
+
+        private Mac newInstance(String algorithm, Key key, String provider) throws JoseException
+        {
+            if (cloneable)
+            {
+                try
+                {
+                    synchronized (prototype)
+                    {
+                        return (Mac) prototype.clone();
+                    }
+                }
+                catch (CloneNotSupportedException e)
+                {
+                    cloneable = false;
+                }
+            }
+            return MacUtil.getInitializedMac(algorithm, key, provider);
+        }
+
+        private void giveBack(Mac mac)
+        {
+            if (idleCount.incrementAndGet() <= maxIdlePerKey)
+            {
+                idle.offer(mac);
+            }
+            else
+            {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A Mac borrowed from the pool. It must not be used after it has been released.
+     */
+    public static class PooledMac
+    {
+        private Mac mac;
+        private final Entry entry;
+
+        private PooledMac(Mac mac, Entry entry)
+        {
+            this.mac = mac;
+            this.entry = entry;
+        }
+
+        public Mac getMac()
+        {
+            if (mac == null)
+            {
+                throw new IllegalStateException("Mac has already been released");
+            }
+            return mac;
+        }
+
+        /**
+         * Resets the Mac and puts it back in the pool. Calling this more than once is harmless.
+         */
+        public void release()
+        {
+            if (mac != null && entry != null)
+            {
+                mac.reset();
+                entry.giveBack(mac);
+            }
+            mac = null;
+        }
+    }
+
+    private static class CacheKey
+    {
+        private final String algorithm;
+        private final String provider;
+        private final String keyAlgorithm;
+        private final byte[] encodedKey;
+        private final int hashCode;
+
+        private CacheKey(String algorithm, String provider, String keyAlgorithm, byte[] encodedKey)
+        {
+            this.algorithm = algorithm;
+            this.provider = provider;
+            this.keyAlgorithm = keyAlgorithm;
+            this.encodedKey = encodedKey;
+            this.hashCode = Arrays.hashCode(new Object[] {algorithm, provider, keyAlgorithm}) * 31 + Arrays.hashCode(encodedKey);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof CacheKey))
+            {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return hashCode == other.hashCode
+                    && algorithm.equals(other.algorithm)
+                    && (provider == null ? other.provider == null : provider.equals(other.provider))
+                    && (keyAlgorithm == null ? other.keyAlgorithm == null : keyAlgorithm.equals(other.keyAlgorithm))
+                    && MessageDigest.isEqual(encodedKey, other.encodedKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
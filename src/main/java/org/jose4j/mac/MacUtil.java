@@ -16,6 +16,7 @@
 
 package org.jose4j.mac;
 
+import org.jose4j.jca.JcaProviders;
 import org.jose4j.lang.JoseException;
 
 import javax.crypto.Mac;
@@ -53,7 +54,7 @@ public class MacUtil
     {
         try
         {
-            return provider == null ? Mac.getInstance(algorithm) : Mac.getInstance(algorithm, provider);
+            return provider == null ? Mac.getInstance(algorithm) : Mac.getInstance(algorithm, JcaProviders.getProvider(provider));
         }
         catch (NoSuchAlgorithmException e)
         {
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.base64url;
+
+import org.jose4j.base64url.internal.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Checks the purpose built codec against the commons-codec port that Base64Url used to use.
+ */
+public class Base64UrlCodecTest
+{
+    private static final String ODD_CHARS = "=+/ \r\n\t.*éĀŁ😀";
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    private final Base64 oldCodec = new Base64(-1, null, true);
+
+    @Test
+    public void encodeSameAsOldCodec()
+    {
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length++)
+        {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            String expected = oldCodec.encodeToString(bytes);
+            String encoded = Base64UrlCodec.encode(bytes);
+            assertThat(encoded, equalTo(expected));
+            assertThat(Base64UrlCodec.encodedLength(length), is(expected.length()));
+            assertArrayEquals(bytes, Base64UrlCodec.decode(encoded));
+        }
+    }
+
+    @Test
+    public void encodeIntoArrayAndBuffer()
+    {
+        byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, -1, -2, -3};
+        String expected = oldCodec.encodeToString(Arrays.copyOfRange(bytes, 2, 12));
+
+        byte[] dst = new byte[expected.length() + 4];
+        int written = Base64UrlCodec.encode(bytes, 2, 10, dst, 2);
+        assertThat(written, is(expected.length()));
+        assertThat(new String(dst, 2, written), equalTo(expected));
+
+        ByteBuffer heap = ByteBuffer.allocate(32);
+        heap.position(3);
+        written = Base64UrlCodec.encode(bytes, 2, 10, heap);
+        assertThat(heap.position(), is(3 + written));
+        assertThat(new String(heap.array(), 3, written), equalTo(expected));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(32);
+        written = Base64UrlCodec.encode(bytes, 2, 10, direct);
+        direct.flip();
+        byte[] fromDirect = new byte[written];
+        direct.get(fromDirect);
+        assertThat(new String(fromDirect), equalTo(expected));
+
+        try
+        {
+            Base64UrlCodec.encode(bytes, 0, bytes.length, ByteBuffer.allocate(4));
+            Assert.fail("should have overflowed");
+        }
+        catch (BufferOverflowException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void decodeSameAsOldCodecIncludingJunk()
+    {
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++)
+        {
+            int length = random.nextInt(40);
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++)
+            {
+                boolean odd = random.nextInt(10) == 0;
+                String chars = odd ? ODD_CHARS : ALPHABET;
+                sb.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            String encoded = sb.toString();
+            assertArrayEquals(encoded, oldCodec.decode(encoded), Base64UrlCodec.decode(encoded));
+        }
+    }
+
+    @Test
+    public void decodeRange()
+    {
+        String s = "xx.eyJhbGciOiJIUzI1NiJ9.yy";
+        byte[] expected = oldCodec.decode("eyJhbGciOiJIUzI1NiJ9");
+        assertArrayEquals(expected, Base64UrlCodec.decode(s, 3, 20));
+        assertArrayEquals(expected, Base64UrlCodec.decode(new StringBuilder(s), 3, 20));
+        assertThat(Base64UrlCodec.decode(s, 3, 0).length, is(0));
+    }
+
+    @Test
+    public void nulls()
+    {
+        assertThat(Base64UrlCodec.decode(null), nullValue());
+        assertThat(Base64UrlCodec.encode(null), nullValue());
+        assertThat(Base64Url.decode(null), nullValue());
+        assertThat(Base64Url.encode((byte[]) null), nullValue());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void badRange()
+    {
+        Base64UrlCodec.decode("abcd", 2, 3);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jose4j.lang.StringUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class AsyncGetTest
+{
+    private HttpServer server;
+    private String location;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failFirst;
+    private volatile CountDownLatch served = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                int count = requests.incrementAndGet();
+                boolean fail = count <= failFirst;
+                byte[] body = StringUtil.getBytesUtf8(fail ? "nope" : "hello " + count + " " + exchange.getRequestHeaders().getFirst("X-Test"));
+                exchange.sendResponseHeaders(fail ? 503 : 200, body.length);
+                try (OutputStream os = exchange.getResponseBody())
+                {
+                    os.write(body);
+                }
+                served.countDown();
+            }
+        });
+        server.start();
+        location = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void getsAsync() throws Exception
+    {
+        AsyncGet get = new AsyncGet();
+        final CountDownLatch called = new CountDownLatch(1);
+        final AtomicReference<SimpleResponse> fromCallback = new AtomicReference<>();
+        Future<SimpleResponse> future = get.getAsync(location, Collections.singletonMap("X-Test", "yes"), new AsyncSimpleGet.Callback()
+        {
+            @Override
+            public void completed(SimpleResponse response)
+            {
+                fromCallback.set(response);
+                called.countDown();
+            }
+
+            @Override
+            public void failed(IOException e)
+            {
+                called.countDown();
+            }
+        });
+
+        SimpleResponse response = future.get(10, TimeUnit.SECONDS);
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(response.getBody(), equalTo("hello 1 yes"));
+        assertTrue(called.await(10, TimeUnit.SECONDS));
+        assertSame(response, fromCallback.get());
+        assertTrue(future.isDone());
+
+        // the blocking get still works too
+        assertThat(get.get(location).getBody(), equalTo("hello 2 null"));
+    }
+
+    @Test
+    public void retries() throws Exception
+    {
+        failFirst = 2;
+        AsyncGet get = new AsyncGet();
+        get.setInitialRetryWaitTime(10);
+        SimpleResponse response = get.getAsync(location, Collections.<String, String>emptyMap(), null).get(10, TimeUnit.SECONDS);
+        assertThat(response.getBody(), equalTo("hello 3 null"));
+        assertThat(requests.get(), is(3));
+    }
+
+    @Test
+    public void failsAfterRetries() throws Exception
+    {
+        failFirst = 100;
+        AsyncGet get = new AsyncGet();
+        get.setInitialRetryWaitTime(10);
+        get.setRetries(2);
+        final CountDownLatch failed = new CountDownLatch(1);
+        Future<SimpleResponse> future = get.getAsync(location, Collections.<String, String>emptyMap(), new AsyncSimpleGet.Callback()
+        {
+            @Override
+            public void completed(SimpleResponse response)
+            {
+            }
+
+            @Override
+            public void failed(IOException e)
+            {
+                failed.countDown();
+            }
+        });
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+            fail("should have failed");
+        }
+        catch (ExecutionException e)
+        {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        assertThat(requests.get(), is(3));
+    }
+
+    @Test
+    public void cancelStopsRetrying() throws Exception
+    {
+        failFirst = 100;
+        AsyncGet get = new AsyncGet();
+        get.setInitialRetryWaitTime(500);
+        get.setProgressiveRetryWait(false);
+        Future<SimpleResponse> future = get.getAsync(location, Collections.<String, String>emptyMap(), null);
+        assertTrue(served.await(10, TimeUnit.SECONDS));
+        served = new CountDownLatch(1);
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+
+        // the retry would have come 500ms after the first attempt
+        assertFalse(served.await(1500, TimeUnit.MILLISECONDS));
+        assertThat(requests.get(), is(1));
+    }
+
+    @Test
+    public void hugeContentLengthDoesNotSizeTheBuffer() throws Exception
+    {
+        try (final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("localhost")))
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try (Socket socket = serverSocket.accept())
+                    {
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StringUtil.US_ASCII));
+                        String line;
+                        while ((line = reader.readLine()) != null && !line.isEmpty())
+                        {
+                            // skip the request
+                        }
+                        OutputStream os = socket.getOutputStream();
+                        os.write(StringUtil.getBytesAscii("HTTP/1.1 200 OK\r\nContent-Length: 2000000000\r\n\r\nnot nearly that much"));
+                        os.flush();
+                    }
+                    catch (IOException e)
+                    {
+                        // the test will fail
+                    }
+                }
+            };
+            thread.start();
+
+            Get get = new Get();
+            get.setResponseBodySizeLimit(-1);
+            get.setRetries(0);
+            // rather than an OutOfMemoryError from sizing a buffer for 2000000000 characters
+            SimpleResponse response = get.get("http://localhost:" + serverSocket.getLocalPort() + "/");
+            assertThat(response.getBody(), equalTo("not nearly that much"));
+            thread.join(10000);
+        }
+    }
+
+    @Test
+    public void badLocation() throws Exception
+    {
+        Future<SimpleResponse> future = new AsyncGet().getAsync("not a url", Collections.<String, String>emptyMap(), null);
+        assertTrue(future.isDone());
+        try
+        {
+            future.get();
+            fail("should have failed");
+        }
+        catch (ExecutionException e)
+        {
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
+    }
+}
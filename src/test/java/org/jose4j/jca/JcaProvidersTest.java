@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jca;
+
+import org.jose4j.lang.HashUtil;
+import org.jose4j.lang.StringUtil;
+import org.jose4j.lang.UncheckedJoseException;
+import org.jose4j.mac.MacUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.security.MessageDigestSpi;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Provider;
+import java.security.Security;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class JcaProvidersTest
+{
+    private static final String NAME = "NotInstalledTestProvider";
+
+    @After
+    public void cleanUp()
+    {
+        JcaProviders.unregister(NAME);
+    }
+
+    @Test
+    public void installedProvidersAreResolvedOnce() throws Exception
+    {
+        String name = Security.getProviders()[0].getName();
+        Provider provider = JcaProviders.getProvider(name);
+        assertThat(provider, sameInstance(Security.getProvider(name)));
+        assertThat(JcaProviders.getProvider(name), sameInstance(provider));
+    }
+
+    @Test(expected = NoSuchProviderException.class)
+    public void unknownProvider() throws Exception
+    {
+        JcaProviders.getProvider("no-such-provider-here");
+    }
+
+    @Test
+    public void registeredProviderIsUsedByName() throws Exception
+    {
+        Provider provider = new TestProvider();
+        JcaProviders.register(provider);
+
+        ProviderContext providerContext = new ProviderContext();
+        providerContext.getGeneralProviderContext().setMessageDigestProvider(NAME);
+        String providerName = providerContext.getGeneralProviderContext().getMessageDigestProvider();
+
+        MessageDigest messageDigest = HashUtil.getMessageDigest(HashUtil.SHA_256, providerName);
+        assertThat(messageDigest.getProvider(), sameInstance(provider));
+        byte[] input = StringUtil.getBytesUtf8("abc");
+        assertArrayEquals(HashUtil.getMessageDigest(HashUtil.SHA_256).digest(input), messageDigest.digest(input));
+
+        assertThat(JcaProviders.getService("MessageDigest", HashUtil.SHA_256, NAME).getProvider(), sameInstance(provider));
+        assertThat(JcaProviders.getService("Mac", MacUtil.HMAC_SHA256, NAME), nullValue());
+
+        JcaProviders.unregister(NAME);
+        try
+        {
+            HashUtil.getMessageDigest(HashUtil.SHA_256, providerName);
+            fail("shouldn't be there anymore");
+        }
+        catch (UncheckedJoseException e)
+        {
+            assertThat(e.getCause(), instanceOf(NoSuchProviderException.class));
+        }
+    }
+
+    @Test
+    public void servicesFromInstalledProviders() throws Exception
+    {
+        assertNotNull(JcaProviders.getService("Mac", MacUtil.HMAC_SHA256, null));
+        assertNotNull(JcaProviders.getService("Signature", "SHA256withRSA", null));
+        assertThat(JcaProviders.getService("Signature", "SHA256withNothing", null), nullValue());
+        assertThat(JcaProviders.getService("Cipher", "AES/GCM/NoPadding", "no-such-provider-here"), nullValue());
+    }
+
+    public static class TestProvider extends Provider
+    {
+        public TestProvider()
+        {
+            super(NAME, 1.0, "only for testing");
+            putService(new Service(this, "MessageDigest", HashUtil.SHA_256, TestSha256.class.getName(), null, null));
+        }
+    }
+
+    public static class TestSha256 extends MessageDigestSpi
+    {
+        private final MessageDigest delegate;
+
+        public TestSha256() throws NoSuchAlgorithmException
+        {
+            delegate = MessageDigest.getInstance(HashUtil.SHA_256);
+        }
+
+        @Override
+        protected void engineUpdate(byte input)
+        {
+            delegate.update(input);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len)
+        {
+            delegate.update(input, offset, len);
+        }
+
+        @Override
+        protected byte[] engineDigest()
+        {
+            return delegate.digest();
+        }
+
+        @Override
+        protected void engineReset()
+        {
+            delegate.reset();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.json;
+
+import org.jose4j.json.internal.json_simple.parser.ContainerFactory;
+import org.jose4j.json.internal.json_simple.parser.JSONParser;
+import org.jose4j.json.internal.json_simple.parser.ParseException;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ */
+public class JsonParserTest
+{
+    private static final String[] SAME_AS_JSON_SIMPLE = {
+        "{}",
+        " {\"alg\":\"RS256\",\"kid\":\"k1\"} ",
+        "{\"a\":1,\"b\":-2,\"c\":3.5,\"d\":-1.0e-7,\"e\":2E10,\"f\":0,\"g\":9223372036854775807,\"h\":-9223372036854775808}",
+        "{\"big\":9223372036854775808,\"bigger\":-99990193716474719874987981237498321343555513331108571735145}",
+        "{\"t\":true,\"f\":false,\"n\":null}",
+        "{\"arr\":[1,\"two\",[3,[]],{\"four\":{}}],\"empty\":[]}",
+        "{\"esc\":\"q\\\" bs\\\\ sl\\/ \\b\\f\\n\\r\\t \\u00e9\\u20AC end\"}",
+        "{\"unicode\":\"\u00fc\u00f1\u00ee\u00e7\u00f8d\u00e9 \uD83D\uDE00\"}",
+        "{\r\n\t\"iss\" : \"https://example.com\" ,\n \"aud\" : [ \"a\" , \"b\" ] ,\n \"exp\" : 1300819380\r\n}",
+        // json_simple was lenient about separators and there's JSON out there that depends on it
+        "{\"a\" 1}",
+        "{\"a\":1,}",
+        "{,\"a\":1,,\"b\"::2}",
+        "{\"a\":1 \"b\":2}",
+        "{\"a\":[1,]}",
+        "{\"a\":[1 2,,3]}",
+    };
+
+    private static final String[] INVALID = {
+        "",
+        "   ",
+        "[]",
+        "\"str\"",
+        "1",
+        "{",
+        "}",
+        "{\"a\"}",
+        "{\"a\":}",
+        "{\"a\",1}",
+        "{\"a\":[1:2]}",
+        "{\"a\":tru}",
+        "{\"a\":nul}",
+        "{\"a\":-}",
+        "{\"a\":1.}",
+        "{\"a\":1e}",
+        "{\"a\":\"unterminated}",
+        "{\"a\":\"bad escape \\x\"}",
+        "{\"a\":\"short \\u12\"}",
+        "{\"a\":\"bad hex \\u12G4\"}",
+        "{a:1}",
+        "{\"a\":1}x",
+        "{\"a\":1}{}",
+    };
+
+    @Test
+    public void sameResultsAsJsonSimple() throws Exception
+    {
+        for (String json : SAME_AS_JSON_SIMPLE)
+        {
+            Map<String, Object> expected = parseWithJsonSimple(json);
+            Map<String, Object> actual = JsonParser.parseObject(json);
+            Assert.assertEquals(json, expected, actual);
+            Assert.assertEquals(json, expected.toString(), actual.toString());
+            assertSameTypes(expected, actual);
+        }
+    }
+
+    @Test
+    public void utf8BytesSameAsString() throws Exception
+    {
+        for (String json : SAME_AS_JSON_SIMPLE)
+        {
+            byte[] utf8 = StringUtil.getBytesUtf8(json);
+            Map<String, Object> expected = JsonParser.parseObject(json);
+            Map<String, Object> actual = JsonParser.parseObject(utf8, 0, utf8.length);
+            Assert.assertEquals(json, expected, actual);
+            assertSameTypes(expected, actual);
+
+            byte[] padded = StringUtil.getBytesUtf8("\u00e9[" + json + "]\u00e9");
+            int offset = 3;
+            actual = JsonUtil.parseJson(padded, offset, utf8.length);
+            Assert.assertEquals(json, expected, actual);
+        }
+
+        for (String json : INVALID)
+        {
+            byte[] utf8 = StringUtil.getBytesUtf8(json);
+            try
+            {
+                Map<String, Object> map = JsonUtil.parseJson(utf8, 0, utf8.length);
+                Assert.fail("parsing of " + json + " should fail but returned " + map);
+            }
+            catch (JoseException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void utf8EscapesMixedWithMultiByte() throws Exception
+    {
+        String json = "{\"\u00fcber\":\"\u4e2d\\u6587\\\"\uD83D\uDE00\\n\u00e9\"}";
+        byte[] utf8 = StringUtil.getBytesUtf8(json);
+        Map<String, Object> map = JsonUtil.parseJson(utf8, 0, utf8.length);
+        Assert.assertEquals("\u4e2d\u6587\"\uD83D\uDE00\n\u00e9", map.get("\u00fcber"));
+    }
+
+    @Test
+    public void numberTypes() throws Exception
+    {
+        Map<String, Object> map = JsonParser.parseObject("{\"l\":1300819380,\"m\":-9223372036854775808,\"b\":9223372036854775808,\"d\":1.5}");
+        Assert.assertEquals(1300819380L, map.get("l"));
+        Assert.assertEquals(Long.MIN_VALUE, map.get("m"));
+        Assert.assertEquals(new BigInteger("9223372036854775808"), map.get("b"));
+        Assert.assertEquals(1.5d, map.get("d"));
+    }
+
+    @Test
+    public void offsetAndLength() throws Exception
+    {
+        String json = "xx{\"a\":\"b\"}yy";
+        Map<String, Object> map = JsonParser.parseObject(json, 2, json.length() - 4);
+        Assert.assertEquals("b", map.get("a"));
+
+        try
+        {
+            JsonParser.parseObject(json, 2, json.length() - 5);
+            Assert.fail("shouldn't parse a truncated object");
+        }
+        catch (ParseException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void invalid()
+    {
+        for (String json : INVALID)
+        {
+            try
+            {
+                Map<String, Object> map = JsonUtil.parseJson(json);
+                Assert.fail("parsing of " + json + " should fail but returned " + map);
+            }
+            catch (JoseException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void disallowDupesNested()
+    {
+        String json = "{\"a\":{\"x\":1},\"b\":[{\"y\":1,\"y\":2}]}";
+        try
+        {
+            Map<String,?> map = JsonUtil.parseJson(json);
+            Assert.fail("parsing of " + json + " should fail because the same member name occurs multiple times but returned: " + map);
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void tooDeep() throws Exception
+    {
+        StringBuilder ok = new StringBuilder("{\"a\":");
+        StringBuilder tooDeep = new StringBuilder("{\"a\":");
+        for (int i = 0; i < JsonParser.MAX_DEPTH - 1; i++)
+        {
+            ok.append('[');
+        }
+        for (int i = 0; i < JsonParser.MAX_DEPTH; i++)
+        {
+            tooDeep.append('[');
+        }
+        for (int i = 0; i < JsonParser.MAX_DEPTH - 1; i++)
+        {
+            ok.append(']');
+        }
+        for (int i = 0; i < JsonParser.MAX_DEPTH; i++)
+        {
+            tooDeep.append(']');
+        }
+        ok.append('}');
+        tooDeep.append('}');
+
+        JsonUtil.parseJson(ok.toString());
+
+        try
+        {
+            JsonUtil.parseJson(tooDeep.toString());
+            Assert.fail("should have failed on too deep nesting");
+        }
+        catch (JoseException e)
+        {
+            // expected
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parseWithJsonSimple(String json) throws ParseException
+    {
+        ContainerFactory containerFactory = new ContainerFactory()
+        {
+            public List creatArrayContainer()
+            {
+                return new ArrayList<Object>();
+            }
+
+            public Map createObjectContainer()
+            {
+                return new JsonUtil.DupeKeyDisallowingLinkedHashMap();
+            }
+        };
+        return (Map<String, Object>) new JSONParser().parse(json, containerFactory);
+    }
+
+    private static void assertSameTypes(Object expected, Object actual)
+    {
+        if (expected == null)
+        {
+            Assert.assertNull(actual);
+            return;
+        }
+        Assert.assertEquals(expected.getClass(), actual.getClass());
+        if (expected instanceof Map)
+        {
+            Map<?, ?> expectedMap = (Map<?, ?>) expected;
+            Map<?, ?> actualMap = (Map<?, ?>) actual;
+            Assert.assertEquals(Arrays.asList(expectedMap.keySet().toArray()), Arrays.asList(actualMap.keySet().toArray()));
+            for (Object key : expectedMap.keySet())
+            {
+                assertSameTypes(expectedMap.get(key), actualMap.get(key));
+            }
+        }
+        else if (expected instanceof List)
+        {
+            List<?> expectedList = (List<?>) expected;
+            List<?> actualList = (List<?>) actual;
+            Assert.assertEquals(expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++)
+            {
+                assertSameTypes(expectedList.get(i), actualList.get(i));
+            }
+        }
+    }
+}
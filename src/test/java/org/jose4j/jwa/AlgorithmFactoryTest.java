@@ -17,9 +17,26 @@
 package org.jose4j.jwa;
 
 import junit.framework.TestCase;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jws.JsonWebSignatureAlgorithm;
+import org.jose4j.keys.KeyPersuasion;
+import org.jose4j.lang.InvalidAlgorithmException;
 import org.jose4j.lang.JoseException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  */
 public class AlgorithmFactoryTest extends TestCase
@@ -38,4 +55,257 @@ public class AlgorithmFactoryTest extends TestCase
             assertTrue(jwsAlgorithmFactory.isAvailable(algo));
         }
     }
+
+    public void testUncheckedRegistration() throws JoseException
+    {
+        AlgorithmFactory<Algorithm> factory = new AlgorithmFactory<>("alg", Algorithm.class);
+        CountingAlgorithm yes = new CountingAlgorithm("yes", true);
+        CountingAlgorithm no = new CountingAlgorithm("no", false);
+        CountingAlgorithm later = new CountingAlgorithm("later", true);
+        factory.registerAlgorithmUnchecked(yes);
+        factory.registerAlgorithmUnchecked(no);
+        factory.registerAlgorithmUnchecked(later);
+        assertEquals(0, yes.checks.get() + no.checks.get() + later.checks.get());
+
+        assertSame(yes, factory.getAlgorithm("yes"));
+        assertSame(yes, factory.getAlgorithm("yes"));
+        assertTrue(factory.isAvailable("yes"));
+        assertEquals(1, yes.checks.get());
+        assertEquals(0, no.checks.get());
+
+        assertFalse(factory.isAvailable("no"));
+        assertFalse(factory.isAvailable("no"));
+        assertEquals(1, no.checks.get());
+        try
+        {
+            factory.getAlgorithm("no");
+            fail("no shouldn't be available");
+        }
+        catch (InvalidAlgorithmException e)
+        {
+            // expected
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList("yes", "later")), factory.getSupportedAlgorithms());
+        assertEquals(1, later.checks.get());
+        assertTrue(factory.getUncheckedAlgorithms().isEmpty());
+
+        factory.unregisterAlgorithm("yes");
+        assertFalse(factory.isAvailable("yes"));
+    }
+
+    public void testCheckAvailabilityConcurrently() throws Exception
+    {
+        final AlgorithmFactory<Algorithm> factory = new AlgorithmFactory<>("alg", Algorithm.class);
+        for (int i = 0; i < 20; i++)
+        {
+            factory.registerAlgorithmUnchecked(new CountingAlgorithm("a" + i, i % 2 == 0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 80; i++)
+            {
+                final String algId = "a" + (i % 20);
+                futures.add(executor.submit(new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call() throws Exception
+                    {
+                        return factory.isAvailable(algId);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++)
+            {
+                assertEquals(i % 2 == 0, futures.get(i).get().booleanValue());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertEquals(10, factory.getSupportedAlgorithms().size());
+    }
+
+    public void testLazyAndBackgroundInitialization() throws Exception
+    {
+        AlgorithmFactoryFactory aff = AlgorithmFactoryFactory.getInstance();
+        assertEquals(AlgorithmFactoryFactory.AvailabilityCheck.EAGER, aff.getAvailabilityCheck());
+        Set<String> eagerJws = aff.getJwsAlgorithmFactory().getSupportedAlgorithms();
+        Set<String> eagerEnc = aff.getJweContentEncryptionAlgorithmFactory().getSupportedAlgorithms();
+
+        try
+        {
+            for (AlgorithmFactoryFactory.AvailabilityCheck check : AlgorithmFactoryFactory.AvailabilityCheck.values())
+            {
+                System.setProperty(AlgorithmFactoryFactory.AVAILABILITY_CHECK_PROPERTY, check.name().toLowerCase());
+                aff.reinitialize();
+                assertEquals(check, aff.getAvailabilityCheck());
+                assertTrue(aff.getJwsAlgorithmFactory().isAvailable(AlgorithmIdentifiers.HMAC_SHA256));
+                assertNotNull(aff.getJweContentEncryptionAlgorithmFactory().getAlgorithm(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256));
+                assertEquals(eagerJws, aff.getJwsAlgorithmFactory().getSupportedAlgorithms());
+                assertEquals(eagerEnc, aff.getJweContentEncryptionAlgorithmFactory().getSupportedAlgorithms());
+            }
+        }
+        finally
+        {
+            System.clearProperty(AlgorithmFactoryFactory.AVAILABILITY_CHECK_PROPERTY);
+            aff.reinitialize();
+        }
+    }
+
+    public void testConstrainedLookup() throws Exception
+    {
+        AlgorithmFactory<Algorithm> factory = new AlgorithmFactory<>("alg", Algorithm.class);
+        factory.registerAlgorithm(new CountingAlgorithm("a", true));
+        factory.registerAlgorithm(new CountingAlgorithm("b", true));
+        AlgorithmConstraints onlyA = new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.WHITELIST, "a", "c");
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertSame(factory.getAlgorithm("a"), factory.getAlgorithm("a", onlyA));
+            expectSameProblem(factory, onlyA, "b");
+            expectSameProblem(factory, onlyA, "c");
+            expectSameProblem(factory, onlyA, "nope");
+        }
+
+        // the precomputed table has to follow changes to what's registered
+        CountingAlgorithm c = new CountingAlgorithm("c", true);
+        factory.registerAlgorithm(c);
+        assertSame(c, factory.getAlgorithm("c", onlyA));
+        factory.unregisterAlgorithm("a");
+        expectSameProblem(factory, onlyA, "a");
+
+        AlgorithmConstraints subclass = new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.BLACKLIST)
+        {
+            @Override
+            public void checkConstraint(String algorithm) throws InvalidAlgorithmException
+            {
+                throw new InvalidAlgorithmException("nothing is allowed");
+            }
+        };
+        expectSameProblem(factory, subclass, "c");
+    }
+
+    public void testConstraintsSharedByFactories() throws Exception
+    {
+        AlgorithmFactory<Algorithm> one = new AlgorithmFactory<>("alg", Algorithm.class);
+        AlgorithmFactory<Algorithm> two = new AlgorithmFactory<>("enc", Algorithm.class);
+        CountingAlgorithm a1 = new CountingAlgorithm("a", true);
+        CountingAlgorithm a2 = new CountingAlgorithm("a", true);
+        one.registerAlgorithm(a1);
+        two.registerAlgorithm(a2);
+        AlgorithmConstraints constraints = new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.BLACKLIST, "b");
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertSame(a1, one.getAlgorithm("a", constraints));
+            assertSame(a2, two.getAlgorithm("a", constraints));
+        }
+        assertEquals(2, constraints.getConstrainedTables().length);
+
+        // a new snapshot replaces that factory's table rather than adding to them
+        one.registerAlgorithm(new CountingAlgorithm("b", true));
+        expectSameProblem(one, constraints, "b");
+        assertSame(a2, two.getAlgorithm("a", constraints));
+        assertEquals(2, constraints.getConstrainedTables().length);
+    }
+
+    private void expectSameProblem(AlgorithmFactory<Algorithm> factory, AlgorithmConstraints constraints, String algId)
+    {
+        String expected;
+        try
+        {
+            constraints.checkConstraint(algId);
+            factory.getAlgorithm(algId);
+            fail(algId + " should have been a problem");
+            return;
+        }
+        catch (InvalidAlgorithmException e)
+        {
+            expected = e.getMessage();
+        }
+
+        try
+        {
+            factory.getAlgorithm(algId, constraints);
+            fail(algId + " should have been a problem");
+        }
+        catch (InvalidAlgorithmException e)
+        {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    public void testLookupsWhileChanging() throws Exception
+    {
+        final AlgorithmFactory<Algorithm> factory = new AlgorithmFactory<>("alg", Algorithm.class);
+        final CountingAlgorithm stable = new CountingAlgorithm("stable", true);
+        factory.registerAlgorithm(stable);
+        final AlgorithmConstraints constraints = new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.BLACKLIST, "x3");
+        final AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<Boolean>> lookups = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+            {
+                lookups.add(executor.submit(new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call() throws Exception
+                    {
+                        while (!done.get())
+                        {
+                            assertSame(stable, factory.getAlgorithm("stable"));
+                            assertSame(stable, factory.getAlgorithm("stable", constraints));
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < 2000; i++)
+            {
+                String algId = "x" + (i % 5);
+                factory.registerAlgorithm(new CountingAlgorithm(algId, true));
+                factory.unregisterAlgorithm(algId);
+            }
+            done.set(true);
+
+            for (Future<Boolean> lookup : lookups)
+            {
+                assertTrue(lookup.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertEquals(Collections.singleton("stable"), factory.getSupportedAlgorithms());
+    }
+
+    private static class CountingAlgorithm extends AlgorithmInfo
+    {
+        private final AtomicInteger checks = new AtomicInteger();
+        private final boolean available;
+
+        private CountingAlgorithm(String algId, boolean available)
+        {
+            setAlgorithmIdentifier(algId);
+            setKeyPersuasion(KeyPersuasion.SYMMETRIC);
+            this.available = available;
+        }
+
+        @Override
+        public boolean isAvailable()
+        {
+            checks.incrementAndGet();
+            return available;
+        }
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwe;
+
+import org.jose4j.jca.ProviderContextTest;
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jwa.AlgorithmFactoryFactory;
+import org.jose4j.keys.AesKey;
+import org.jose4j.keys.ExampleEcKeysFromJws;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.PbkdfKey;
+import org.jose4j.keys.RsaKeyUtil;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.StringUtil;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import java.lang.ref.WeakReference;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class CipherUtilTest
+{
+    @Test
+    public void borrowedCiphersAreReused() throws Exception
+    {
+        String transformation = "AES/CBC/PKCS5Padding";
+        String provider = "SunJCE";
+        Cipher cipher = CipherUtil.borrowCipher(transformation, provider);
+        int idle = CipherUtil.idleCount(transformation, provider);
+        CipherUtil.releaseCipher(transformation, provider, cipher);
+        assertThat(CipherUtil.idleCount(transformation, provider), is(idle + 1));
+        assertThat(CipherUtil.borrowCipher(transformation, provider), sameInstance(cipher));
+        assertThat(CipherUtil.idleCount(transformation, provider), is(idle));
+    }
+
+    @Test
+    public void idleCiphersAreBounded() throws Exception
+    {
+        String transformation = "AES/ECB/NoPadding";
+        for (int i = 0; i < CipherUtil.MAX_IDLE_PER_TRANSFORMATION + 5; i++)
+        {
+            CipherUtil.releaseCipher(transformation, null, CipherUtil.getCipher(transformation, null));
+        }
+        assertThat(CipherUtil.idleCount(transformation, null), is(CipherUtil.MAX_IDLE_PER_TRANSFORMATION));
+    }
+
+    @Test
+    public void releasedCipherForgetsTheKey() throws Exception
+    {
+        String transformation = "RSA/ECB/PKCS1Padding";
+        int idle = CipherUtil.idleCount(transformation, null);
+        WeakReference<PrivateKey> keyReference = useAndRelease(transformation);
+        for (int i = 0; i < 50 && keyReference.get() != null; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("the pooled cipher is still holding on to the key", keyReference.get());
+        assertThat(CipherUtil.idleCount(transformation, null), is(idle + 1));
+    }
+
+    private WeakReference<PrivateKey> useAndRelease(String transformation) throws Exception
+    {
+        PrivateKey privateKey = new RsaKeyUtil().generateKeyPair(2048).getPrivate();
+        Cipher cipher = CipherUtil.getCipher(transformation, null);
+        cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        CipherUtil.releaseCipher(transformation, null, cipher);
+        return new WeakReference<>(privateKey);
+    }
+
+    @Test
+    public void sameKeyAndIvWithGcmStillEncryptsLikeItDidBeforePooling() throws Exception
+    {
+        SimpleAeadCipher simpleAeadCipher = new SimpleAeadCipher(SimpleAeadCipher.GCM_TRANSFORMATION_NAME, 16);
+        Key key = new AesKey(new byte[16]);
+        byte[] iv = new byte[12];
+        byte[] plaintext = StringUtil.getBytesUtf8("plaintext");
+        SimpleAeadCipher.CipherOutput first = simpleAeadCipher.encrypt(key, iv, plaintext, null, null);
+        SimpleAeadCipher.CipherOutput second = simpleAeadCipher.encrypt(key, iv, plaintext, null, null);
+        assertArrayEquals(first.getCiphertext(), second.getCiphertext());
+        assertArrayEquals(first.getTag(), second.getTag());
+        assertArrayEquals(plaintext, simpleAeadCipher.decrypt(key, iv, second.getCiphertext(), second.getTag(), null, null));
+    }
+
+    @Test
+    public void roundTripEveryAlgAndEncPairConcurrently() throws Exception
+    {
+        AlgorithmFactoryFactory factoryFactory = AlgorithmFactoryFactory.getInstance();
+        Set<String> algs = factoryFactory.getJweKeyManagementAlgorithmFactory().getSupportedAlgorithms();
+        final Set<String> encs = factoryFactory.getJweContentEncryptionAlgorithmFactory().getSupportedAlgorithms();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final String alg : algs)
+            {
+                for (final String enc : encs)
+                {
+                    for (int i = 0; i < 3; i++)
+                    {
+                        futures.add(executor.submit(new Callable<Void>()
+                        {
+                            @Override
+                            public Void call() throws Exception
+                            {
+                                roundTrip(alg, enc);
+                                return null;
+                            }
+                        }));
+                    }
+                }
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void roundTrip(String alg, String enc) throws Exception
+    {
+        Key encryptionKey;
+        Key decryptionKey;
+        if (alg.startsWith("RSA"))
+        {
+            encryptionKey = ExampleRsaKeyFromJws.PUBLIC_KEY;
+            decryptionKey = ExampleRsaKeyFromJws.PRIVATE_KEY;
+        }
+        else if (alg.startsWith("ECDH-ES"))
+        {
+            encryptionKey = ExampleEcKeysFromJws.PUBLIC_256;
+            decryptionKey = ExampleEcKeysFromJws.PRIVATE_256;
+        }
+        else if (alg.startsWith("PBES2"))
+        {
+            encryptionKey = decryptionKey = new PbkdfKey("don't tell anyone");
+        }
+        else if (alg.equals(KeyManagementAlgorithmIdentifiers.DIRECT))
+        {
+            ContentEncryptionAlgorithm contentEncryptionAlg = AlgorithmFactoryFactory.getInstance().getJweContentEncryptionAlgorithmFactory().getAlgorithm(enc);
+            int keyLength = contentEncryptionAlg.getContentEncryptionKeyDescriptor().getContentEncryptionKeyByteLength();
+            encryptionKey = decryptionKey = new AesKey(ByteUtil.randomBytes(keyLength));
+        }
+        else
+        {
+            int keyBits = Integer.parseInt(alg.substring(1, 4));
+            encryptionKey = decryptionKey = new AesKey(ByteUtil.randomBytes(ByteUtil.byteLength(keyBits)));
+        }
+
+        String plaintext = alg + " " + enc;
+        JsonWebEncryption jwe = new JsonWebEncryption();
+        jwe.setAlgorithmHeaderValue(alg);
+        jwe.setEncryptionMethodHeaderParameter(enc);
+        jwe.setKey(encryptionKey);
+        jwe.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jwe.setPlaintext(plaintext);
+        jwe.setProviderContext(ProviderContextTest.EMPTY_CONTEXT);
+        String compactSerialization = jwe.getCompactSerialization();
+
+        jwe = new JsonWebEncryption();
+        jwe.setAlgorithmConstraints(AlgorithmConstraints.NO_CONSTRAINTS);
+        jwe.setCompactSerialization(compactSerialization);
+        jwe.setKey(decryptionKey);
+        assertThat(jwe.getPlaintextString(), equalTo(plaintext));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jose4j.http.Get;
+import org.jose4j.http.SimpleGet;
+import org.jose4j.http.SimpleResponse;
+import org.jose4j.lang.StringUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class HttpsJwksConditionalGetTest
+{
+    private HttpServer server;
+    private String location;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private volatile String version = "1";
+    private volatile boolean useEtag = true;
+
+    @Before
+    public void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                String etag = "\"v" + version + "\"";
+                String lastModified = "Sun, 06 Nov 1994 08:49:3" + version + " GMT";
+                String validator = useEtag ? exchange.getRequestHeaders().getFirst("If-None-Match") : exchange.getRequestHeaders().getFirst("If-Modified-Since");
+                exchange.getResponseHeaders().add(useEtag ? "ETag" : "Last-Modified", useEtag ? etag : lastModified);
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+                if (validator != null && validator.equals(useEtag ? etag : lastModified))
+                {
+                    notModifiedResponses.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                fullResponses.incrementAndGet();
+                byte[] body = StringUtil.getBytesUtf8("{\"keys\":[{\"kty\":\"oct\",\"kid\":\"k" + version + "\",\"k\":\"Z2FnYWdhZ2FnYWdhZ2FnYQ\"}]}");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody())
+                {
+                    os.write(body);
+                }
+            }
+        });
+        server.start();
+        location = "http://localhost:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void revalidatesWithEtag() throws Exception
+    {
+        checkRevalidation();
+    }
+
+    @Test
+    public void revalidatesWithLastModified() throws Exception
+    {
+        useEtag = false;
+        checkRevalidation();
+    }
+
+    private void checkRevalidation() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setRefreshReprieveThreshold(0);
+        List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+        assertThat(keys.get(0).getKeyId(), equalTo("k1"));
+
+        httpsJwks.refresh();
+        httpsJwks.refresh();
+        assertThat(httpsJwks.getJsonWebKeys(), sameInstance(keys));
+        assertThat(fullResponses.get(), is(1));
+        assertThat(notModifiedResponses.get(), is(2));
+
+        version = "2";
+        httpsJwks.refresh();
+        List<JsonWebKey> newKeys = httpsJwks.getJsonWebKeys();
+        assertThat(newKeys, not(sameInstance(keys)));
+        assertThat(newKeys.get(0).getKeyId(), equalTo("k2"));
+        assertThat(fullResponses.get(), is(2));
+
+        httpsJwks.refresh();
+        assertThat(httpsJwks.getJsonWebKeys(), sameInstance(newKeys));
+        assertThat(notModifiedResponses.get(), is(3));
+    }
+
+    @Test
+    public void plainSimpleGetStillWorks() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setRefreshReprieveThreshold(0);
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                return new Get().get(location);
+            }
+        });
+        httpsJwks.getJsonWebKeys();
+        httpsJwks.refresh();
+        assertThat(fullResponses.get(), is(2));
+        assertThat(notModifiedResponses.get(), is(0));
+    }
+
+    @Test
+    public void notModifiedOnlyForConditionalRequests() throws Exception
+    {
+        Get get = new Get();
+        get.setRetries(0);
+        SimpleResponse response = get.get(location, Collections.singletonMap("if-none-match", "\"v1\""));
+        assertThat(response.getStatusCode(), is(304));
+        assertThat(response.getBody(), equalTo(""));
+
+        response = get.get(location, Collections.singletonMap("If-None-Match", "\"something else\""));
+        assertThat(response.getStatusCode(), is(200));
+    }
+}
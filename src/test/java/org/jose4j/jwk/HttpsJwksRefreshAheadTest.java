@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jose4j.http.AsyncGet;
+import org.jose4j.lang.StringUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class HttpsJwksRefreshAheadTest
+{
+    private HttpServer server;
+    private String location;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Semaphore served = new Semaphore(0);
+    private volatile boolean failing;
+
+    @Before
+    public void startServer() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                int count = requests.incrementAndGet();
+                byte[] body = StringUtil.getBytesUtf8(failing ? "nope" : "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"k" + count + "\",\"k\":\"Z2FnYWdhZ2FnYWdhZ2FnYQ\"}]}");
+                // after the first, responses are good for long enough that there's no more refreshing during a test
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=" + (count == 1 ? 10 : 3600));
+                exchange.sendResponseHeaders(failing ? 500 : 200, body.length);
+                try (OutputStream os = exchange.getResponseBody())
+                {
+                    os.write(body);
+                }
+                served.release();
+            }
+        });
+        server.start();
+        location = "http://localhost:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void refreshesInTheBackground() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setRefreshAhead(0.1);
+        checkBackgroundRefresh(httpsJwks);
+
+        httpsJwks.setRefreshAhead(0);
+        assertFalse(httpsJwks.isRefreshAheadScheduled());
+    }
+
+    @Test
+    public void keepsCachedKeysWhenBackgroundRefreshFails() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setRefreshAhead(0.1);
+        assertThat(kid(httpsJwks), equalTo("k1"));
+        awaitServed(1);
+
+        failing = true;
+        awaitServed(1);
+        assertThat(kid(httpsJwks), equalTo("k1"));
+        assertThat(requests.get(), is(2));
+        httpsJwks.setRefreshAhead(0);
+    }
+
+    @Test
+    public void refreshesInTheBackgroundAsync() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks(location);
+        httpsJwks.setSimpleHttpGet(new AsyncGet());
+        httpsJwks.setRefreshAhead(0.1);
+        checkBackgroundRefresh(httpsJwks);
+        httpsJwks.setRefreshAhead(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fractionMustBeLessThanOne()
+    {
+        new HttpsJwks(location).setRefreshAhead(1.0);
+    }
+
+    private void checkBackgroundRefresh(HttpsJwks httpsJwks) throws Exception
+    {
+        assertThat(kid(httpsJwks), equalTo("k1"));
+        awaitServed(1);
+        assertTrue(httpsJwks.isRefreshAheadScheduled());
+
+        // refreshed at a tenth of the cache life without anyone asking
+        awaitServed(1);
+        awaitCachedKid(httpsJwks, "k2");
+        assertThat(kid(httpsJwks), equalTo("k2"));
+        assertThat(requests.get(), is(2));
+        assertTrue(httpsJwks.isRefreshAheadScheduled());
+    }
+
+    private String kid(HttpsJwks httpsJwks) throws Exception
+    {
+        List<JsonWebKey> keys = httpsJwks.getJsonWebKeys();
+        return keys.get(0).getKeyId();
+    }
+
+    private void awaitServed(int responses) throws InterruptedException
+    {
+        assertTrue("no response served in time", served.tryAcquire(responses, 10, TimeUnit.SECONDS));
+    }
+
+    // the response is served before the HttpsJwks gets to process it
+    private void awaitCachedKid(HttpsJwks httpsJwks, String kid) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < end)
+        {
+            JsonWebKeyIndex index = httpsJwks.getCachedJsonWebKeyIndex();
+            if (index != null && kid.equals(index.getJsonWebKeys().get(0).getKeyId()))
+            {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("the cached keys didn't get to " + kid);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class HttpsJwksRegistryTest
+{
+    @Test
+    public void mapsIssuers()
+    {
+        HttpsJwksRegistry registry = new HttpsJwksRegistry();
+        registry.addIssuer("https://one.example.com", "https://one.example.com/jwks");
+        registry.addIssuerPattern(Pattern.compile("https://login\\.example\\.com/([a-z0-9-]+)"), "https://login.example.com/$1/keys");
+
+        assertThat(registry.getJwksLocation("https://one.example.com"), equalTo("https://one.example.com/jwks"));
+        assertThat(registry.getJwksLocation("https://login.example.com/tenant-7"), equalTo("https://login.example.com/tenant-7/keys"));
+        assertNull(registry.getJwksLocation("https://login.example.com/tenant-7/other"));
+        assertNull(registry.getJwksLocation("https://one.example.com/"));
+        assertNull(registry.getJwksLocation(null));
+        assertNull(registry.getHttpsJwks("https://evil.example.com"));
+        assertThat(registry.size(), is(0));
+
+        HttpsJwks httpsJwks = registry.getHttpsJwks("https://login.example.com/a");
+        assertThat(httpsJwks.getLocation(), equalTo("https://login.example.com/a/keys"));
+        assertThat(registry.getHttpsJwks("https://login.example.com/a"), sameInstance(httpsJwks));
+        assertThat(registry.getHttpsJwks("https://login.example.com/b"), not(sameInstance(httpsJwks)));
+        assertThat(registry.size(), is(2));
+    }
+
+    @Test
+    public void dropsLeastRecentlyUsed()
+    {
+        HttpsJwksRegistry registry = new HttpsJwksRegistry();
+        registry.addIssuerPattern(Pattern.compile("iss-(\\d+)"), "https://example.com/$1");
+        registry.setMaxEntries(3);
+
+        HttpsJwks one = registry.getHttpsJwks("iss-1");
+        registry.getHttpsJwks("iss-2");
+        registry.getHttpsJwks("iss-3");
+        assertThat(registry.getHttpsJwks("iss-1"), sameInstance(one));
+        registry.getHttpsJwks("iss-4");  // 2 is least recently used
+        assertThat(registry.size(), is(3));
+        assertThat(registry.getHttpsJwks("iss-1"), sameInstance(one));
+
+        for (int i = 0; i < 100; i++)
+        {
+            registry.getHttpsJwks("iss-" + i);
+        }
+        assertThat(registry.size(), is(3));
+        assertThat(registry.getHttpsJwks("iss-1"), not(sameInstance(one)));
+    }
+
+    @Test
+    public void dropsIdle() throws Exception
+    {
+        final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        HttpsJwksRegistry registry = new HttpsJwksRegistry()
+        {
+            @Override
+            long now()
+            {
+                return clock.get();
+            }
+        };
+        registry.addIssuerPattern(Pattern.compile("iss-(\\d+)"), "https://example.com/$1");
+        registry.setMaxIdleTime(1);
+
+        HttpsJwks one = registry.getHttpsJwks("iss-1");
+        registry.getHttpsJwks("iss-2");
+        clock.addAndGet(1001);
+        registry.getHttpsJwks("iss-3");
+        assertThat(registry.size(), is(1));
+        assertThat(registry.getHttpsJwks("iss-1"), not(sameInstance(one)));
+    }
+
+    @Test
+    public void slowCreationDoesNotBlockOtherIssuers() throws Exception
+    {
+        final CountDownLatch creatingSlow = new CountDownLatch(1);
+        final CountDownLatch finishSlow = new CountDownLatch(1);
+        final HttpsJwksRegistry registry = new HttpsJwksRegistry()
+        {
+            @Override
+            protected HttpsJwks newHttpsJwks(String location)
+            {
+                if (location.endsWith("slow"))
+                {
+                    creatingSlow.countDown();
+                    try
+                    {
+                        finishSlow.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.newHttpsJwks(location);
+            }
+        };
+        registry.addIssuerPattern(Pattern.compile("iss-(\\w+)"), "https://example.com/$1");
+
+        final AtomicReference<HttpsJwks> slow = new AtomicReference<>();
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                slow.set(registry.getHttpsJwks("iss-slow"));
+            }
+        };
+        thread.start();
+        assertTrue(creatingSlow.await(10, TimeUnit.SECONDS));
+
+        assertThat(registry.getHttpsJwks("iss-fast").getLocation(), equalTo("https://example.com/fast"));
+        assertThat(registry.size(), is(1));
+
+        finishSlow.countDown();
+        thread.join(10000);
+        assertThat(slow.get().getLocation(), equalTo("https://example.com/slow"));
+        assertThat(registry.getHttpsJwks("iss-slow"), sameInstance(slow.get()));
+        assertThat(registry.size(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsAtLeastOneEntry()
+    {
+        new HttpsJwksRegistry().setMaxEntries(0);
+    }
+}
@@ -17,6 +17,7 @@ package org.jose4j.jwk;
 
 import org.jose4j.http.Get;
 import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
 import org.jose4j.http.SimpleResponse;
 import org.jose4j.keys.X509Util;
 import org.junit.Ignore;
@@ -36,6 +37,8 @@ import java.util.concurrent.Future;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -105,6 +108,43 @@ public class HttpsJwksTest
         }
     }
 
+    @Test
+    public void testUnchangedKeysAreKeptAcrossRefreshes() throws Exception
+    {
+        final String k1 = "{\"kty\":\"EC\",\"kid\":\"k1\",\"crv\":\"P-256\"," +
+                "\"x\":\"weNJy2HscCSM6AEDTDg04biOvhFhyyWvOHQfeF_PxMQ\",\"y\":\"e8lnCO-AlStT-NJVX-crhB7QRYhiix03illJOVAOyck\"}";
+        final String k2 = "{\"kty\":\"oct\",\"kid\":\"k2\",\"k\":\"Z2FnYWdhZ2FnYWdhZ2FnYQ\"}";
+        final String k3 = "{\"kty\":\"oct\",\"kid\":\"k3\",\"k\":\"aGFoYWhhaGFoYWhhaGFoYQ\"}";
+        final String[] body = {"{\"keys\":[" + k1 + "," + k2 + "]}"};
+
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setRefreshReprieveThreshold(0);
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location)
+            {
+                return new Response(200, "OK", Collections.<String, List<String>>emptyMap(), body[0]);
+            }
+        });
+
+        List<JsonWebKey> first = httpsJwks.getJsonWebKeys();
+        JsonWebKeyIndex firstIndex = httpsJwks.getJsonWebKeyIndex();
+        httpsJwks.refresh();
+        assertSame(firstIndex, httpsJwks.getJsonWebKeyIndex());
+        assertSame(first.get(0), httpsJwks.getJsonWebKeys().get(0));
+
+        // k2 changes, k3 is new and k1 is the same but moves
+        body[0] = "{\"keys\":[" + k3 + "," + k2.replace("\"k2\"", "\"k2\",\"use\":\"sig\"") + "," + k1 + "]}";
+        httpsJwks.refresh();
+        List<JsonWebKey> second = httpsJwks.getJsonWebKeys();
+        assertThat(second.size(), equalTo(3));
+        assertThat(second.get(0).getKeyId(), equalTo("k3"));
+        assertNotSame(first.get(1), second.get(1));
+        assertThat(second.get(1).getUse(), equalTo("sig"));
+        assertSame(first.get(0), second.get(2));
+    }
+
     // todo more tests
 
     @Test
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.EllipticCurves;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class JsonWebKeyIndexTest
+{
+    private static final String[] KIDS = {"a", "b", "c", null};
+    private static final String[] USES = {Use.SIGNATURE, Use.ENCRYPTION, null};
+    private static final String[] THUMBS = {"t1", "t2", null};
+
+    private static List<JsonWebKey> keys;
+
+    @BeforeClass
+    public static void makeKeys() throws Exception
+    {
+        List<JsonWebKey> bases = new ArrayList<>();
+        bases.add(RsaJwkGenerator.generateJwk(2048));
+        bases.add(EcJwkGenerator.generateJwk(EllipticCurves.P256));
+        bases.add(EcJwkGenerator.generateJwk(EllipticCurves.P384));
+        bases.add(OctJwkGenerator.generateJwk(256));
+
+        // lots of overlapping and missing values
+        keys = new ArrayList<>();
+        int i = 0;
+        for (JsonWebKey base : bases)
+        {
+            for (String kid : KIDS)
+            {
+                for (String use : USES)
+                {
+                    JsonWebKey jwk = JsonWebKey.Factory.newJwk(base.toParams(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE));
+                    jwk.setKeyId(kid);
+                    jwk.setUse(use);
+                    String[] algs = {null, AlgorithmIdentifiers.RSA_USING_SHA256, AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256};
+                    jwk.setAlgorithm(algs[i % algs.length]);
+                    if (i % 5 == 0)
+                    {
+                        jwk.setKeyOps(Collections.singletonList(KeyOperations.SIGN));
+                    }
+                    if (jwk instanceof PublicJsonWebKey)
+                    {
+                        PublicJsonWebKey publicJwk = (PublicJsonWebKey) jwk;
+                        publicJwk.setX509CertificateSha1Thumbprint(THUMBS[(i / 4) % THUMBS.length]);
+                        publicJwk.setX509CertificateSha256Thumbprint(THUMBS[(i / 7) % THUMBS.length]);
+                    }
+                    keys.add(jwk);
+                    i++;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameVerificationSelectionAsTheList() throws Exception
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(keys);
+        assertThat(index.getJsonWebKeys(), equalTo(keys));
+
+        VerificationJwkSelector selector = new VerificationJwkSelector();
+        String[] algs = {AlgorithmIdentifiers.RSA_USING_SHA256, AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
+                AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384, AlgorithmIdentifiers.HMAC_SHA256};
+        int nonEmpty = 0;
+        for (String alg : algs)
+        {
+            for (String kid : KIDS)
+            {
+                for (String x5t : THUMBS)
+                {
+                    for (String x5tS256 : THUMBS)
+                    {
+                        JsonWebSignature jws = new JsonWebSignature();
+                        jws.setAlgorithmHeaderValue(alg);
+                        jws.setKeyIdHeaderValue(kid);
+                        jws.setX509CertSha1ThumbprintHeaderValue(x5t);
+                        jws.setX509CertSha256ThumbprintHeaderValue(x5tS256);
+
+                        List<JsonWebKey> expected = selector.selectList(jws, keys);
+                        assertThat(jws.getHeaders().getFullHeaderAsJsonString(), selector.selectList(jws, index), equalTo(expected));
+                        assertSame(selector.select(jws, keys), selector.select(jws, index));
+                        nonEmpty += expected.isEmpty() ? 0 : 1;
+                    }
+                }
+            }
+        }
+        assertTrue(nonEmpty > 0);
+    }
+
+    @Test
+    public void sameDecryptionSelectionAsTheList() throws Exception
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(keys);
+        DecryptionJwkSelector selector = new DecryptionJwkSelector();
+        String[] algs = {KeyManagementAlgorithmIdentifiers.RSA_OAEP, KeyManagementAlgorithmIdentifiers.ECDH_ES,
+                KeyManagementAlgorithmIdentifiers.A256KW, KeyManagementAlgorithmIdentifiers.DIRECT};
+        for (String alg : algs)
+        {
+            for (String kid : KIDS)
+            {
+                for (String x5t : THUMBS)
+                {
+                    JsonWebEncryption jwe = new JsonWebEncryption();
+                    jwe.setAlgorithmHeaderValue(alg);
+                    jwe.setKeyIdHeaderValue(kid);
+                    jwe.setX509CertSha1ThumbprintHeaderValue(x5t);
+
+                    List<JsonWebKey> expected = selector.selectList(jwe, keys);
+                    assertThat(selector.selectList(jwe, index), equalTo(expected));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void filterWithoutX5cFallback() throws Exception
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(keys);
+        SimpleJwkFilter filter = new SimpleJwkFilter();
+        filter.setKty(RsaJsonWebKey.KEY_TYPE);
+        filter.setX5t("t2", SimpleJwkFilter.VALUE_REQUIRED);
+        filter.setUse(Use.SIGNATURE, SimpleJwkFilter.OMITTED_OKAY);
+        List<JsonWebKey> expected = filter.filter(keys);
+        assertThat(filter.filter(index), equalTo(expected));
+        assertThat(expected.isEmpty(), is(false));
+
+        filter.setKid(null, SimpleJwkFilter.OMITTED_OKAY);
+        assertThat(filter.filter(index), equalTo(filter.filter(keys)));
+        filter.setUse(null, SimpleJwkFilter.VALUE_REQUIRED);
+        assertThat(filter.filter(index), equalTo(filter.filter(keys)));
+    }
+
+    @Test
+    public void empty() throws Exception
+    {
+        JsonWebKeyIndex index = new JsonWebKeyIndex(Collections.<JsonWebKey>emptyList());
+        assertThat(index.size(), is(0));
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKeyIdHeaderValue("a");
+        assertNull(new VerificationJwkSelector().select(jws, index));
+        assertThat(new JsonWebKeyIndex(Arrays.asList(keys.get(0))).getJsonWebKeys().size(), is(1));
+    }
+}
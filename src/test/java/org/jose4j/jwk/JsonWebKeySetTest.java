@@ -23,18 +23,27 @@ import org.jose4j.keys.EllipticCurves;
 import org.jose4j.keys.ExampleEcKeysFromJws;
 import org.jose4j.keys.ExampleRsaKeyFromJws;
 import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UncheckedJoseException;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.security.Key;
 import java.security.interfaces.ECPublicKey;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  */
 public class JsonWebKeySetTest
 {
+    private static final Logger log = LoggerFactory.getLogger(JsonWebKeySetTest.class);
+
     @Test
     public void testParseExamplePublicKeys() throws JoseException
     {
@@ -328,4 +337,128 @@ public class JsonWebKeySetTest
         assertEquals(3, jwks.getJsonWebKeys().size());
     }
 
+    @Test
+    public void testLazyKeys() throws Exception
+    {
+        RsaJsonWebKey rsaJwk = new RsaJsonWebKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+        rsaJwk.setKeyId("rsa");
+        String json = "{\"keys\":[" +
+            "{\"kty\":\"EC\",\"kid\":\"ec\",\"x\":\"riwTtQeRjmlDsR4PUQELhejpPkZkQstb0_Lf08qeBzM\",\"y\":\"izN8y6z-8j8bB_Lj10gX9mnaE_E0ZK5fl0hJVyLWMKA\",\"crv\":\"P-256\"}," +
+            rsaJwk.toJson() + "," +
+            "{\"kty\":\"RSA\",\"kid\":\"no n\",\"e\":\"AQAB\"}," +
+            "{\"kty\":\"RSA\",\"kid\":\"bad n\",\"e\":\"AQAB\",\"n\":\"AA\"}" +
+            "]}";
+
+        JsonWebKeySet eager = new JsonWebKeySet(json);
+        JsonWebKeySet lazy = new JsonWebKeySet(json, JsonWebKeySet.KeyMaterialization.LAZY);
+        JsonWebKeySet parallel = new JsonWebKeySet(json, JsonWebKeySet.KeyMaterialization.PARALLEL);
+
+        // missing required params are still caught up front but a bad value isn't until the key is made
+        assertEquals(2, eager.getJsonWebKeys().size());
+        assertEquals(3, lazy.getJsonWebKeys().size());
+        assertEquals(2, parallel.getJsonWebKeys().size());
+
+        for (JsonWebKey jwk : lazy.getJsonWebKeys())
+        {
+            assertNotNull(jwk.getDeferredKeyParams());
+        }
+        for (JsonWebKey jwk : parallel.getJsonWebKeys())
+        {
+            assertNull(jwk.getDeferredKeyParams());
+        }
+
+        for (String kid : new String[] {"ec", "rsa"})
+        {
+            Key key = eager.findJsonWebKey(kid, null, null, null).getKey();
+            JsonWebKey lazyJwk = lazy.findJsonWebKey(kid, null, null, null);
+            assertEquals(key, lazyJwk.getKey());
+            assertNull(lazyJwk.getDeferredKeyParams());
+            assertSame(lazyJwk.getKey(), lazyJwk.getKey());
+            assertEquals(key, parallel.findJsonWebKey(kid, null, null, null).getKey());
+            assertEquals(eager.findJsonWebKey(kid, null, null, null).toJson(), lazyJwk.toJson());
+        }
+
+        JsonWebKey bad = lazy.findJsonWebKey("bad n", null, null, null);
+        assertEquals("RSA", bad.getKeyType());
+        try
+        {
+            Key key = bad.getKey();
+            fail("shouldn't have been able to make a key from a bad modulus but got " + key);
+        }
+        catch (UncheckedJoseException e)
+        {
+            assertNotNull(bad.getDeferredKeyParams());
+        }
+    }
+
+    @Test
+    public void testParseSetContainingInvalidLazyOrParallel() throws Exception
+    {
+        String json = "{\"keys\":[" +
+            "{\"kty\":\"EC\",\"x\":\"riwTtQeRjmlDsR4PUQELhejpPkZkQstb0_Lf08qeBzM\",\"y\":\"izN8y6z-8j8bB_Lj10gX9mnaE_E0ZK5fl0hJVyLWMKA\",\"crv\":\"P-256\"}," +
+            "{\"kty\":false,\"x\":\"GS2tEeCRf0CFHzI_y68XiLzqa9-RpG4Xn-dq2lPtShY\",\"y\":\"Rq6ybA7IbjhDTfvP2GSzxEql8II7RvRPb3mJ6tzZUgI\",\"crv\":\"P-256\"}," +
+            "{\"kty\":\"EC\",\"x\":[\"IiIIM4W-HDen_11XiGlFXh1kOxKcX1YB5gqMrCM-hMM\",\"huh\"],\"y\":\"57-3xqdddSBBarwwXcWu4hIG4dAlIiEYdy4aaFGb57s\",\"crv\":\"P-256\"}," +
+            "{\"kty\":\"EC\",\"y\":\"57-3xqdddSBBarwwXcWu4hIG4dAlIiEYdy4aaFGb57s\",\"crv\":\"P-256\"}," +
+            "{\"kty\":\"EC\",\"x\":\"rO8MozDmEAVZ0B5zQUDD8PGosFlwmoMmi7I-1rspWz4\",\"y\":\"I6ku1iUzFJgTnjNzjAC1sSGkYfiDqs-eEReFMLI-6n8\",\"crv\":\"P-256\"}" +
+            "]}";
+
+        assertEquals(2, new JsonWebKeySet(json, JsonWebKeySet.KeyMaterialization.LAZY).getJsonWebKeys().size());
+        assertEquals(2, new JsonWebKeySet(json, JsonWebKeySet.KeyMaterialization.PARALLEL).getJsonWebKeys().size());
+    }
+
+    @Test
+    public void testConcurrentLazyMaterialization() throws Exception
+    {
+        String json = new JsonWebKeySet(EcJwkGenerator.generateJwk(EllipticCurves.P256)).toJson();
+        final JsonWebKey jwk = new JsonWebKeySet(json, JsonWebKeySet.KeyMaterialization.LAZY).getJsonWebKeys().get(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Key>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                futures.add(executor.submit(new Callable<Key>()
+                {
+                    @Override
+                    public Key call() throws Exception
+                    {
+                        return jwk.getKey();
+                    }
+                }));
+            }
+            for (Future<Key> future : futures)
+            {
+                assertSame(jwk.getKey(), future.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLargeSetEachWay() throws Exception
+    {
+        JsonWebKey[] generated = new JsonWebKey[5000];
+        for (int i = 0; i < generated.length; i++)
+        {
+            generated[i] = EcJwkGenerator.generateJwk(EllipticCurves.P256);
+            generated[i].setKeyId("k" + i);
+        }
+        String json = new JsonWebKeySet(generated).toJson();
+
+        for (JsonWebKeySet.KeyMaterialization keyMaterialization : JsonWebKeySet.KeyMaterialization.values())
+        {
+            long start = System.nanoTime();
+            JsonWebKeySet jwks = new JsonWebKeySet(json, keyMaterialization);
+            long parsed = System.nanoTime();
+            assertEquals(generated.length, jwks.getJsonWebKeys().size());
+            JsonWebKey last = jwks.findJsonWebKey("k4999", null, null, null);
+            assertEquals(generated[4999].getKey(), last.getKey());
+            long found = System.nanoTime();
+            log.debug("{} JWKS of {} keys: {} mills to construct, {} mills to then get one key",
+                    keyMaterialization, generated.length, (parsed - start) / 1000000, (found - parsed) / 1000000);
+        }
+    }
 }
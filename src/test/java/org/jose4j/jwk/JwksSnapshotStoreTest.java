@@ -0,0 +1,249 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwk;
+
+import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
+import org.jose4j.http.SimpleResponse;
+import org.jose4j.lang.StringUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class JwksSnapshotStoreTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void startsFromSnapshot() throws Exception
+    {
+        File file = new File(folder.getRoot(), "jwks-snapshots.json");
+        CountingGet get = new CountingGet("k1", "max-age=60");
+
+        HttpsJwks httpsJwks = new HttpsJwks("https://one.example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        JwksSnapshotStore store = new JwksSnapshotStore(file);
+        httpsJwks.setSnapshotStore(store);
+        assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+        assertThat(get.count.get(), is(1));
+        store.flush();
+        assertTrue(file.exists());
+
+        // as if after a restart
+        HttpsJwks restarted = new HttpsJwks("https://one.example.com/jwks");
+        restarted.setSimpleHttpGet(get);
+        restarted.setSnapshotStore(new JwksSnapshotStore(file));
+        assertThat(restarted.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+        assertThat(get.count.get(), is(1));
+
+        // no snapshot for some other location
+        HttpsJwks other = new HttpsJwks("https://two.example.com/jwks");
+        other.setSimpleHttpGet(get);
+        JwksSnapshotStore otherStore = new JwksSnapshotStore(file);
+        other.setSnapshotStore(otherStore);
+        other.getJsonWebKeys();
+        assertThat(get.count.get(), is(2));
+        otherStore.flush();
+
+        store = new JwksSnapshotStore(file);
+        assertNotNull(store.get("https://one.example.com/jwks"));
+        assertNotNull(store.get("https://two.example.com/jwks"));
+        assertNull(store.get("https://three.example.com/jwks"));
+    }
+
+    @Test
+    public void staleSnapshotIsUsedWhileRefreshingInTheBackground() throws Exception
+    {
+        File file = new File(folder.getRoot(), "jwks-snapshots.json");
+        CountingGet get = new CountingGet("k1", "max-age=60");
+        saveSnapshot(file, "https://one.example.com/jwks", get.body(), System.currentTimeMillis() - 60000);
+
+        // the refresh is held up until the stale keys have been used
+        get.kid = "k2";
+        get.release = new CountDownLatch(1);
+        HttpsJwks restarted = new HttpsJwks("https://one.example.com/jwks");
+        restarted.setSimpleHttpGet(get);
+        JwksSnapshotStore restartedStore = new JwksSnapshotStore(file);
+        restarted.setSnapshotStore(restartedStore);
+        assertThat(restarted.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+
+        get.release.countDown();
+        awaitCachedKid(restarted, "k2");
+        assertThat(get.count.get(), is(1));
+        restartedStore.flush();
+        assertThat(new JwksSnapshotStore(file).get("https://one.example.com/jwks").getBody(), equalTo(get.body()));
+    }
+
+    @Test
+    public void tooStaleSnapshotIsIgnored() throws Exception
+    {
+        File file = new File(folder.getRoot(), "jwks-snapshots.json");
+        CountingGet get = new CountingGet("k1", "max-age=60");
+        saveSnapshot(file, "https://one.example.com/jwks", get.body(), System.currentTimeMillis() - 7200000);
+
+        get.kid = "k2";
+        HttpsJwks restarted = new HttpsJwks("https://one.example.com/jwks");
+        restarted.setSimpleHttpGet(get);
+        JwksSnapshotStore restartedStore = new JwksSnapshotStore(file);
+        restartedStore.setMaxStaleness(3600);
+        restarted.setSnapshotStore(restartedStore);
+        assertThat(restarted.getCachedJsonWebKeyIndex(), nullValue());
+        assertThat(restarted.getJsonWebKeys().get(0).getKeyId(), equalTo("k2"));
+        assertThat(get.count.get(), is(1));
+    }
+
+    private static void saveSnapshot(File file, String location, String body, long exp)
+    {
+        JwksSnapshotStore store = new JwksSnapshotStore(file);
+        store.put(location, new JwksSnapshotStore.Snapshot(body, null, null, exp - 60000, exp));
+        store.flush();
+    }
+
+    private static void awaitCachedKid(HttpsJwks httpsJwks, String kid) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < end)
+        {
+            JsonWebKeyIndex index = httpsJwks.getCachedJsonWebKeyIndex();
+            if (index != null && kid.equals(index.getJsonWebKeys().get(0).getKeyId()))
+            {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("the keys weren't refreshed to " + kid);
+    }
+
+    @Test
+    public void badFileIsIgnored() throws Exception
+    {
+        File file = new File(folder.getRoot(), "jwks-snapshots.json");
+        Files.write(file.toPath(), StringUtil.getBytesUtf8("{\"https://one.example.com/jwks\":{\"body\":"));
+        CountingGet get = new CountingGet("k1", "max-age=60");
+        HttpsJwks httpsJwks = new HttpsJwks("https://one.example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        JwksSnapshotStore store = new JwksSnapshotStore(file);
+        httpsJwks.setSnapshotStore(store);
+        assertThat(httpsJwks.getJsonWebKeys().get(0).getKeyId(), equalTo("k1"));
+        assertThat(get.count.get(), is(1));
+        store.flush();
+        assertNotNull(new JwksSnapshotStore(file).get("https://one.example.com/jwks"));
+    }
+
+    @Test
+    public void changesAreWrittenTogether() throws Exception
+    {
+        File file = new File(folder.getRoot(), "jwks-snapshots.json");
+        JwksSnapshotStore store = new JwksSnapshotStore(file);
+        for (int i = 0; i < 50; i++)
+        {
+            store.put("https://example.com/" + i, new JwksSnapshotStore.Snapshot("{\"keys\":[]}", null, null, System.currentTimeMillis(), System.currentTimeMillis() + 60000));
+        }
+        store.revalidated("https://example.com/0", "\"v2\"", null, System.currentTimeMillis() + 120000);
+        store.flush();
+
+        JwksSnapshotStore read = new JwksSnapshotStore(file);
+        assertNotNull(read.get("https://example.com/49"));
+        assertThat(read.get("https://example.com/0").getEtag(), equalTo("\"v2\""));
+    }
+
+    @Test
+    public void removedLocationsArePruned() throws Exception
+    {
+        File file = new File(folder.getRoot(), "jwks-snapshots.json");
+        JwksSnapshotStore store = new JwksSnapshotStore(file);
+        HttpsJwksRegistry registry = new HttpsJwksRegistry();
+        registry.addIssuerPattern(Pattern.compile("iss-(\\d+)"), "https://example.com/$1");
+        registry.setMaxEntries(1);
+        registry.setSimpleHttpGet(new CountingGet("k1", "max-age=60"));
+        registry.setSnapshotStore(store);
+
+        registry.getHttpsJwks("iss-1").getJsonWebKeys();
+        store.flush();
+        assertNotNull(new JwksSnapshotStore(file).get("https://example.com/1"));
+
+        // iss-1 is dropped from the registry to make room
+        registry.getHttpsJwks("iss-2").getJsonWebKeys();
+        store.flush();
+        JwksSnapshotStore read = new JwksSnapshotStore(file);
+        assertNull(read.get("https://example.com/1"));
+        assertNotNull(read.get("https://example.com/2"));
+
+        store.remove("https://example.com/2");
+        store.flush();
+        assertNull(new JwksSnapshotStore(file).get("https://example.com/2"));
+    }
+
+    private static class CountingGet implements SimpleGet
+    {
+        private final AtomicInteger count = new AtomicInteger();
+        private final String cacheControl;
+        private volatile String kid;
+        private volatile CountDownLatch release;
+
+        private CountingGet(String kid, String cacheControl)
+        {
+            this.kid = kid;
+            this.cacheControl = cacheControl;
+        }
+
+        private String body()
+        {
+            return "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"" + kid + "\",\"k\":\"Z2FnYWdhZ2FnYWdhZ2FnYQ\"}]}";
+        }
+
+        @Override
+        public SimpleResponse get(String location) throws IOException
+        {
+            CountDownLatch latch = release;
+            try
+            {
+                if (latch != null && !latch.await(10, TimeUnit.SECONDS))
+                {
+                    throw new IOException("not released");
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException(e);
+            }
+            count.incrementAndGet();
+            Map<String, List<String>> headers = new HashMap<>();
+            headers.put("Cache-Control", Arrays.asList(cacheControl));
+            return new Response(200, "OK", headers, body());
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.jose4j.jwk;
 
+import org.jose4j.base64url.Base64Url;
 import org.jose4j.lang.JoseException;
 import org.jose4j.lang.StringUtil;
 import org.junit.Test;
@@ -25,6 +26,8 @@ import java.security.MessageDigest;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.jose4j.lang.HashUtil.*;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -231,4 +234,26 @@ public class Rfc7638JwkThumbprintTest
         assertThat("2bag3Pig0ajRgDs8HLF0qNsIoy0", equalTo(thumbprint));
     }
 
+    @Test
+    public void calculatedOnceForTheSameKey() throws Exception
+    {
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(128);
+        String encoded = jwk.calculateBase64urlEncodedThumbprint(SHA_256);
+        assertSame(encoded, jwk.calculateBase64urlEncodedThumbprint(SHA_256));
+
+        byte[] thumbprint = jwk.calculateThumbprint(SHA_256);
+        thumbprint[0]++;
+        assertFalse(thumbprint[0] == jwk.calculateThumbprint(SHA_256)[0]);
+
+        String expected = "{\"k\":\"" + Base64Url.encode(jwk.getOctetSequence()) + "\",\"kty\":\"oct\"}";
+        byte[] digested = MessageDigest.getInstance(SHA_256).digest(StringUtil.getBytesUtf8(expected));
+        assertArrayEquals(digested, jwk.calculateThumbprint(SHA_256));
+
+        RsaJsonWebKey rsaJwk = RsaJwkGenerator.generateJwk(2048);
+        String before = rsaJwk.calculateBase64urlEncodedThumbprint(SHA_256);
+        rsaJwk.key = RsaJwkGenerator.generateJwk(2048).getKey();
+        assertFalse(before.equals(rsaJwk.calculateBase64urlEncodedThumbprint(SHA_256)));
+        assertThat(rsaJwk.calculateBase64urlEncodedThumbprint(SHA_256),
+                equalTo(JsonWebKey.Factory.newJwk(rsaJwk.getKey()).calculateBase64urlEncodedThumbprint(SHA_256)));
+    }
 }
@@ -86,6 +86,55 @@ public class X5cTest extends TestCase
         assertTrue(x5cValue.indexOf('=') > 0);  // we know this one has padding
     }
 
+    public void testThumbprintsFromLazyKey() throws JoseException
+    {
+        // same https://tools.ietf.org/html/draft-ietf-jose-json-web-key-39#appendix-B key
+        String jwkJson =
+                "{\"kty\":\"RSA\",\n" +
+                " \"use\":\"sig\",\n" +
+                " \"kid\":\"1b94c\",\n" +
+                " \"n\":\"vrjOfz9Ccdgx5nQudyhdoR17V-IubWMeOZCwX_jj0hgAsz2J_pqYW08\n" +
+                " PLbK_PdiVGKPrqzmDIsLI7sA25VEnHU1uCLNwBuUiCO11_-7dYbsr4iJmG0Q\n" +
+                " u2j8DsVyT1azpJC_NG84Ty5KKthuCaPod7iI7w0LK9orSMhBEwwZDCxTWq4a\n" +
+                " YWAchc8t-emd9qOvWtVMDC2BXksRngh6X5bUYLy6AyHKvj-nUy1wgzjYQDwH\n" +
+                " MTplCoLtU-o-8SNnZ1tmRoGE9uJkBLdh5gFENabWnU5m1ZqZPdwS-qo-meMv\n" +
+                " VfJb6jJVWRpl2SUtCnYG2C32qvbWbjZ_jBPD5eunqsIo1vQ\",\n" +
+                " \"e\":\"AQAB\",\n" +
+                " \"x5c\":\n" +
+                "  [\"MIIDQjCCAiqgAwIBAgIGATz/FuLiMA0GCSqGSIb3DQEBBQUAMGIxCzAJB\n" +
+                "  gNVBAYTAlVTMQswCQYDVQQIEwJDTzEPMA0GA1UEBxMGRGVudmVyMRwwGgYD\n" +
+                "  VQQKExNQaW5nIElkZW50aXR5IENvcnAuMRcwFQYDVQQDEw5CcmlhbiBDYW1\n" +
+                "  wYmVsbDAeFw0xMzAyMjEyMzI5MTVaFw0xODA4MTQyMjI5MTVaMGIxCzAJBg\n" +
+                "  NVBAYTAlVTMQswCQYDVQQIEwJDTzEPMA0GA1UEBxMGRGVudmVyMRwwGgYDV\n" +
+                "  QQKExNQaW5nIElkZW50aXR5IENvcnAuMRcwFQYDVQQDEw5CcmlhbiBDYW1w\n" +
+                "  YmVsbDCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEBAL64zn8/QnH\n" +
+                "  YMeZ0LncoXaEde1fiLm1jHjmQsF/449IYALM9if6amFtPDy2yvz3YlRij66\n" +
+                "  s5gyLCyO7ANuVRJx1NbgizcAblIgjtdf/u3WG7K+IiZhtELto/A7Fck9Ws6\n" +
+                "  SQvzRvOE8uSirYbgmj6He4iO8NCyvaK0jIQRMMGQwsU1quGmFgHIXPLfnpn\n" +
+                "  fajr1rVTAwtgV5LEZ4Iel+W1GC8ugMhyr4/p1MtcIM42EA8BzE6ZQqC7VPq\n" +
+                "  PvEjZ2dbZkaBhPbiZAS3YeYBRDWm1p1OZtWamT3cEvqqPpnjL1XyW+oyVVk\n" +
+                "  aZdklLQp2Btgt9qr21m42f4wTw+Xrp6rCKNb0CAwEAATANBgkqhkiG9w0BA\n" +
+                "  QUFAAOCAQEAh8zGlfSlcI0o3rYDPBB07aXNswb4ECNIKG0CETTUxmXl9KUL\n" +
+                "  +9gGlqCz5iWLOgWsnrcKcY0vXPG9J1r9AqBNTqNgHq2G03X09266X5CpOe1\n" +
+                "  zFo+Owb1zxtp3PehFdfQJ610CDLEaS9V9Rqp17hCyybEpOGVwe8fnk+fbEL\n" +
+                "  2Bo3UPGrpsHzUoaGpDftmWssZkhpBJKVMJyf/RuP2SmmaIzmnw9JiSlYhzo\n" +
+                "  4tpzd5rFXhjRbg4zW9C+2qok+2+qDM1iJ684gPHMIY8aLWrdgQTxkumGmTq\n" +
+                "  gawR+N5MDtdPTEQ0XfIBc2cJEUyMTY5MPvACWpkA6SdS4xSvdXK3IVfOWA==\"]\n" +
+                "}";
+        PublicJsonWebKey eager = PublicJsonWebKey.Factory.newPublicJwk(jwkJson);
+        JsonWebKeySet jwks = new JsonWebKeySet("{\"keys\":[" + jwkJson + "]}", JsonWebKeySet.KeyMaterialization.LAZY);
+        PublicJsonWebKey lazy = (PublicJsonWebKey) jwks.getJsonWebKeys().get(0);
+
+        // derived from the x5c value without making the key or parsing the certificate
+        assertEquals(eager.getX509CertificateSha1Thumbprint(true), lazy.getX509CertificateSha1Thumbprint(true));
+        assertEquals(eager.getX509CertificateSha256Thumbprint(true), lazy.getX509CertificateSha256Thumbprint(true));
+        assertNotNull(lazy.getDeferredKeyParams());
+
+        assertEquals(eager.getLeafCertificate(), lazy.getLeafCertificate());
+        assertNull(lazy.getDeferredKeyParams());
+        assertEquals(eager.getKey(), lazy.getKey());
+    }
+
     public void testSomeChainThingsKinda() throws JoseException
     {
         // https://tools.ietf.org/html/draft-ietf-jose-json-web-signature-39#appendix-B
@@ -189,6 +238,16 @@ public class X5cTest extends TestCase
         jwkJustOneCert.setCertificateChain(x509Certificate);
 
         assertEquals(jwkJustOneCert.getKey(), jwk.getKey());
+
+        PublicJsonWebKey noCertJwk = PublicJsonWebKey.Factory.newPublicJwk(publicKey);
+        assertNull(noCertJwk.getX509CertificateSha1Thumbprint(true));
+        noCertJwk.setCertificateChain(x509Certificate);
+        String x5t = noCertJwk.getX509CertificateSha1Thumbprint(true);
+        assertEquals(X509Util.x5t(x509Certificate), x5t);
+        assertSame(x5t, noCertJwk.getX509CertificateSha1Thumbprint(true));
+        assertEquals(X509Util.x5tS256(x509Certificate), noCertJwk.getX509CertificateSha256Thumbprint(true));
+        noCertJwk.setX509CertificateSha1Thumbprint("explicit");
+        assertEquals("explicit", noCertJwk.getX509CertificateSha1Thumbprint(true));
     }
 }
 
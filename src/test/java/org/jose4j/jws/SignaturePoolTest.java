@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jws;
+
+import org.jose4j.jca.ProviderContextTest;
+import org.jose4j.keys.ExampleEcKeysFromJws;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.keys.RsaKeyUtil;
+import org.jose4j.lang.StringUtil;
+import org.junit.Test;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class SignaturePoolTest
+{
+    private static final byte[] INPUT = StringUtil.getBytesUtf8("eyJhbGciOiJSUzI1NiJ9.cGF5bG9hZA");
+
+    @Test
+    public void pooledVerificationStillChecksEachSignature() throws Exception
+    {
+        checkRepeatedVerification(new RsaUsingShaAlgorithm.RsaSha256(), ExampleRsaKeyFromJws.PRIVATE_KEY, ExampleRsaKeyFromJws.PUBLIC_KEY);
+        checkRepeatedVerification(new RsaUsingShaAlgorithm.RsaPssSha384(), ExampleRsaKeyFromJws.PRIVATE_KEY, ExampleRsaKeyFromJws.PUBLIC_KEY);
+        checkRepeatedVerification(new EcdsaUsingShaAlgorithm.EcdsaP256UsingSha256(), ExampleEcKeysFromJws.PRIVATE_256, ExampleEcKeysFromJws.PUBLIC_256);
+    }
+
+    private void checkRepeatedVerification(BaseSignatureAlgorithm alg, PrivateKey privateKey, PublicKey publicKey) throws Exception
+    {
+        byte[] signature = alg.sign(privateKey, INPUT, ProviderContextTest.EMPTY_CONTEXT);
+        byte[] otherInput = StringUtil.getBytesUtf8("eyJhbGciOiJSUzI1NiJ9.b3RoZXI");
+        byte[] garbage = {1, 2, 3};
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(alg.verifySignature(signature, publicKey, INPUT, ProviderContextTest.EMPTY_CONTEXT));
+            assertFalse(alg.verifySignature(signature, publicKey, otherInput, ProviderContextTest.EMPTY_CONTEXT));
+            assertFalse(alg.verifySignature(garbage, publicKey, INPUT, ProviderContextTest.EMPTY_CONTEXT));
+        }
+    }
+
+    @Test
+    public void differentKeysGetDifferentInstances() throws Exception
+    {
+        SignaturePool pool = new SignaturePool(8, 2);
+        PublicKey key1 = new RsaKeyUtil().generateKeyPair(2048).getPublic();
+        PublicKey key2 = ExampleRsaKeyFromJws.PUBLIC_KEY;
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initVerify(key1);
+        pool.give(key1, null, signature);
+
+        assertThat(pool.take(key2, null), nullValue());
+        assertThat(pool.take(key1, "SunRsaSign"), nullValue());
+        assertThat(pool.take(key1, null), sameInstance(signature));
+        assertThat(pool.take(key1, null), nullValue());
+    }
+
+    @Test
+    public void boundedNumberOfKeysAndIdleInstances() throws Exception
+    {
+        SignaturePool pool = new SignaturePool(2, 1);
+        PublicKey[] keys = new PublicKey[4];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = new RsaKeyUtil().generateKeyPair(2048).getPublic();
+            pool.give(keys[i], null, Signature.getInstance("SHA256withRSA"));
+            pool.give(keys[i], null, Signature.getInstance("SHA256withRSA"));
+        }
+        assertThat(pool.size(), is(2));
+        assertThat(pool.take(keys[0], null), nullValue());
+
+        assertNotNull(pool.take(keys[3], null));
+        assertThat(pool.take(keys[3], null), nullValue());
+    }
+
+    @Test
+    public void entriesGoAwayWhenKeysAreNoLongerReferenced() throws Exception
+    {
+        SignaturePool pool = new SignaturePool(8, 2);
+        PublicKey key = new RsaKeyUtil().generateKeyPair(2048).getPublic();
+        pool.give(key, null, Signature.getInstance("SHA256withRSA"));
+        assertThat(pool.size(), is(1));
+
+        key = null;
+        for (int i = 0; i < 50 && pool.size() > 0; i++)
+        {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertThat(pool.size(), is(0));
+    }
+}
@@ -16,7 +16,9 @@
 
 package org.jose4j.jwt;
 
+import org.jose4j.jwt.consumer.ErrorCodes;
 import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.lang.StringUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -616,4 +618,31 @@ public class JwtClaimsTest
         Assert.assertThat(NumericDate.fromSeconds(1430602060), equalTo(jcs.getIssuedAt()));
         Assert.assertThat(NumericDate.fromSeconds(1430602000), equalTo(jcs.getNotBefore()));
     }
+
+    @Test
+    public void testParseFromUtf8Bytes() throws InvalidJwtException, MalformedClaimException
+    {
+        String json = "{\"iss\":\"j\u00f6e\",\"exp\":1300819380,\"aud\":[\"a\",\"b\"]}";
+        JwtClaims jcs = JwtClaims.parse(StringUtil.getBytesUtf8(json), null);
+        Assert.assertThat("j\u00f6e", equalTo(jcs.getIssuer()));
+        Assert.assertThat(NumericDate.fromSeconds(1300819380), equalTo(jcs.getExpirationTime()));
+        Assert.assertThat(Arrays.asList("a", "b"), equalTo(jcs.getAudience()));
+        Assert.assertThat(json, equalTo(jcs.getRawJson()));
+    }
+
+    @Test
+    public void testParseBadUtf8Bytes()
+    {
+        String json = "{\"iss\":\"joe\",";
+        try
+        {
+            JwtClaims.parse(StringUtil.getBytesUtf8(json), null);
+            Assert.fail("shouldn't have parsed " + json);
+        }
+        catch (InvalidJwtException e)
+        {
+            Assert.assertTrue(e.hasErrorCode(ErrorCodes.JSON_INVALID));
+            Assert.assertTrue(e.getMessage().contains(json));
+        }
+    }
 }
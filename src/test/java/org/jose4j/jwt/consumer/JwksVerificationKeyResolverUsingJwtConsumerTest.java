@@ -17,6 +17,10 @@ package org.jose4j.jwt.consumer;
 
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.NumericDate;
 import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
@@ -243,4 +247,30 @@ public class JwksVerificationKeyResolverUsingJwtConsumerTest
         SimpleJwtConsumerTestHelp.expectProcessingFailure(withUnknownEC, jwtConsumer);
         SimpleJwtConsumerTestHelp.expectProcessingFailure(with384EC, jwtConsumer);
     }
+
+    @Test
+    public void keysAddedToTheListLaterAreUsed() throws Exception
+    {
+        JsonWebKeySet jwks = new JsonWebKeySet();
+        JwksVerificationKeyResolver verificationKeyResolver = new JwksVerificationKeyResolver(jwks.getJsonWebKeys());
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setSkipDefaultAudienceValidation()
+                .setVerificationKeyResolver(verificationKeyResolver)
+                .build();
+
+        OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+        jwk.setKeyId("later");
+        JwtClaims claims = new JwtClaims();
+        claims.setSubject("me");
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue("later");
+        jws.setKey(jwk.getKey());
+        String jwt = jws.getCompactSerialization();
+
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        jwks.addJsonWebKey(jwk);
+        assertThat(jwtConsumer.processToClaims(jwt).getSubject(), equalTo("me"));
+    }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class JwtConsumerEarlyRejectionTest
+{
+    private final Key key = new HmacKey(ByteUtil.randomBytes(32));
+
+    @Test
+    public void rejectsBeforeResolvingTheKey() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setEnableEarlyRejection()
+                .build();
+
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(makeJwt(NumericDate.now().getValue() - 300, "aud", key), jwtConsumer);
+        assertTrue(e.hasExpired());
+        e = SimpleJwtConsumerTestHelp.expectProcessingFailure(makeJwt(NumericDate.now().getValue() + 300, "nope", key), jwtConsumer);
+        assertTrue(e.hasErrorCode(ErrorCodes.AUDIENCE_INVALID));
+        assertThat(e.getJwtContext().getJwtClaims().getAudience().get(0), equalTo("nope"));
+        assertThat(resolver.count.get(), is(0));
+
+        String jwt = makeJwt(NumericDate.now().getValue() + 300, "aud", key);
+        assertThat(jwtConsumer.process(jwt).getJwt(), equalTo(jwt));
+        assertThat(resolver.count.get(), is(1));
+    }
+
+    @Test
+    public void stillVerifiesWhatPasses() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setEnableEarlyRejection()
+                .build();
+
+        String forged = makeJwt(NumericDate.now().getValue() + 300, "aud", new HmacKey(ByteUtil.randomBytes(32)));
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(forged, jwtConsumer);
+        assertTrue(e.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+        assertThat(resolver.count.get(), is(1));
+
+        // claims that can't be parsed are left to fail in the regular way
+        e = SimpleJwtConsumerTestHelp.expectProcessingFailure("eyJhbGciOiJIUzI1NiJ9.bm90IGpzb24.AAAA", jwtConsumer);
+        assertTrue(e.hasErrorCode(ErrorCodes.JSON_INVALID));
+    }
+
+    @Test
+    public void onlyEarlyRejectionValidatorsRunEarly() throws Exception
+    {
+        final AtomicInteger plainCount = new AtomicInteger();
+        final AtomicInteger earlyCount = new AtomicInteger();
+        CountingResolver resolver = new CountingResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setSkipDefaultAudienceValidation()
+                .setVerificationKeyResolver(resolver)
+                .registerValidator(new ErrorCodeValidator()
+                {
+                    @Override
+                    public Error validate(JwtContext jwtContext) throws MalformedClaimException
+                    {
+                        plainCount.incrementAndGet();
+                        return null;
+                    }
+                })
+                .registerValidator(new EarlyRejectionValidator()
+                {
+                    @Override
+                    public Error validate(JwtContext jwtContext) throws MalformedClaimException
+                    {
+                        earlyCount.incrementAndGet();
+                        return jwtContext.getJwtClaims().getAudience().contains("bad") ? new Error(-1, "bad") : null;
+                    }
+                })
+                .setEnableEarlyRejection()
+                .build();
+
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(makeJwt(NumericDate.now().getValue() + 300, "bad", key), jwtConsumer);
+        assertTrue(e.hasErrorCode(-1));
+        assertThat(earlyCount.get(), is(1));
+        assertThat(plainCount.get(), is(0));
+        assertThat(resolver.count.get(), is(0));
+
+        jwtConsumer.process(makeJwt(NumericDate.now().getValue() + 300, "good", key));
+        assertThat(earlyCount.get(), is(3));
+        assertThat(plainCount.get(), is(1));
+        assertThat(resolver.count.get(), is(1));
+    }
+
+    @Test
+    public void offByDefault() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .build();
+
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(makeJwt(NumericDate.now().getValue() - 300, "aud", key), jwtConsumer);
+        assertTrue(e.hasExpired());
+        assertThat(resolver.count.get(), is(1));
+    }
+
+    @Test
+    public void rejectsBeforeAsyncKeyResolution() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setEnableEarlyRejection()
+                .build();
+
+        try
+        {
+            jwtConsumer.processAsync(makeJwt(NumericDate.now().getValue() - 300, "aud", key)).get(10, TimeUnit.SECONDS);
+            fail("should have been rejected");
+        }
+        catch (ExecutionException e)
+        {
+            assertThat(e.getCause(), instanceOf(InvalidJwtException.class));
+            assertTrue(((InvalidJwtException) e.getCause()).hasExpired());
+        }
+        assertThat(resolver.asyncCount.get(), is(0));
+
+        String jwt = makeJwt(NumericDate.now().getValue() + 300, "aud", key);
+        assertThat(jwtConsumer.processAsync(jwt).get(10, TimeUnit.SECONDS).getJwt(), equalTo(jwt));
+        assertThat(resolver.asyncCount.get(), is(1));
+        assertThat(resolver.count.get(), is(0));
+    }
+
+    @Test
+    public void earlyRejectionsAreNotRemembered() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(100, 60)
+                .setEnableEarlyRejection()
+                .build();
+
+        // like other claims rejections, a JWT that's not valid yet can be fine a little later
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience("aud");
+        claims.setNotBefore(NumericDate.fromSeconds(NumericDate.now().getValue() + 300));
+        String notYet = sign(claims, key);
+        for (int i = 0; i < 2; i++)
+        {
+            InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(notYet, jwtConsumer);
+            assertTrue(e.hasErrorCode(ErrorCodes.NOT_YET_VALID));
+        }
+
+        String expired = makeJwt(NumericDate.now().getValue() - 300, "aud", key);
+        try
+        {
+            jwtConsumer.processAsync(expired).get(10, TimeUnit.SECONDS);
+            fail("should have been rejected");
+        }
+        catch (ExecutionException ee)
+        {
+            assertTrue(((InvalidJwtException) ee.getCause()).hasExpired());
+        }
+
+        assertThat(jwtConsumer.getRejectedJwtCache().size(), is(0));
+        assertThat(jwtConsumer.getRejectedJwtCache().getHitCount(), is(0L));
+        assertThat(resolver.count.get(), is(0));
+        assertThat(resolver.asyncCount.get(), is(0));
+
+        // what passes is still processed as it would be
+        String good = makeJwt(NumericDate.now().getValue() + 300, "aud", key);
+        assertThat(jwtConsumer.process(good).getJwtClaims().getAudience().get(0), equalTo("aud"));
+        assertThat(resolver.count.get(), is(1));
+    }
+
+    private String makeJwt(long exp, String audience, Key signingKey) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience(audience);
+        claims.setExpirationTime(NumericDate.fromSeconds(exp));
+        return sign(claims, signingKey);
+    }
+
+    private String sign(JwtClaims claims, Key signingKey) throws JoseException
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(signingKey);
+        return jws.getCompactSerialization();
+    }
+
+    private class CountingResolver implements AsyncVerificationKeyResolver
+    {
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger asyncCount = new AtomicInteger();
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            count.incrementAndGet();
+            return key;
+        }
+
+        @Override
+        public void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, KeyResolutionCallback callback)
+        {
+            asyncCount.incrementAndGet();
+            callback.resolved(key);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class JwtConsumerProcessAllTest
+{
+    private static final Logger log = LoggerFactory.getLogger(JwtConsumerProcessAllTest.class);
+
+    @Test
+    public void resultsMatchProcessingOneAtATime() throws Exception
+    {
+        RsaJsonWebKey k1 = newKey("k1");
+        RsaJsonWebKey k2 = newKey("k2");
+        long exp = NumericDate.now().getValue() + 300;
+
+        List<String> jwts = new ArrayList<>();
+        for (int i = 0; i < 60; i++)
+        {
+            switch (i % 5)
+            {
+                case 0:
+                    jwts.add(makeJwt(k1, "k1", exp, "aud"));
+                    break;
+                case 1:
+                    jwts.add(makeJwt(k2, "k2", exp, "aud"));
+                    break;
+                case 2:
+                    jwts.add(makeJwt(k1, "k1", exp - 1000, "aud"));
+                    break;
+                case 3:
+                    jwts.add(makeJwt(k2, "k1", exp, "aud"));  // signed with the wrong key
+                    break;
+                default:
+                    jwts.add(i % 2 == 0 ? "not.a.jwt" : makeJwt(k2, "k2", exp, "other"));
+            }
+        }
+
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(new JwksVerificationKeyResolver(Arrays.<JsonWebKey>asList(k1, k2)))
+                .setBatchPool(new ForkJoinPool(3))
+                .build();
+
+        List<JwtProcessingResult> results = jwtConsumer.processAll(jwts);
+        assertThat(results.size(), is(jwts.size()));
+        for (int i = 0; i < jwts.size(); i++)
+        {
+            String jwt = jwts.get(i);
+            JwtProcessingResult result = results.get(i);
+            assertThat(result.getJwt(), equalTo(jwt));
+            try
+            {
+                JwtClaims claims = jwtConsumer.processToClaims(jwt);
+                assertTrue(result.isValid());
+                assertThat(result.getJwtContextOrThrow().getJwtClaims().getRawJson(), equalTo(claims.getRawJson()));
+            }
+            catch (InvalidJwtException e)
+            {
+                assertFalse(result.isValid());
+                assertNull(result.getJwtContext());
+                assertThat(errorCodes(result.getException()), equalTo(errorCodes(e)));
+            }
+        }
+
+        assertTrue(jwtConsumer.processAll(Collections.<String>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void throughputWithDifferentParallelism() throws Exception
+    {
+        List<JsonWebKey> keys = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            keys.add(newKey("k" + i));
+        }
+        long exp = NumericDate.now().getValue() + 300;
+        List<String> jwts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            RsaJsonWebKey key = (RsaJsonWebKey) keys.get(i % keys.size());
+            jwts.add(makeJwt(key, key.getKeyId(), exp, "aud"));
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism <= Math.max(processors, 1); parallelism *= 2)
+        {
+            JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                    .setExpectedAudience("aud")
+                    .setVerificationKeyResolver(new JwksVerificationKeyResolver(keys))
+                    .setBatchPool(new ForkJoinPool(parallelism))
+                    .build();
+
+            jwtConsumer.processAll(jwts.subList(0, 100)); // warm up
+            long start = System.nanoTime();
+            List<JwtProcessingResult> results = jwtConsumer.processAll(jwts);
+            long elapsed = Math.max(1, (System.nanoTime() - start) / 1000000);
+            for (JwtProcessingResult result : results)
+            {
+                assertTrue(result.toString(), result.isValid());
+            }
+            log.debug("Batch of {} JWTs with parallelism {} of {} processors: {} mills ({} JWTs/second)",
+                    jwts.size(), parallelism, processors, elapsed, jwts.size() * 1000L / elapsed);
+        }
+    }
+
+    private static List<Integer> errorCodes(InvalidJwtException e)
+    {
+        List<Integer> codes = new ArrayList<>();
+        for (ErrorCodeValidator.Error error : e.getErrorDetails())
+        {
+            codes.add(error.getErrorCode());
+        }
+        return codes;
+    }
+
+    private static RsaJsonWebKey newKey(String kid) throws JoseException
+    {
+        RsaJsonWebKey jwk = RsaJwkGenerator.generateJwk(2048);
+        jwk.setKeyId(kid);
+        return jwk;
+    }
+
+    private static String makeJwt(RsaJsonWebKey key, String kid, long exp, String audience) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience(audience);
+        claims.setExpirationTime(NumericDate.fromSeconds(exp));
+        claims.setGeneratedJwtId();
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKeyIdHeaderValue(kid);
+        jws.setKey(key.getPrivateKey());
+        return jws.getCompactSerialization();
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.AsyncVerificationKeyResolver;
+import org.jose4j.keys.resolvers.KeyResolutionCallback;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class JwtConsumerProcessAsyncTest
+{
+    private final Key key = new HmacKey(ByteUtil.randomBytes(32));
+
+    @Test
+    public void processesOnTheExecutor() throws Exception
+    {
+        CountingExecutor executor = new CountingExecutor();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKey(key)
+                .setAsyncExecutor(executor)
+                .build();
+
+        String jwt = makeJwt(NumericDate.now().getValue() + 300, "aud");
+        RecordingCallback callback = new RecordingCallback();
+        Future<JwtContext> future = jwtConsumer.processAsync(jwt, callback);
+        JwtContext jwtContext = future.get(10, TimeUnit.SECONDS);
+        assertThat(jwtContext.getJwtClaims().getAudience().get(0), equalTo("aud"));
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertThat(callback.context.get().getJwt(), equalTo(jwt));
+        assertThat(executor.count.get(), is(1));
+
+        String badJwt = makeJwt(NumericDate.now().getValue() + 300, "nope");
+        callback = new RecordingCallback();
+        future = jwtConsumer.processAsync(badJwt, callback);
+        InvalidJwtException e = expectFailure(future);
+        assertTrue(e.hasErrorCode(ErrorCodes.AUDIENCE_INVALID));
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertThat(callback.exception.get(), is(e));
+        assertThat(executor.count.get(), is(2));
+
+        e = expectFailure(jwtConsumer.processAsync("not.a.jwt"));
+        assertTrue(e.hasErrorCode(ErrorCodes.MISCELLANEOUS));
+    }
+
+    @Test
+    public void usesAsyncKeyResolution() throws Exception
+    {
+        DelayedResolver resolver = new DelayedResolver();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .build();
+
+        String jwt = makeJwt(NumericDate.now().getValue() + 300, "aud");
+        Future<JwtContext> future = jwtConsumer.processAsync(jwt);
+        assertThat(future.get(10, TimeUnit.SECONDS).getJwt(), equalTo(jwt));
+        assertThat(resolver.asyncCount.get(), is(1));
+        assertThat(resolver.syncCount.get(), is(0));
+
+        // a failure to resolve the key comes out the same as it would from process
+        resolver.fail = true;
+        InvalidJwtException asyncException = expectFailure(jwtConsumer.processAsync(jwt));
+        InvalidJwtException syncException = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertThat(asyncException.getErrorDetails().size(), is(syncException.getErrorDetails().size()));
+        assertThat(asyncException.getErrorDetails().get(0).getErrorCode(), is(syncException.getErrorDetails().get(0).getErrorCode()));
+        assertThat(asyncException.getCause(), instanceOf(UnresolvableKeyException.class));
+        assertThat(resolver.asyncCount.get(), is(2));
+    }
+
+    @Test
+    public void cachedJwtsDontResolveKeys() throws Exception
+    {
+        DelayedResolver resolver = new DelayedResolver();
+        CountingExecutor executor = new CountingExecutor();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setAsyncExecutor(executor)
+                .setVerifiedJwtCache(100, 600)
+                .setRejectedJwtCache(100, 600)
+                .build();
+
+        // a miss is only counted once even though processing goes on to the executor
+        String jwt = makeJwt(NumericDate.now().getValue() + 300, "aud");
+        assertThat(jwtConsumer.processAsync(jwt).get(10, TimeUnit.SECONDS).getJwt(), equalTo(jwt));
+        assertThat(resolver.asyncCount.get(), is(1));
+        assertThat(executor.count.get(), is(1));
+        assertThat(jwtConsumer.getVerifiedJwtCache().getMissCount(), is(1L));
+        assertThat(jwtConsumer.getRejectedJwtCache().getMissCount(), is(1L));
+
+        JwtContext jwtContext = jwtConsumer.processAsync(jwt).get(10, TimeUnit.SECONDS);
+        assertThat(jwtContext.getJwtClaims().getAudience().get(0), equalTo("aud"));
+        assertThat(jwtConsumer.getVerifiedJwtCache().getHitCount(), is(1L));
+
+        resolver.fail = true;
+        String rejectedJwt = makeJwt(NumericDate.now().getValue() + 301, "aud");
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(rejectedJwt, jwtConsumer);
+        assertThat(resolver.syncCount.get(), is(1));
+        InvalidJwtException e = expectFailure(jwtConsumer.processAsync(rejectedJwt));
+        assertTrue(e.getMessage().startsWith("The same JWT was recently rejected."));
+        assertThat(jwtConsumer.getRejectedJwtCache().getHitCount(), is(1L));
+
+        // neither hit needed a key or the executor
+        assertThat(resolver.asyncCount.get(), is(1));
+        assertThat(resolver.syncCount.get(), is(1));
+        assertThat(executor.count.get(), is(1));
+    }
+
+    private static InvalidJwtException expectFailure(Future<JwtContext> future) throws Exception
+    {
+        try
+        {
+            JwtContext jwtContext = future.get(10, TimeUnit.SECONDS);
+            fail("should have failed but got " + jwtContext.getJwtClaims());
+            return null;
+        }
+        catch (ExecutionException e)
+        {
+            assertThat(e.getCause(), instanceOf(InvalidJwtException.class));
+            return (InvalidJwtException) e.getCause();
+        }
+    }
+
+    private String makeJwt(long exp, String audience) throws JoseException
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience(audience);
+        claims.setExpirationTime(NumericDate.fromSeconds(exp));
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+
+    private static class CountingExecutor implements Executor
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable command)
+        {
+            count.incrementAndGet();
+            new Thread(command).start();
+        }
+    }
+
+    private static class RecordingCallback implements JwtConsumer.Callback
+    {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicReference<JwtContext> context = new AtomicReference<>();
+        private final AtomicReference<InvalidJwtException> exception = new AtomicReference<>();
+
+        @Override
+        public void completed(JwtContext jwtContext)
+        {
+            context.set(jwtContext);
+            done.countDown();
+        }
+
+        @Override
+        public void failed(InvalidJwtException e)
+        {
+            exception.set(e);
+            done.countDown();
+        }
+    }
+
+    private class DelayedResolver implements AsyncVerificationKeyResolver
+    {
+        private final AtomicInteger asyncCount = new AtomicInteger();
+        private final AtomicInteger syncCount = new AtomicInteger();
+        private volatile boolean fail;
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            syncCount.incrementAndGet();
+            if (fail)
+            {
+                throw new UnresolvableKeyException("no key for you");
+            }
+            return key;
+        }
+
+        @Override
+        public void resolveKeyAsync(JsonWebSignature jws, List<JsonWebStructure> nestingContext, final KeyResolutionCallback callback)
+        {
+            asyncCount.incrementAndGet();
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        Thread.sleep(50);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // just go on
+                    }
+
+                    if (fail)
+                    {
+                        callback.failed(new UnresolvableKeyException("no key for you"));
+                    }
+                    else
+                    {
+                        callback.resolved(key);
+                    }
+                }
+            }.start();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class RejectedJwtCacheTest
+{
+    private final Key key = new HmacKey(ByteUtil.randomBytes(32));
+
+    @Test
+    public void repeatedBadSignatureRejectedWithoutVerifying() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver(new HmacKey(ByteUtil.randomBytes(32)));
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(100, 60)
+                .build();
+
+        String jwt = makeJwt("aud");
+        InvalidJwtException first = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertTrue(first.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+        assertThat(resolver.count.get(), is(1));
+
+        InvalidJwtException second = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertTrue(second.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+        assertThat(second.getErrorDetails(), is(first.getErrorDetails()));
+        assertThat(second.getCause(), sameInstance((Throwable) first));
+        assertThat(resolver.count.get(), is(1));
+
+        RejectedJwtCache cache = jwtConsumer.getRejectedJwtCache();
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.size(), is(1));
+
+        cache.clear();
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertThat(resolver.count.get(), is(2));
+    }
+
+    @Test
+    public void unresolvableKeyRejectedFromCache() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver(null);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(100, 60)
+                .build();
+
+        String jwt = makeJwt("aud");
+        InvalidJwtException first = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertThat(first.getCause(), instanceOf(UnresolvableKeyException.class));
+        InvalidJwtException second = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertTrue(second.hasErrorCode(ErrorCodes.MISCELLANEOUS));
+        assertThat(resolver.count.get(), is(1));
+    }
+
+    @Test
+    public void transientFailuresNotCached() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver(key);
+        resolver.failures.set(1);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(100, 60)
+                .build();
+
+        String jwt = makeJwt("aud");
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertThat(e.getCause().getCause(), instanceOf(IOException.class));
+        assertThat(jwtConsumer.getRejectedJwtCache().size(), is(0));
+
+        jwtConsumer.process(jwt);
+        assertThat(resolver.count.get(), is(2));
+    }
+
+    @Test
+    public void claimsRejectionsNotCached() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver(key);
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .setRejectedJwtCache(100, 60)
+                .build();
+
+        String jwt = makeJwt("some other aud");
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertThat(resolver.count.get(), is(2));
+        assertThat(jwtConsumer.getRejectedJwtCache().size(), is(0));
+
+        jwtConsumer.process(makeJwt("aud"));
+    }
+
+    @Test
+    public void noCacheByDefault() throws Exception
+    {
+        assertThat(new JwtConsumerBuilder().build().getRejectedJwtCache(), nullValue());
+    }
+
+    private String makeJwt(String audience) throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience(audience);
+        claims.setExpirationTime(NumericDate.fromSeconds(NumericDate.now().getValue() + 300));
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+
+    private static class CountingResolver implements VerificationKeyResolver
+    {
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final Key key;
+
+        private CountingResolver(Key key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            count.incrementAndGet();
+            if (failures.getAndDecrement() > 0)
+            {
+                IOException ioe = new IOException("JWKS endpoint unavailable");
+                throw new UnresolvableKeyException("Unable to get the keys due to " + ioe, ioe);
+            }
+            if (key == null)
+            {
+                throw new UnresolvableKeyException("no key for you");
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.jwt.consumer;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.BoundedExpiringMap;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class VerifiedJwtCacheTest
+{
+    private final Key key = new HmacKey(ByteUtil.randomBytes(32));
+
+    @Test
+    public void repeatedJwtSkipsVerificationButNotValidation() throws Exception
+    {
+        CountingResolver resolver = new CountingResolver();
+        CountingValidator validator = new CountingValidator();
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setRequireExpirationTime()
+                .setExpectedAudience("aud")
+                .setVerificationKeyResolver(resolver)
+                .registerValidator(validator)
+                .setVerifiedJwtCache(100, 600)
+                .build();
+
+        String jwt = makeJwt(NumericDate.now().getValue() + 300);
+        JwtContext first = jwtConsumer.process(jwt);
+        JwtContext second = jwtConsumer.process(jwt);
+        JwtClaims third = jwtConsumer.processToClaims(jwt);
+
+        assertThat(resolver.count.get(), is(1));
+        assertThat(validator.count.get(), is(3));
+        assertThat(second.getJwtClaims(), sameInstance(first.getJwtClaims()));
+        assertThat(third, sameInstance(first.getJwtClaims()));
+        assertThat(second.getJwt(), equalTo(jwt));
+        assertThat(second.getJoseObjects().size(), is(1));
+
+        VerifiedJwtCache cache = jwtConsumer.getVerifiedJwtCache();
+        assertThat(cache.getHitCount(), is(2L));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.size(), is(1));
+
+        validator.fail = true;
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(jwt, jwtConsumer);
+        assertTrue(e.hasErrorCode(ErrorCodes.MISCELLANEOUS));
+        assertThat(resolver.count.get(), is(1));
+
+        cache.clear();
+        validator.fail = false;
+        jwtConsumer.process(jwt);
+        assertThat(resolver.count.get(), is(2));
+    }
+
+    @Test
+    public void differentJwtIsNotAHit() throws Exception
+    {
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKey(key)
+                .setVerifiedJwtCache(100, 600)
+                .build();
+
+        String jwt = makeJwt(NumericDate.now().getValue() + 300);
+        jwtConsumer.process(jwt);
+
+        String tampered = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("AA") ? "BB" : "AA");
+        InvalidJwtException e = SimpleJwtConsumerTestHelp.expectProcessingFailure(tampered, jwtConsumer);
+        assertTrue(e.hasErrorCode(ErrorCodes.SIGNATURE_INVALID));
+        assertThat(jwtConsumer.getVerifiedJwtCache().getHitCount(), is(0L));
+    }
+
+    @Test
+    public void notCachedPastExpiration() throws Exception
+    {
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setExpectedAudience("aud")
+                .setVerificationKey(key)
+                .setAllowedClockSkewInSeconds(120)
+                .setVerifiedJwtCache(100, 600)
+                .build();
+
+        String jwt = makeJwt(NumericDate.now().getValue() - 60);
+        jwtConsumer.process(jwt);
+        jwtConsumer.process(jwt);
+        assertThat(jwtConsumer.getVerifiedJwtCache().getHitCount(), is(0L));
+        assertThat(jwtConsumer.getVerifiedJwtCache().size(), is(0));
+    }
+
+    @Test
+    public void noCacheByDefault() throws Exception
+    {
+        assertThat(new JwtConsumerBuilder().build().getVerifiedJwtCache(), nullValue());
+    }
+
+    @Test
+    public void boundedSize() throws Exception
+    {
+        JwtHashCache<String> cache = new JwtHashCache<>(2);
+        long later = System.currentTimeMillis() + 60000;
+        cache.put("one", "1", later);
+        cache.put("two", "2", later);
+        cache.put("three", "3", later);
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get("one"), nullValue());
+        assertThat(cache.get("three"), equalTo("3"));
+
+        cache.put("old", "x", System.currentTimeMillis() - 1);
+        assertThat(cache.get("old"), nullValue());
+    }
+
+    @Test
+    public void expiredAndPutAgainStaysBounded() throws Exception
+    {
+        final long[] time = {1};
+        JwtHashCache<String> cache = new JwtHashCache<>(new BoundedExpiringMap<JwtHashCache.HashKey, String>(2)
+        {
+            @Override
+            protected long now()
+            {
+                return time[0];
+            }
+        });
+
+        cache.put("other", "o", Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put("replayed", "r", time[0] + 5);
+            time[0] += 10;
+            assertThat(cache.get("replayed"), nullValue());
+            assertThat(cache.size(), is(1));
+        }
+        cache.put("replayed", "r", Long.MAX_VALUE);
+        cache.put("another", "a", Long.MAX_VALUE);
+        assertThat(cache.get("replayed"), equalTo("r"));
+        assertThat(cache.get("other"), nullValue());
+    }
+
+    private String makeJwt(long exp) throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setAudience("aud");
+        claims.setExpirationTime(NumericDate.fromSeconds(exp));
+        claims.setSubject("subject");
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKey(key);
+        return jws.getCompactSerialization();
+    }
+
+    private class CountingResolver implements VerificationKeyResolver
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException
+        {
+            count.incrementAndGet();
+            return key;
+        }
+    }
+
+    private static class CountingValidator implements ErrorCodeValidator
+    {
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile boolean fail;
+
+        @Override
+        public Error validate(JwtContext jwtContext)
+        {
+            count.incrementAndGet();
+            return fail ? new Error(ErrorCodes.MISCELLANEOUS, "nope") : null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.jwx;
+
+import org.jose4j.base64url.Base64Url;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.keys.ExampleRsaKeyFromJws;
+import org.jose4j.lang.StringUtil;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class CompactSerializationPartsTest
+{
+    @Test
+    public void partsAndOffsets()
+    {
+        String cs = "aGVhZGVy.cGF5bG9hZA.c2ln";
+        CompactSerializationParts parts = CompactSerializationParts.parse(cs);
+        assertThat(parts.size(), is(3));
+        assertThat(parts.get(0), equalTo("aGVhZGVy"));
+        assertThat(parts.get(1), equalTo("cGF5bG9hZA"));
+        assertThat(parts.get(2), equalTo("c2ln"));
+        assertThat(parts.start(1), is(9));
+        assertThat(parts.end(1), is(19));
+        assertThat(StringUtil.newStringUtf8(parts.decode(0)), equalTo("header"));
+        assertThat(StringUtil.newStringUtf8(parts.decode(1)), equalTo("payload"));
+        assertThat(StringUtil.newStringUtf8(parts.decode(2)), equalTo("sig"));
+        assertThat(StringUtil.newStringUsAscii(parts.getAsciiBytes(0, 1)), equalTo("aGVhZGVy.cGF5bG9hZA"));
+        assertThat(StringUtil.newStringUsAscii(parts.getAsciiBytes(0, 0)), equalTo("aGVhZGVy"));
+    }
+
+    @Test
+    public void emptyParts()
+    {
+        assertArrayEquals(new String[] {"one", "", ""}, CompactSerializationParts.parse("one..").toArray());
+        assertArrayEquals(new String[] {"", "two", ""}, CompactSerializationParts.parse(".two.").toArray());
+        assertArrayEquals(new String[] {""}, CompactSerializationParts.parse("").toArray());
+        assertArrayEquals(new String[] {"one"}, CompactSerializationParts.parse("one").toArray());
+
+        CompactSerializationParts parts = CompactSerializationParts.parse("one..three");
+        assertTrue(parts.isEmpty(1));
+        assertThat(parts.decode(1).length, is(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void noSuchPart()
+    {
+        CompactSerializationParts.parse("one.two.three").get(3);
+    }
+
+    @Test
+    public void headerChangedAfterParsingIsUsedInSigningInput() throws Exception
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload("meh");
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKey(ExampleRsaKeyFromJws.PRIVATE_KEY);
+        String cs = jws.getCompactSerialization();
+
+        JsonWebSignature parsedJws = new JsonWebSignature();
+        parsedJws.setCompactSerialization(cs);
+        parsedJws.setKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+        assertTrue(parsedJws.verifySignature());
+
+        parsedJws = new JsonWebSignature();
+        parsedJws.setCompactSerialization(cs);
+        parsedJws.setKeyIdHeaderValue("changed");
+        parsedJws.setKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+        assertFalse(parsedJws.verifySignature());
+
+        parsedJws = new JsonWebSignature();
+        parsedJws.setCompactSerialization(cs);
+        parsedJws.setEncodedPayload(Base64Url.encodeUtf8ByteRepresentation("changed"));
+        parsedJws.setKey(ExampleRsaKeyFromJws.PUBLIC_KEY);
+        assertFalse(parsedJws.verifySignature());
+    }
+}
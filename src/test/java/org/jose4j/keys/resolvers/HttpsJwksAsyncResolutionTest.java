@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
+import org.jose4j.http.SimpleResponse;
+import org.jose4j.jwk.HttpsJwks;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.jwt.consumer.JwtContext;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class HttpsJwksAsyncResolutionTest
+{
+    @Test
+    public void cachedKeysResolveRightAwayAndOthersOnTheExecutor() throws Exception
+    {
+        final AtomicInteger gets = new AtomicInteger();
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                gets.incrementAndGet();
+                String json = "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"k1\",\"k\":\"Z2FnYWdhZ2FnYWdhZ2FnYWdhZ2FnYWdhZ2FnYWdhZ2E\"}]}";
+                return new Response(200, "OK", Collections.<String, List<String>>emptyMap(), json);
+            }
+        });
+        final AtomicInteger executions = new AtomicInteger();
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks);
+        resolver.setExecutor(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                executions.incrementAndGet();
+                new Thread(command, "test-key-resolution").start();
+            }
+        });
+
+        assertThat(httpsJwks.getCachedJsonWebKeyIndex(), nullValue());
+        RecordingCallback callback = new RecordingCallback();
+        resolver.resolveKeyAsync(jws("k1"), Collections.<JsonWebStructure>emptyList(), callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertThat(callback.key, notNullValue());
+        assertThat(callback.thread, equalTo("test-key-resolution"));
+        assertThat(executions.get(), is(1));
+        assertThat(gets.get(), is(1));
+
+        // now the keys are cached
+        assertThat(httpsJwks.getCachedJsonWebKeyIndex(), notNullValue());
+        callback = new RecordingCallback();
+        resolver.resolveKeyAsync(jws("k1"), Collections.<JsonWebStructure>emptyList(), callback);
+        assertThat(callback.done.getCount(), is(0L));
+        assertThat(callback.thread, equalTo(Thread.currentThread().getName()));
+        assertThat(executions.get(), is(1));
+
+        // an unknown kid means trying a refresh, which isn't done on the calling thread
+        callback = new RecordingCallback();
+        resolver.resolveKeyAsync(jws("k2"), Collections.<JsonWebStructure>emptyList(), callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertThat(callback.exception, notNullValue());
+        assertThat(callback.thread, equalTo("test-key-resolution"));
+        assertThat(executions.get(), is(2));
+    }
+
+    @Test
+    public void unexpectedProblemsStillGetToTheCallback() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                throw new IllegalStateException("not what anyone expected");
+            }
+        });
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks);
+
+        RecordingCallback callback = new RecordingCallback();
+        resolver.resolveKeyAsync(jws("k1"), Collections.<JsonWebStructure>emptyList(), callback);
+        assertTrue(callback.done.await(10, TimeUnit.SECONDS));
+        assertThat(callback.key, nullValue());
+        assertThat(callback.exception.getCause(), instanceOf(IllegalStateException.class));
+
+        // which means processing fails rather than never finishing
+        JwtConsumer jwtConsumer = new JwtConsumerBuilder()
+                .setSkipDefaultAudienceValidation()
+                .setVerificationKeyResolver(resolver)
+                .build();
+        JsonWebSignature jws = jws("k1");
+        jws.setPayload("{\"sub\":\"me\"}");
+        jws.setKey(new HmacKey(ByteUtil.randomBytes(32)));
+        Future<JwtContext> future = jwtConsumer.processAsync(jws.getCompactSerialization());
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+            fail("should have failed");
+        }
+        catch (ExecutionException e)
+        {
+            assertThat(e.getCause(), instanceOf(InvalidJwtException.class));
+        }
+    }
+
+    private static JsonWebSignature jws(String kid)
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue(kid);
+        return jws;
+    }
+
+    private static class RecordingCallback implements KeyResolutionCallback
+    {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Key key;
+        private volatile UnresolvableKeyException exception;
+        private volatile String thread;
+
+        @Override
+        public void resolved(Key key)
+        {
+            this.key = key;
+            thread = Thread.currentThread().getName();
+            done.countDown();
+        }
+
+        @Override
+        public void failed(UnresolvableKeyException e)
+        {
+            exception = e;
+            thread = Thread.currentThread().getName();
+            done.countDown();
+        }
+    }
+}
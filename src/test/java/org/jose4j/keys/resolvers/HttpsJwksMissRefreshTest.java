@@ -0,0 +1,251 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
+import org.jose4j.http.SimpleResponse;
+import org.jose4j.jwk.HttpsJwks;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class HttpsJwksMissRefreshTest
+{
+    @Test
+    public void concurrentMissesShareOneRefresh() throws Exception
+    {
+        final CountingGet get = new CountingGet(200, "k1");
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        final HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks);
+        assertThat(resolver.resolveKey(jws("k1"), Collections.<JsonWebStructure>emptyList()), notNullValue());
+        assertThat(get.count.get(), is(1));
+
+        Thread.sleep(400); // past the refresh reprieve threshold
+        get.kids = new String[] {"k1", "k2"};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Key>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+            {
+                futures.add(executor.submit(new Callable<Key>()
+                {
+                    @Override
+                    public Key call() throws Exception
+                    {
+                        return resolver.resolveKey(jws("k2"), Collections.<JsonWebStructure>emptyList());
+                    }
+                }));
+            }
+            for (Future<Key> future : futures)
+            {
+                assertThat(future.get(), notNullValue());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertThat(get.count.get(), is(2));
+    }
+
+    @Test
+    public void missRefreshesAreRateLimited() throws Exception
+    {
+        CountingGet get = new CountingGet(0, "k1");
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        httpsJwks.setRefreshReprieveThreshold(0);
+        httpsJwks.setMissRefreshMinimumInterval(60000);
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks);
+
+        for (int i = 0; i < 10; i++)
+        {
+            expectUnresolvable(resolver, "nope" + i);
+        }
+        assertThat(get.count.get(), is(1));
+
+        // an explicit refresh isn't limited by it
+        httpsJwks.refresh();
+        assertThat(get.count.get(), is(2));
+    }
+
+    @Test
+    public void unknownKidsAreRemembered() throws Exception
+    {
+        CountingGet get = new CountingGet(0, "k1");
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        httpsJwks.setRefreshReprieveThreshold(0);
+        httpsJwks.setUnknownKeyIdCache(100, 60);
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks);
+
+        expectUnresolvable(resolver, "x");
+        assertThat(get.count.get(), is(2));
+        assertTrue(httpsJwks.isUnknownKeyId("x"));
+        expectUnresolvable(resolver, "x");
+        expectUnresolvable(resolver, "x");
+        assertThat(get.count.get(), is(2));
+
+        expectUnresolvable(resolver, "y");
+        assertThat(get.count.get(), is(3));
+
+        // new content means forgetting what was unknown
+        get.kids = new String[] {"x"};
+        httpsJwks.refresh();
+        assertFalse(httpsJwks.isUnknownKeyId("x"));
+        assertThat(resolver.resolveKey(jws("x"), Collections.<JsonWebStructure>emptyList()), notNullValue());
+    }
+
+    @Test
+    public void unknownKidsBoundedOldestOut() throws Exception
+    {
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setUnknownKeyIdCache(2, 60);
+        httpsJwks.addUnknownKeyId("x");
+        httpsJwks.addUnknownKeyId("y");
+        httpsJwks.addUnknownKeyId("x");
+        httpsJwks.addUnknownKeyId("z");
+        assertTrue(httpsJwks.isUnknownKeyId("x"));
+        assertFalse(httpsJwks.isUnknownKeyId("y"));
+        assertTrue(httpsJwks.isUnknownKeyId("z"));
+    }
+
+    @Test
+    public void overriddenListSelectIsStillUsed() throws Exception
+    {
+        CountingGet get = new CountingGet(0, "k1", "k2");
+        HttpsJwks httpsJwks = new HttpsJwks("https://example.com/jwks");
+        httpsJwks.setSimpleHttpGet(get);
+        final AtomicInteger selections = new AtomicInteger();
+        HttpsJwksVerificationKeyResolver resolver = new HttpsJwksVerificationKeyResolver(httpsJwks)
+        {
+            @Override
+            protected JsonWebKey select(JsonWebSignature jws, List<JsonWebKey> jsonWebKeys) throws JoseException
+            {
+                // ignores the kid and always picks the last one
+                selections.incrementAndGet();
+                return jsonWebKeys.get(jsonWebKeys.size() - 1);
+            }
+        };
+
+        Key key = resolver.resolveKey(jws("k1"), Collections.<JsonWebStructure>emptyList());
+        assertThat(key, equalTo(httpsJwks.getJsonWebKeys().get(1).getKey()));
+        assertThat(selections.get(), is(1));
+
+        RecordingCallback callback = new RecordingCallback();
+        resolver.resolveKeyAsync(jws("k1"), Collections.<JsonWebStructure>emptyList(), callback);
+        assertThat(callback.key, equalTo(httpsJwks.getJsonWebKeys().get(1).getKey()));
+        assertThat(selections.get(), is(2));
+    }
+
+    private void expectUnresolvable(HttpsJwksVerificationKeyResolver resolver, String kid) throws Exception
+    {
+        try
+        {
+            resolver.resolveKey(jws(kid), Collections.<JsonWebStructure>emptyList());
+            fail("shouldn't have found a key for " + kid);
+        }
+        catch (UnresolvableKeyException e)
+        {
+            // expected
+        }
+    }
+
+    private static JsonWebSignature jws(String kid)
+    {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue(kid);
+        return jws;
+    }
+
+    private static class RecordingCallback implements KeyResolutionCallback
+    {
+        private volatile Key key;
+
+        @Override
+        public void resolved(Key key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public void failed(UnresolvableKeyException e)
+        {
+            fail(e.toString());
+        }
+    }
+
+    private static class CountingGet implements SimpleGet
+    {
+        private final AtomicInteger count = new AtomicInteger();
+        private final long delay;
+        private volatile String[] kids;
+
+        private CountingGet(long delay, String... kids)
+        {
+            this.delay = delay;
+            this.kids = kids;
+        }
+
+        @Override
+        public SimpleResponse get(String location) throws IOException
+        {
+            count.incrementAndGet();
+            try
+            {
+                Thread.sleep(delay);
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException(e);
+            }
+
+            StringBuilder json = new StringBuilder("{\"keys\":[");
+            for (int i = 0; i < kids.length; i++)
+            {
+                json.append(i > 0 ? "," : "").append("{\"kty\":\"oct\",\"kid\":\"").append(kids[i]).append("\",\"k\":\"Z2FnYWdhZ2FnYWdhZ2FnYWdhZ2FnYWdhZ2FnYWdhZ2E\"}");
+            }
+            json.append("]}");
+            return new Response(200, "OK", Collections.<String, List<String>>emptyMap(), json.toString());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.keys.resolvers;
+
+import org.jose4j.http.Response;
+import org.jose4j.http.SimpleGet;
+import org.jose4j.http.SimpleResponse;
+import org.jose4j.jwk.HttpsJwksRegistry;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.OctJwkGenerator;
+import org.jose4j.jwk.OctetSequenceJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class IssuerHttpsJwksVerificationKeyResolverTest
+{
+    @Test
+    public void routesByIssuer() throws Exception
+    {
+        final Map<String, OctetSequenceJsonWebKey> keysByLocation = new HashMap<>();
+        for (String tenant : new String[] {"a", "b"})
+        {
+            OctetSequenceJsonWebKey jwk = OctJwkGenerator.generateJwk(256);
+            jwk.setKeyId("k");  // same kid for each tenant
+            keysByLocation.put("https://example.com/" + tenant + "/jwks", jwk);
+        }
+
+        HttpsJwksRegistry registry = new HttpsJwksRegistry();
+        registry.addIssuerPattern(Pattern.compile("https://example\\.com/([ab])"), "https://example.com/$1/jwks");
+        registry.setSimpleHttpGet(new SimpleGet()
+        {
+            @Override
+            public SimpleResponse get(String location) throws IOException
+            {
+                String body = new JsonWebKeySet(keysByLocation.get(location)).toJson(JsonWebKey.OutputControlLevel.INCLUDE_SYMMETRIC);
+                return new Response(200, "OK", Collections.<String, List<String>>emptyMap(), body);
+            }
+        });
+
+        JwtConsumer consumer = new JwtConsumerBuilder()
+                .setVerificationKeyResolver(new IssuerHttpsJwksVerificationKeyResolver(registry))
+                .build();
+
+        OctetSequenceJsonWebKey keyA = keysByLocation.get("https://example.com/a/jwks");
+        OctetSequenceJsonWebKey keyB = keysByLocation.get("https://example.com/b/jwks");
+        assertThat(consumer.processToClaims(jwt("https://example.com/a", keyA)).getIssuer(), equalTo("https://example.com/a"));
+        assertThat(consumer.processToClaims(jwt("https://example.com/b", keyB)).getIssuer(), equalTo("https://example.com/b"));
+
+        expectInvalid(consumer, jwt("https://example.com/b", keyA));
+        expectInvalid(consumer, jwt("https://example.com/c", keyA));
+        expectInvalid(consumer, jwt(null, keyA));
+    }
+
+    private void expectInvalid(JwtConsumer consumer, String jwt)
+    {
+        try
+        {
+            consumer.processToClaims(jwt);
+            fail("shouldn't have been accepted " + jwt);
+        }
+        catch (InvalidJwtException e)
+        {
+            // expected
+        }
+    }
+
+    private static String jwt(String issuer, OctetSequenceJsonWebKey jwk) throws Exception
+    {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(issuer);
+        claims.setSubject("me");
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.HMAC_SHA256);
+        jws.setKeyIdHeaderValue(jwk.getKeyId());
+        jws.setKey(jwk.getKey());
+        return jws.getCompactSerialization();
+    }
+}
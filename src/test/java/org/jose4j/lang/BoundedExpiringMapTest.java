@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.lang;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ */
+public class BoundedExpiringMapTest
+{
+    @Test
+    public void oldestOutFirst()
+    {
+        TestClockMap map = new TestClockMap(2);
+        map.put("one", "1", 100);
+        map.put("two", "2", 100);
+        map.put("three", "3", 100);
+        assertThat(map.size(), is(2));
+        assertThat(map.get("one"), nullValue());
+        assertThat(map.get("two"), equalTo("2"));
+        assertThat(map.get("three"), equalTo("3"));
+
+        // putting again makes it the newest
+        map.put("two", "2", 100);
+        map.put("four", "4", 100);
+        assertThat(map.get("three"), nullValue());
+        assertThat(map.get("two"), equalTo("2"));
+        assertThat(map.get("four"), equalTo("4"));
+    }
+
+    @Test
+    public void expiredAreDropped()
+    {
+        TestClockMap map = new TestClockMap(10);
+        map.put("old", "x", 0);
+        assertThat(map.size(), is(0));
+
+        map.put("a", "a", 10);
+        map.put("b", "b", 20);
+        map.time = 10;
+        assertThat(map.get("a"), nullValue());
+        assertThat(map.size(), is(1));
+        map.time = 20;
+        map.removeExpired();
+        assertThat(map.size(), is(0));
+    }
+
+    @Test
+    public void expireGetPutCyclesStayBounded()
+    {
+        TestClockMap map = new TestClockMap(3);
+        map.put("other1", "o", Long.MAX_VALUE);
+        map.put("other2", "o", Long.MAX_VALUE);
+        for (int i = 0; i < 1000; i++)
+        {
+            map.put("replayed", "r", map.time + 5);
+            map.time += 10;
+            assertThat(map.get("replayed"), nullValue());
+            assertThat(map.size(), is(2));
+        }
+
+        // a fresh entry for a key that was put and expired before isn't pushed out in its place
+        map.put("replayed", "r", Long.MAX_VALUE);
+        map.put("other3", "o", Long.MAX_VALUE);
+        assertThat(map.size(), is(3));
+        assertThat(map.get("replayed"), equalTo("r"));
+        assertThat(map.get("other1"), nullValue());
+    }
+
+    private static class TestClockMap extends BoundedExpiringMap<String, String>
+    {
+        private long time = 1;
+
+        private TestClockMap(int maxEntries)
+        {
+            super(maxEntries);
+        }
+
+        @Override
+        protected long now()
+        {
+            return time;
+        }
+    }
+}
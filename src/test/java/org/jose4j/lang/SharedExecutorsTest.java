@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jose4j.lang;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ */
+public class SharedExecutorsTest
+{
+    @Test
+    public void blockingUsesNamedDaemonThreads() throws Exception
+    {
+        Thread thread = SharedExecutors.blocking().schedule(new Callable<Thread>()
+        {
+            @Override
+            public Thread call()
+            {
+                return Thread.currentThread();
+            }
+        }, 1, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+
+        assertThat(thread.isDaemon(), is(true));
+        assertThat(thread.getName().startsWith("jose4j-io-"), is(true));
+    }
+
+    @Test
+    public void sameInstances()
+    {
+        assertThat(SharedExecutors.blocking() == SharedExecutors.blocking(), is(true));
+        assertThat(SharedExecutors.computation() == SharedExecutors.computation(), is(true));
+    }
+
+    @Test
+    public void daemonThreadFactoryCounts()
+    {
+        DaemonThreadFactory factory = new DaemonThreadFactory("test-");
+        Runnable nothing = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+            }
+        };
+        assertThat(factory.newThread(nothing).getName(), equalTo("test-1"));
+        Thread thread = factory.newThread(nothing);
+        assertThat(thread.getName(), equalTo("test-2"));
+        assertThat(thread.isDaemon(), is(true));
+    }
+}
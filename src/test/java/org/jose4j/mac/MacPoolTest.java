@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2017 Brian Campbell
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jose4j.mac;
+
+import org.jose4j.keys.HmacKey;
+import org.jose4j.lang.ByteUtil;
+import org.jose4j.lang.InvalidKeyException;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.StringUtil;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import java.security.Key;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+/**
+ */
+public class MacPoolTest
+{
+    private static final byte[] DATA = StringUtil.getBytesUtf8("some data to MAC");
+
+    @Test
+    public void sameResultAsNewMac() throws Exception
+    {
+        MacPool pool = new MacPool(4, 4);
+        Key key = new HmacKey(ByteUtil.randomBytes(32));
+        byte[] expected = MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, key).doFinal(DATA);
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertArrayEquals(expected, pool.doFinal(MacUtil.HMAC_SHA256, key, null, DATA));
+        }
+        byte[][] pieces = {ByteUtil.subArray(DATA, 0, 4), ByteUtil.subArray(DATA, 4, DATA.length - 4)};
+        assertArrayEquals(expected, pool.doFinal(MacUtil.HMAC_SHA256, key, null, pieces));
+        assertThat(pool.size(), is(1));
+    }
+
+    @Test
+    public void releasedMacIsReusedAndReset() throws Exception
+    {
+        MacPool pool = new MacPool(4, 4);
+        Key key = new HmacKey(ByteUtil.randomBytes(32));
+        byte[] expected = MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, key).doFinal(DATA);
+
+        MacPool.PooledMac pooledMac = pool.borrow(MacUtil.HMAC_SHA256, key, null);
+        Mac mac = pooledMac.getMac();
+        mac.update(StringUtil.getBytesUtf8("left over"));
+
+        MacPool.PooledMac another = pool.borrow(MacUtil.HMAC_SHA256, key, null);
+        assertThat(another.getMac(), not(sameInstance(mac)));
+        assertArrayEquals(expected, another.getMac().doFinal(DATA));
+        another.release();
+
+        pooledMac.release();
+        pooledMac.release();
+
+        MacPool.PooledMac again = pool.borrow(MacUtil.HMAC_SHA256, key, null);
+        assertArrayEquals(expected, again.getMac().doFinal(DATA));
+        again.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noUseAfterRelease() throws Exception
+    {
+        MacPool.PooledMac pooledMac = new MacPool(4, 4).borrow(MacUtil.HMAC_SHA256, new HmacKey(new byte[32]), null);
+        pooledMac.release();
+        pooledMac.getMac();
+    }
+
+    @Test
+    public void rotatedKeysDoNotShareMacs() throws Exception
+    {
+        MacPool pool = new MacPool(4, 4);
+        byte[] keyBytes = ByteUtil.randomBytes(32);
+        byte[] first = pool.doFinal(MacUtil.HMAC_SHA256, new HmacKey(keyBytes), null, DATA);
+
+        byte[] rotatedKeyBytes = keyBytes.clone();
+        rotatedKeyBytes[31]++;
+        byte[] second = pool.doFinal(MacUtil.HMAC_SHA256, new HmacKey(rotatedKeyBytes), null, DATA);
+        assertFalse(ByteUtil.secureEquals(first, second));
+        assertArrayEquals(MacUtil.getInitializedMac(MacUtil.HMAC_SHA256, new HmacKey(rotatedKeyBytes)).doFinal(DATA), second);
+
+        byte[] otherAlg = pool.doFinal(MacUtil.HMAC_SHA384, new HmacKey(keyBytes), null, DATA);
+        assertThat(otherAlg.length, is(48));
+        assertThat(pool.size(), is(3));
+    }
+
+    @Test
+    public void oldestKeysAreEvicted() throws Exception
+    {
+        MacPool pool = new MacPool(3, 2);
+        for (int i = 0; i < 10; i++)
+        {
+            Key key = new HmacKey(ByteUtil.randomBytes(32));
+            byte[] expected = MacUtil.getInitializedMac(MacUtil.HMAC_SHA512, key).doFinal(DATA);
+            assertArrayEquals(expected, pool.doFinal(MacUtil.HMAC_SHA512, key, null, DATA));
+            assertTrue(pool.size() <= 3);
+        }
+        pool.clear();
+        assertThat(pool.size(), is(0));
+    }
+
+    @Test
+    public void badKeyIsNotPooled() throws Exception
+    {
+        MacPool pool = new MacPool(3, 2);
+        try
+        {
+            pool.borrow(MacUtil.HMAC_SHA256, new HmacKey(new byte[32]), "no-such-provider");
+            fail("should have failed");
+        }
+        catch (JoseException e)
+        {
+            assertThat(pool.size(), is(0));
+        }
+
+        try
+        {
+            pool.borrow(MacUtil.HMAC_SHA256, null, null);
+            fail("should have failed");
+        }
+        catch (InvalidKeyException e)
+        {
+            assertThat(pool.size(), is(0));
+        }
+    }
+}